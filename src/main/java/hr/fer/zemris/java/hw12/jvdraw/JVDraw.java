@@ -1,20 +1,28 @@
 package hr.fer.zemris.java.hw12.jvdraw;
 
+import hr.fer.zemris.java.hw12.jvdraw.action.DeleteAction;
 import hr.fer.zemris.java.hw12.jvdraw.action.ExitAction;
 import hr.fer.zemris.java.hw12.jvdraw.action.ExportAction;
 import hr.fer.zemris.java.hw12.jvdraw.action.OpenAction;
+import hr.fer.zemris.java.hw12.jvdraw.action.RedoAction;
 import hr.fer.zemris.java.hw12.jvdraw.action.SaveAction;
 import hr.fer.zemris.java.hw12.jvdraw.action.SaveAsAction;
+import hr.fer.zemris.java.hw12.jvdraw.action.UndoAction;
 import hr.fer.zemris.java.hw12.jvdraw.component.ColorChangeListener;
+import hr.fer.zemris.java.hw12.jvdraw.component.ColumnarDrawingModel;
 import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
 import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModelImpl;
 import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModelListener;
 import hr.fer.zemris.java.hw12.jvdraw.component.DrawingObjectListModel;
 import hr.fer.zemris.java.hw12.jvdraw.component.JColorArea;
 import hr.fer.zemris.java.hw12.jvdraw.component.JDrawingCanvas;
+import hr.fer.zemris.java.hw12.jvdraw.component.UndoableDrawingModel;
 import hr.fer.zemris.java.hw12.jvdraw.drawer.CircleDrawer;
 import hr.fer.zemris.java.hw12.jvdraw.drawer.FilledCircleDrawer;
 import hr.fer.zemris.java.hw12.jvdraw.drawer.LineDrawer;
+import hr.fer.zemris.java.hw12.jvdraw.io.DrawingBinaryFormat;
+import hr.fer.zemris.java.hw12.jvdraw.io.DrawingJournal;
+import hr.fer.zemris.java.hw12.jvdraw.io.DrawingSaver;
 import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
 import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
 import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
@@ -32,12 +40,12 @@ import java.awt.event.MouseEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -53,6 +61,7 @@ import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.WindowConstants;
 import javax.swing.border.BevelBorder;
@@ -65,7 +74,12 @@ import javax.swing.border.BevelBorder;
  * various options. Tool-bar provides foreground and background color, such as
  * objects which can be drawn on central canvas. There are circle, filled circle
  * and line. Result of painting can be saved as text document or it can be
- * exported as JPG, GIF or PNG image.
+ * exported as JPG, GIF, PNG or SVG image. Documents are being saved and
+ * exported on background thread, from snapshots of the drawing, and changed
+ * documents are periodically autosaved next to current file. In journal mode
+ * only changes are being appended to journal next to current file, which is
+ * replayed when the file is opened again. Selected objects can be deleted and
+ * all changes can be undone and redone.
  * 
  * @author Domagoj Penic
  * @version 4.6.2015.
@@ -78,11 +92,36 @@ public class JVDraw extends JFrame implements DrawingModelListener {
      * */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Delay between two autosaves in milliseconds.
+     */
+    private static final int AUTOSAVE_DELAY = 60 * 1000;
+
+    /**
+     * Suffix which is added to name of current file to get name of file in
+     * which drawing is being autosaved.
+     */
+    private static final String AUTOSAVE_SUFFIX = ".autosave."
+            + DrawingBinaryFormat.EXTENSION;
+
     /**
      * {@code DrawingModel} which holds object which are being painted and
      * showed on list.
      */
-    private DrawingModelImpl drawingModel;
+    private DrawingModel drawingModel;
+
+    /**
+     * {@code DrawingModel} which records changes of the drawing, so they can
+     * be undone. All changes are being made through it.
+     */
+    private UndoableDrawingModel undoableModel;
+
+    /**
+     * {@code DrawingModel} adapted by {@linkplain #undoableModel}. Loaded
+     * documents are appended to it directly, so loading is not recorded as
+     * thousands of changes which would be undone one batch at a time.
+     */
+    private DrawingModel documentModel;
 
     /**
      * Main panel of this {@code JFrame} where all components are being stored,
@@ -121,12 +160,69 @@ public class JVDraw extends JFrame implements DrawingModelListener {
      */
     private Path currentPath;
 
+    /**
+     * Number of changes made in {@code DrawingModel}, used for detecting
+     * whether drawing was changed while it was being saved.
+     */
+    private long modificationCount;
+
+    /**
+     * Value of modification count when drawing was last autosaved or saved.
+     */
+    private long autosavedModificationCount;
+
+    /**
+     * Indicates if last autosave failed, so failures of following autosaves
+     * are not shown to user again until some autosave succeeds.
+     */
+    private boolean autosaveFailed;
+
+    /**
+     * Writes drawings to files on background thread.
+     */
+    private DrawingSaver saver = new DrawingSaver();
+
+    /**
+     * Timer which periodically autosaves changed drawing.
+     */
+    private Timer autosaveTimer;
+
+    /**
+     * Indicates if changes are being saved in journal next to the document.
+     */
+    private boolean journalMode;
+
+    /**
+     * Journal of current document, or {@code null} if journal mode is not
+     * used or journal is not yet started.
+     */
+    private DrawingJournal journal;
+
     /**
      * Creates new {@code JVDraw} frame and initializes all its GUI components
      * and defined actions. It also attaches all necessary listeners defined by
-     * Observer design pattern.
+     * Observer design pattern. Drawn objects are being stored in new
+     * {@code DrawingModelImpl}.
      */
     public JVDraw() {
+        this(new DrawingModelImpl());
+    }
+
+    /**
+     * Creates new {@code JVDraw} frame which stores drawn objects in specified
+     * {@code DrawingModel} and initializes all its GUI components and defined
+     * actions. It also attaches all necessary listeners defined by Observer
+     * design pattern.
+     * 
+     * @param drawingModel
+     *            Empty {@code DrawingModel} in which drawn objects are being
+     *            stored
+     */
+    public JVDraw(DrawingModel drawingModel) {
+        documentModel = drawingModel;
+        undoableModel = new UndoableDrawingModel(drawingModel);
+        this.drawingModel = undoableModel;
+
         setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
         setSize(800, 550);
         setLocation(50, 50);
@@ -136,6 +232,9 @@ public class JVDraw extends JFrame implements DrawingModelListener {
         currentPath = null;
 
         initGUI();
+
+        autosaveTimer = new Timer(AUTOSAVE_DELAY, e -> autosave());
+        autosaveTimer.start();
     }
 
     /**
@@ -156,8 +255,7 @@ public class JVDraw extends JFrame implements DrawingModelListener {
             }
         });
 
-        // Create new drawing model for this file
-        drawingModel = new DrawingModelImpl();
+        // Observe drawing model of this file
         drawingModel.addDrawingModelListener(this);
 
         canvas = new JDrawingCanvas(drawingModel);
@@ -181,6 +279,30 @@ public class JVDraw extends JFrame implements DrawingModelListener {
             }
         });
 
+        // Canvas and list share selection, objects picked on canvas are
+        // shown in list
+        canvas.setSelectionModel(list.getSelectionModel());
+        list.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()
+                    && list.getLeadSelectionIndex() >= 0) {
+                list.ensureIndexIsVisible(list.getLeadSelectionIndex());
+            }
+        });
+
+        // Double click on object opens its dialog when nothing is drawn
+        canvas.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2
+                        && canvas.getCurrentDrawer() == null) {
+                    int index = canvas.getObjectAt(e.getPoint());
+                    if (index >= 0) {
+                        openDialogForObject(index);
+                    }
+                }
+            }
+        });
+
         JScrollPane scrollPaneList = new JScrollPane(list);
         scrollPaneList.setPreferredSize(new Dimension(80, 0));
         scrollPaneList.setBorder(BorderFactory.createEtchedBorder(
@@ -196,8 +318,9 @@ public class JVDraw extends JFrame implements DrawingModelListener {
 
     /**
      * Creates menus for this {@code JVDraw} frame and adds it to the main
-     * panel. Only file menu is provided which holds several actions, such as
-     * opening and saving current document.
+     * panel. File menu holds several actions, such as opening and saving
+     * current document, edit menu holds actions over selected objects and
+     * view menu holds options of canvas.
      */
     private void createMenus() {
         JMenuBar menuBar = new JMenuBar();
@@ -206,7 +329,20 @@ public class JVDraw extends JFrame implements DrawingModelListener {
         JMenu fileMenu = new JMenu("File");
         menuBar.add(fileMenu);
 
-        fileMenu.add(new JMenuItem(new OpenAction(this, drawingModel)));
+        OpenAction openAction = new OpenAction(this, documentModel);
+        fileMenu.add(new JMenuItem(openAction));
+
+        // Strict parsing rejects whole file if some line is invalid
+        JCheckBoxMenuItem strictItem = new JCheckBoxMenuItem("Strict parsing");
+        strictItem.addItemListener(e -> openAction.setStrict(strictItem
+                .isSelected()));
+        fileMenu.add(strictItem);
+
+        // Journal mode saves only changes made since last save
+        JCheckBoxMenuItem journalItem = new JCheckBoxMenuItem("Journal mode");
+        journalItem.addItemListener(e -> setJournalMode(journalItem
+                .isSelected()));
+        fileMenu.add(journalItem);
         fileMenu.addSeparator();
 
         fileMenu.add(new JMenuItem(new SaveAction(this, drawingModel)));
@@ -216,14 +352,37 @@ public class JVDraw extends JFrame implements DrawingModelListener {
 
         fileMenu.add(new JMenuItem(new ExitAction(this, drawingModel)));
 
+        // Edit menu
+        JMenu editMenu = new JMenu("Edit");
+        menuBar.add(editMenu);
+
+        editMenu.add(new JMenuItem(new UndoAction(this, undoableModel)));
+        editMenu.add(new JMenuItem(new RedoAction(this, undoableModel)));
+        editMenu.addSeparator();
+
+        editMenu.add(new JMenuItem(new DeleteAction(this, drawingModel, canvas
+                .getSelectionModel())));
+
+        // View menu
+        JMenu viewMenu = new JMenu("View");
+        menuBar.add(viewMenu);
+
+        // Crowded areas are painted faster with less details
+        JCheckBoxMenuItem detailItem = new JCheckBoxMenuItem(
+                "Level of detail", true);
+        detailItem.addItemListener(e -> canvas.setLevelOfDetail(detailItem
+                .isSelected()));
+        viewMenu.add(detailItem);
+
         setJMenuBar(menuBar);
     }
 
     /**
      * Creates tool-bar for this {@code JVDraw} frame and adds it to the main
      * panel. This tool-bar provides two {@code JColorArea} which represent
-     * foreground and background color, and toggle buttons for every
-     * {@code GeometricalObject} which can be painted on central canvas.
+     * foreground and background color, toggle button for selecting objects
+     * and toggle buttons for every {@code GeometricalObject} which can be
+     * painted on central canvas.
      */
     private void createToolBar() {
         JToolBar toolBar = new JToolBar("ToolBar");
@@ -255,11 +414,18 @@ public class JVDraw extends JFrame implements DrawingModelListener {
                     canvas.setCurrentDrawer(new FilledCircleDrawer());
                 });
 
+        JToggleButton selectButton = createToggleButton("Select", (e) -> {
+            canvas.setCurrentDrawer(null);
+        });
+        selectButton.setSelected(true);
+
         ButtonGroup toggleButtonGroup = new ButtonGroup();
+        toggleButtonGroup.add(selectButton);
         toggleButtonGroup.add(lineButton);
         toggleButtonGroup.add(circleButton);
         toggleButtonGroup.add(filledCircleButton);
 
+        toolBar.add(selectButton);
         toolBar.add(lineButton);
         toolBar.add(circleButton);
         toolBar.add(filledCircleButton);
@@ -340,7 +506,8 @@ public class JVDraw extends JFrame implements DrawingModelListener {
      *            {@code GeometricalObject} index which has been pressed
      */
     private void openDialogForObject(int index) {
-        GeometricalObject object = drawingModel.getObject(index);
+        // Copy is edited, so old properties can be recorded for undo
+        GeometricalObject object = drawingModel.getObject(index).copy();
 
         try {
             if (object instanceof Line) {
@@ -351,7 +518,7 @@ public class JVDraw extends JFrame implements DrawingModelListener {
                 openFilledCircleDialog((FilledCircle) object);
             }
 
-            drawingModel.objectChanged(index);
+            drawingModel.set(index, object);
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, "Illegal input!", "Warning",
                     JOptionPane.WARNING_MESSAGE);
@@ -563,7 +730,11 @@ public class JVDraw extends JFrame implements DrawingModelListener {
     /**
      * Writes file specified by current path and writes its content. If path is
      * not specified before this call is made, user is requested to chose new
-     * path.
+     * path. Files with {@code .jvdb} extension are being written in binary
+     * format, other files as text. File is being replaced atomically, so its
+     * old content stays intact if writing fails. Snapshot of drawing is being
+     * written on background thread, so user interface is not blocked and
+     * drawing can be changed while it is being saved.
      */
     public void writeCurrentFile() {
         if (currentPath == null) {
@@ -577,30 +748,262 @@ public class JVDraw extends JFrame implements DrawingModelListener {
             currentPath = fc.getSelectedFile().toPath();
         }
 
+        Path path = currentPath;
+        long savedModificationCount = modificationCount;
+        autosavedModificationCount = modificationCount;
+
+        // Journal which is not started yet waits for pending save of whole
+        // document, and can not be committed before it
+        if (journal != null && journal.isStarted()
+                && journal.getDocument().equals(path)
+                && !journal.needsCompaction()) {
+            try {
+                journal.commit();
+                fileSaved = true;
+                deleteAutosave(path);
+            } catch (IOException ex) {
+                showWriteError(path, ex);
+            }
+            return;
+        }
+
+        // Whole document is written, changes made in the meantime are held
+        // by new journal which is started after the document is written
+        closeJournal();
+        DrawingJournal newJournal = null;
+        if (journalMode) {
+            newJournal = new DrawingJournal(path);
+            journal = newJournal;
+            drawingModel.addDrawingModelListener(newJournal);
+        }
+
+        DrawingJournal startedJournal = newJournal;
+        saver.save(drawingModel.snapshot(), path, ex -> {
+            try {
+                if (ex != null) {
+                    throw ex;
+                }
+
+                // Old journal does not match written document anymore
+                if (startedJournal == null) {
+                    DrawingJournal.delete(path);
+                } else if (journal == startedJournal) {
+                    startedJournal.start();
+                }
+            } catch (IOException failure) {
+                if (journal == startedJournal) {
+                    closeJournal();
+                }
+
+                fileSaved = false;
+                showWriteError(path, failure);
+                return;
+            }
+
+            // Drawing could be changed while it was being written
+            if (modificationCount == savedModificationCount) {
+                fileSaved = true;
+                deleteAutosave(path);
+            }
+        });
+    }
+
+    /**
+     * Exports current drawing as image in specified format to specified file.
+     * Snapshot of drawing is being exported on background thread, so user
+     * interface is not blocked and drawing can be changed while it is being
+     * exported. User is informed about the result when export is finished.
+     * 
+     * @param path
+     *            File to be written
+     * @param format
+     *            Informal name of image format
+     */
+    public void exportDrawing(Path path, String format) {
+        saver.export(drawingModel.snapshot(), path, format, ex -> {
+            if (ex != null) {
+                JOptionPane.showMessageDialog(this, "Error while writing file "
+                        + path + ": " + ex.getMessage(), "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            JOptionPane.showMessageDialog(this, "File successfully exported");
+        });
+    }
+
+    /**
+     * Shows message that writing of specified file failed.
+     * 
+     * @param path
+     *            File which could not be written
+     * @param ex
+     *            Cause of failure
+     */
+    private void showWriteError(Path path, IOException ex) {
+        JOptionPane.showMessageDialog(this, "Error while writing file " + path
+                + ": " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Shows message that journal of current document could not be used.
+     * 
+     * @param message
+     *            Description of failure
+     * @param ex
+     *            Cause of failure
+     */
+    private void showJournalError(String message, IOException ex) {
+        JOptionPane.showMessageDialog(this, message + ": " + ex.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Sets whether changes of current document should be saved in journal
+     * next to the document, so saving costs as much as changes which were
+     * made since last save. Journal is started with the next save. When
+     * journal becomes too large, whole document is written and new journal
+     * is started.
+     * 
+     * @param enabled
+     *            {@code true} if journal mode should be used
+     */
+    public void setJournalMode(boolean enabled) {
+        journalMode = enabled;
+
+        if (!enabled) {
+            closeJournal();
+        }
+    }
+
+    /**
+     * Sets loaded document as current one. If journal of the document exists,
+     * changes saved in it are being replayed on loaded objects. If journal
+     * mode is used, new changes are being appended to the journal. If journal
+     * can not be recovered or started, user is informed about it.
+     * 
+     * @param path
+     *            Loaded document
+     * @param offset
+     *            Number of objects which were in {@code DrawingModel} before
+     *            the document was loaded
+     */
+    public void documentLoaded(Path path, int offset) {
+        closeJournal();
+        currentPath = path;
+
+        DrawingJournal recovered = null;
         try {
-            int numberOfObjects = drawingModel.getSize();
-            StringBuilder sb = new StringBuilder();
+            recovered = DrawingJournal.recover(path, documentModel, offset);
+        } catch (IOException ex) {
+            showJournalError("Changes saved in journal of " + path
+                    + " could not be recovered", ex);
+        }
+
+        // Loading is not recorded, appended objects do not move any object of
+        // recorded changes, so changes made before document was added to
+        // other objects can still be undone
+        fileSaved = offset == 0;
+        if (offset == 0) {
+            undoableModel.clearHistory();
+        }
+        autosavedModificationCount = modificationCount;
+
+        if (!journalMode || offset != 0) {
+            if (recovered != null) {
+                try {
+                    recovered.close();
+                } catch (IOException ignorable) {
+                }
+            }
+            return;
+        }
 
-            for (int index = 0; index < numberOfObjects; index++) {
-                GeometricalObject object = drawingModel.getObject(index);
-                String objectAsText = String.format("%s%n", object.asText());
-                sb.append(objectAsText);
+        try {
+            if (recovered == null) {
+                recovered = new DrawingJournal(path);
+                recovered.start();
             }
 
-            Files.write(currentPath,
-                    sb.toString().getBytes(StandardCharsets.UTF_8));
+            journal = recovered;
+            drawingModel.addDrawingModelListener(journal);
         } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "Error while writing file "
-                    + currentPath + ": " + ex.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
+            showJournalError("Journal of " + path + " could not be started, "
+                    + "whole document is written on next save", ex);
         }
+    }
 
-        fileSaved = true;
+    /**
+     * Detaches journal of current document, if there is one, and closes it.
+     */
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+
+        drawingModel.removeDrawingModelListener(journal);
+        try {
+            journal.close();
+        } catch (IOException ignorable) {
+        }
+        journal = null;
+    }
+
+    /**
+     * Writes current drawing to autosave file next to current file, if it was
+     * changed since it was last saved or autosaved. Drawing is being written
+     * on background thread, in binary format. If current file is not
+     * specified, drawing is not autosaved. First of consecutive failures is
+     * shown to user, like failures of saving.
+     */
+    private void autosave() {
+        if (currentPath == null || fileSaved
+                || modificationCount == autosavedModificationCount) {
+            return;
+        }
+
+        autosavedModificationCount = modificationCount;
+
+        Path path = getAutosavePath(currentPath);
+        saver.save(drawingModel.snapshot(), path, ex -> {
+            if (ex == null) {
+                autosaveFailed = false;
+            } else if (!autosaveFailed) {
+                autosaveFailed = true;
+                showWriteError(path, ex);
+            }
+        });
+    }
+
+    /**
+     * Deletes autosave file of specified file, if it exists.
+     * 
+     * @param path
+     *            File whose autosave file is being deleted
+     */
+    private void deleteAutosave(Path path) {
+        try {
+            Files.deleteIfExists(getAutosavePath(path));
+        } catch (IOException ignorable) {
+        }
+    }
+
+    /**
+     * Returns path of file in which specified file is being autosaved.
+     * 
+     * @param path
+     *            File which is being autosaved
+     * @return Path of autosave file
+     */
+    private static Path getAutosavePath(Path path) {
+        return path.resolveSibling(path.getFileName() + AUTOSAVE_SUFFIX);
     }
 
     /**
      * If file is not saved, user is requested to save current file. After file
-     * is saved or saving is neglected, this application is being closed.
+     * is saved or saving is neglected, this application is being closed. Its
+     * window is hidden at once, but it is disposed only after all pending
+     * saves are finished.
      */
     public void exitApplication() {
         if (!fileSaved) {
@@ -625,21 +1028,32 @@ public class JVDraw extends JFrame implements DrawingModelListener {
             }
         }
 
-        dispose();
+        // Pending save could still start the journal, so it is closed only
+        // after all pending saves are finished
+        autosaveTimer.stop();
+        setVisible(false);
+        saver.whenFinished(() -> {
+            closeJournal();
+            saver.shutdown();
+            dispose();
+        });
     }
 
     @Override
     public void objectsAdded(DrawingModel source, int index0, int index1) {
+        modificationCount++;
         fileSaved = false;
     }
 
     @Override
     public void objectsRemoved(DrawingModel source, int index0, int index1) {
+        modificationCount++;
         fileSaved = false;
     }
 
     @Override
     public void objectsChanged(DrawingModel source, int index0, int index1) {
+        modificationCount++;
         fileSaved = false;
     }
 
@@ -647,9 +1061,14 @@ public class JVDraw extends JFrame implements DrawingModelListener {
      * Method called once program is run. Arguments are described below.
      * 
      * @param args
-     *            Command line arguments
+     *            Command line arguments, if {@code -columnar} is specified
+     *            drawn objects are being stored in
+     *            {@code ColumnarDrawingModel}, which is suitable for very large
+     *            drawings
      */
     public static void main(String[] args) {
+        boolean columnar = args.length > 0 && args[0].equals("-columnar");
+
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager
@@ -657,7 +1076,8 @@ public class JVDraw extends JFrame implements DrawingModelListener {
             } catch (Exception ignorable) {
             }
 
-            JFrame frame = new JVDraw();
+            JFrame frame = new JVDraw(columnar ? new ColumnarDrawingModel()
+                    : new DrawingModelImpl());
             frame.setVisible(true);
         });
     }
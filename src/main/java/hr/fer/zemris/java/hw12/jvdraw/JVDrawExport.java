@@ -0,0 +1,304 @@
+package hr.fer.zemris.java.hw12.jvdraw;
+
+import hr.fer.zemris.java.hw12.jvdraw.component.ColumnarDrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.io.DrawingFiles;
+import hr.fer.zemris.java.hw12.jvdraw.io.ParseErrorReport;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@code JVDrawExport} is a command line application which exports drawings
+ * as images without opening any window, so it can be used in batch jobs on
+ * machines without display. Drawings are specified by file names or glob
+ * patterns, e.g. {@code drawings/**.jvd}, and are exported in parallel on a
+ * pool of threads. Every image is being written next to its drawing, or to
+ * specified output directory, with extension of the image format. For every
+ * file time needed for reading and rendering is printed.
+ * 
+ * <pre>
+ * JVDrawExport [-format png|jpg|gif|svg] [-threads N] [-out dir] files...
+ * </pre>
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class JVDrawExport {
+
+    /**
+     * Image format which is used if none is specified.
+     */
+    private static final String DEFAULT_FORMAT = "png";
+
+    /**
+     * Characters which mark an argument as glob pattern.
+     */
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    /**
+     * Format of exported images.
+     */
+    private String format = DEFAULT_FORMAT;
+
+    /**
+     * Number of threads on which drawings are being exported.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Directory in which images are being written, or {@code null} if images
+     * are written next to drawings.
+     */
+    private Path outputDirectory;
+
+    /**
+     * Drawings which are being exported.
+     */
+    private List<Path> files = new ArrayList<>();
+
+    /**
+     * Creates new {@code JVDrawExport} configured by specified command line
+     * arguments.
+     * 
+     * @param args
+     *            Command line arguments
+     * @throws IOException
+     *             If listing of files which match some pattern fails
+     * @throws IllegalArgumentException
+     *             If arguments are not valid
+     */
+    private JVDrawExport(String[] args) throws IOException,
+            IllegalArgumentException {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-format":
+                    format = optionValue(args, ++i).toLowerCase();
+                    break;
+                case "-threads":
+                    try {
+                        threads = Integer.parseInt(optionValue(args, ++i));
+                    } catch (NumberFormatException ex) {
+                        threads = 0;
+                    }
+                    if (threads < 1) {
+                        throw new IllegalArgumentException(
+                                "Invalid number of threads: " + args[i]);
+                    }
+                    break;
+                case "-out":
+                    outputDirectory = Paths.get(optionValue(args, ++i));
+                    break;
+                default:
+                    files.addAll(expand(args[i]));
+                    break;
+            }
+        }
+
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No files to export.");
+        }
+    }
+
+    /**
+     * Returns value of option whose name is on position before specified one.
+     * 
+     * @param args
+     *            Command line arguments
+     * @param index
+     *            Position of option value
+     * @return Option value
+     * @throws IllegalArgumentException
+     *             If value is missing
+     */
+    private static String optionValue(String[] args, int index)
+            throws IllegalArgumentException {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value of option "
+                    + args[index - 1] + ".");
+        }
+
+        return args[index];
+    }
+
+    /**
+     * Returns all regular files specified by argument. If argument contains
+     * glob characters, all files whose path matches it are returned, where
+     * {@code **} matches across directories. Otherwise argument is a file
+     * name.
+     * 
+     * @param argument
+     *            File name or glob pattern
+     * @return Specified files, sorted by path
+     * @throws IOException
+     *             If listing of directories fails
+     */
+    private static List<Path> expand(String argument) throws IOException {
+        int globStart = 0;
+        while (globStart < argument.length()
+                && GLOB_CHARACTERS.indexOf(argument.charAt(globStart)) < 0) {
+            globStart++;
+        }
+
+        if (globStart == argument.length()) {
+            List<Path> file = new ArrayList<>();
+            file.add(Paths.get(argument));
+            return file;
+        }
+
+        // Walk from the last directory before first glob character
+        int separator = Math.max(argument.lastIndexOf('/', globStart),
+                argument.lastIndexOf('\\', globStart));
+        Path base = Paths.get(separator < 0 ? "." : argument.substring(0,
+                separator + 1));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher(
+                "glob:" + argument.substring(separator + 1));
+
+        try (Stream<Path> paths = Files.walk(base)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(base.relativize(path)))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Exports all specified drawings in parallel and prints time needed for
+     * every file as it is finished.
+     * 
+     * @return {@code true} if all drawings were exported
+     */
+    private boolean run() {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (Path file : files) {
+            results.add(executor.submit(() -> {
+                export(file);
+                return null;
+            }));
+        }
+        executor.shutdown();
+
+        int exported = 0;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                results.get(i).get();
+                exported++;
+            } catch (ExecutionException ex) {
+                System.err.println(files.get(i) + ": "
+                        + ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                executor.shutdownNow();
+                break;
+            }
+        }
+
+        System.out.printf("Exported %d of %d files in %d ms.%n", exported,
+                files.size(), (System.nanoTime() - start) / 1_000_000);
+        return exported == files.size();
+    }
+
+    /**
+     * Reads specified drawing, exports it as image and prints time needed.
+     * Invalid lines of text drawings are being skipped.
+     * 
+     * @param file
+     *            Drawing to be exported
+     * @throws IOException
+     *             If reading or writing fails
+     * @throws IllegalArgumentException
+     *             If drawing is empty
+     */
+    private void export(Path file) throws IOException,
+            IllegalArgumentException {
+        long start = System.nanoTime();
+
+        DrawingModel drawingModel = new ColumnarDrawingModel();
+        ParseErrorReport report = new ParseErrorReport();
+        DrawingFiles.read(file, drawingModel, report);
+        long read = System.nanoTime();
+
+        Path image = getImagePath(file);
+        DrawingFiles.exportImage(drawingModel, image, format);
+        long rendered = System.nanoTime();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(file).append(" -> ").append(image).append(": ")
+                .append(drawingModel.getSize()).append(" objects, read ")
+                .append((read - start) / 1_000_000).append(" ms, render ")
+                .append((rendered - read) / 1_000_000).append(" ms");
+        if (!report.isEmpty()) {
+            sb.append(", ").append(report.getErrorCount())
+                    .append(" invalid lines skipped");
+        }
+
+        System.out.println(sb);
+    }
+
+    /**
+     * Returns path of image to which specified drawing is exported.
+     * 
+     * @param file
+     *            Drawing which is being exported
+     * @return Path of image
+     */
+    private Path getImagePath(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        name += "." + format;
+
+        if (outputDirectory != null) {
+            return outputDirectory.resolve(name);
+        }
+        return file.resolveSibling(name);
+    }
+
+    /**
+     * Method called once program is run. Arguments are described below.
+     * 
+     * @param args
+     *            Command line arguments: options {@code -format} with image
+     *            format, {@code -threads} with number of threads and
+     *            {@code -out} with output directory, followed by drawings
+     *            given as file names or glob patterns
+     */
+    public static void main(String[] args) {
+        // No window is ever opened
+        System.setProperty("java.awt.headless", "true");
+
+        JVDrawExport export;
+        try {
+            export = new JVDrawExport(args);
+            if (export.outputDirectory != null) {
+                Files.createDirectories(export.outputDirectory);
+            }
+        } catch (IllegalArgumentException | IOException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Usage: JVDrawExport "
+                    + "[-format png|jpg|gif|svg] [-threads N] "
+                    + "[-out directory] files...");
+            System.exit(2);
+            return;
+        }
+
+        System.exit(export.run() ? 0 : 1);
+    }
+
+}
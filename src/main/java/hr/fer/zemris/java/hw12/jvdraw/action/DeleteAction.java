@@ -0,0 +1,90 @@
+package hr.fer.zemris.java.hw12.jvdraw.action;
+
+import hr.fer.zemris.java.hw12.jvdraw.JVDraw;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+
+import javax.swing.Action;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+
+/**
+ * {@code DeleteAction} defines an action for {@code JVDraw} frame which is
+ * used to delete selected {@code GeometricalObject}s from the drawing. Every
+ * contiguous range of selected objects is removed at once, from the last one
+ * to the first one, so observers are notified once per range. Action is
+ * enabled only while some object is selected.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DeleteAction extends JVDrawAction {
+
+    /**
+     * Default serial version ID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Selection of objects which are being deleted.
+     */
+    private ListSelectionModel selectionModel;
+
+    /**
+     * Creates new {@code DeleteAction} with specified {@code JVDraw} frame,
+     * its {@code DrawingModel} and selection of its objects. By this call,
+     * actions name, description and accelerator key are being set.
+     * 
+     * @param frame
+     *            {@code JVDraw} frame to be specified
+     * @param drawingModel
+     *            {@code DrawingModel} of specified frame
+     * @param selectionModel
+     *            Selection of objects which are being deleted
+     */
+    public DeleteAction(JVDraw frame, DrawingModel drawingModel,
+            ListSelectionModel selectionModel) {
+        super(frame, drawingModel);
+        this.selectionModel = selectionModel;
+
+        putValue(Action.NAME, "Delete");
+        putValue(Action.SHORT_DESCRIPTION, "Delete selected objects");
+        putValue(Action.ACCELERATOR_KEY,
+                KeyStroke.getKeyStroke(KeyEvent.VK_DELETE, 0));
+
+        setEnabled(!selectionModel.isSelectionEmpty());
+        selectionModel.addListSelectionListener(e -> setEnabled(!selectionModel
+                .isSelectionEmpty()));
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (selectionModel.isSelectionEmpty()) {
+            return;
+        }
+
+        int min = selectionModel.getMinSelectionIndex();
+        int index1 = Math.min(selectionModel.getMaxSelectionIndex(),
+                drawingModel.getSize() - 1);
+
+        // Ranges are removed from the last one, so earlier positions stay valid
+        while (index1 >= min) {
+            if (!selectionModel.isSelectedIndex(index1)) {
+                index1--;
+                continue;
+            }
+
+            int index0 = index1;
+            while (index0 > min && selectionModel.isSelectedIndex(index0 - 1)) {
+                index0--;
+            }
+
+            drawingModel.removeRange(index0, index1);
+            index1 = index0 - 1;
+        }
+    }
+
+}
@@ -1,24 +1,15 @@
 package hr.fer.zemris.java.hw12.jvdraw.action;
 
-import java.awt.Graphics2D;
-import java.awt.Point;
-import java.awt.RenderingHints;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
-import java.awt.image.BufferedImage;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import hr.fer.zemris.java.hw12.jvdraw.JVDraw;
 import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
-import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
-import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
-import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
-import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+import hr.fer.zemris.java.hw12.jvdraw.io.DrawingFiles;
 
-import javax.imageio.ImageIO;
 import javax.swing.Action;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
@@ -27,9 +18,15 @@ import javax.swing.KeyStroke;
 /**
  * {@code ExportAction} defines an action for {@code JVDraw} frame which is used
  * to export current document opened in {@code JVDraw} application as image,
- * PNG, JPEG or GIF. When this action is requested user is requested to chose
- * which type of image he wants to specify and after that, current document is
- * being exported as image file with selected extension.
+ * PNG, JPEG, GIF or SVG. When this action is requested user is requested to
+ * chose which type of image he wants to specify and after that, current
+ * document is being exported as image file with selected extension. Raster
+ * images are rendered in tiles, in parallel, by {@code TiledDrawingImage} and
+ * are streamed to the encoder, so whole image is never held in memory, while
+ * SVG images are written object by object, see
+ * {@linkplain DrawingFiles#exportImage(DrawingModel, Path, String)}. Export
+ * runs on background thread, on a snapshot of the drawing, see
+ * {@linkplain JVDraw#exportDrawing(Path, String)}.
  * 
  * @author Domagoj Penic
  * @version 4.6.2015.
@@ -63,9 +60,15 @@ public class ExportAction extends JVDrawAction {
 
     @Override
     public void actionPerformed(ActionEvent e) {
+        if (drawingModel.getSize() == 0) {
+            JOptionPane.showMessageDialog(frame, "Nothing to export, drawing "
+                    + "is empty.", "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
         JFileChooser fc = new JFileChooser();
 
-        Object[] availableExtensions = { "JPG", "PNG", "GIF" };
+        Object[] availableExtensions = { "JPG", "PNG", "GIF", "SVG" };
         String extension = (String) JOptionPane.showInputDialog(frame, null,
                 "Select extension", JOptionPane.PLAIN_MESSAGE, null,
                 availableExtensions, "JPG");
@@ -76,8 +79,8 @@ public class ExportAction extends JVDrawAction {
         }
 
         String file = fc.getSelectedFile().toPath().toString();
-        if (!(file.endsWith(".jpg") || file.endsWith(".png") || file
-                .endsWith(".gif"))) {
+        if (!(file.endsWith(".jpg") || file.endsWith(".png")
+                || file.endsWith(".gif") || file.endsWith(".svg"))) {
             file += "." + extension.toLowerCase();
         }
 
@@ -91,108 +94,7 @@ public class ExportAction extends JVDrawAction {
             }
         }
 
-        int xmax = 0;
-        int xmin = Integer.MAX_VALUE;
-        int ymax = 0;
-        int ymin = Integer.MAX_VALUE;
-
-        for (int index = 0; index < drawingModel.getSize(); index++) {
-            GeometricalObject object = drawingModel.getObject(index);
-
-            Point point1;
-            Point point2;
-
-            if (object instanceof Line) {
-                Line line = (Line) object;
-
-                point1 = new Point(line.getStartX(), line.getStartY());
-                point2 = new Point(line.getEndX(), line.getEndY());
-            } else {
-                int radius;
-                Point center;
-
-                if (object instanceof Circle) {
-                    Circle circle = (Circle) object;
-                    radius = (int) circle.getRadius();
-                    center = new Point(circle.getCenterX(), circle.getCenterY());
-                } else {
-                    FilledCircle circle = (FilledCircle) object;
-                    radius = (int) circle.getRadius();
-                    center = new Point(circle.getCenterX(), circle.getCenterY());
-                }
-
-                point1 = new Point(center.x - radius, center.y - radius);
-                point2 = new Point(center.x + radius, center.y + radius);
-            }
-
-            xmax = Math.max(xmax, point1.x);
-            xmax = Math.max(xmax, point2.x);
-            ymax = Math.max(ymax, point1.y);
-            ymax = Math.max(ymax, point2.y);
-            xmin = Math.min(xmin, point1.x);
-            xmin = Math.min(xmin, point2.x);
-            ymin = Math.min(ymin, point1.y);
-            ymin = Math.min(ymin, point2.y);
-        }
-
-        int boxWidth = xmax - xmin;
-        int boxHeight = ymax - ymin;
-
-        BufferedImage image = new BufferedImage(boxWidth, boxHeight,
-                BufferedImage.TYPE_3BYTE_BGR);
-
-        Graphics2D g2d = image.createGraphics();
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.fillRect(0, 0, boxWidth, boxHeight);
-
-        for (int index = 0; index < drawingModel.getSize(); index++) {
-            GeometricalObject object = drawingModel.getObject(index);
-            GeometricalObject objectToDraw;
-
-            if (object instanceof Line) {
-                Line line = (Line) object;
-
-                int startX = line.getStartX() - xmin;
-                int startY = line.getStartY() - ymin;
-                int endX = line.getEndX() - xmin;
-                int endY = line.getEndY() - ymin;
-
-                objectToDraw = new Line(startX, startY, endX, endY,
-                        line.getColor());
-            } else if (object instanceof Circle) {
-                Circle circle = (Circle) object;
-
-                int centerX = circle.getCenterX() - xmin;
-                int centerY = circle.getCenterY() - ymin;
-
-                objectToDraw = new Circle(centerX, centerY, circle.getRadius(),
-                        circle.getColor());
-            } else {
-                FilledCircle filledCircle = (FilledCircle) object;
-
-                int centerX = filledCircle.getCenterX() - xmin;
-                int centerY = filledCircle.getCenterY() - ymin;
-
-                objectToDraw = new FilledCircle(centerX, centerY,
-                        filledCircle.getRadius(),
-                        filledCircle.getOutlineColor(),
-                        filledCircle.getAreaColor());
-            }
-
-            objectToDraw.paintComponent(g2d);
-        }
-
-        try {
-            ImageIO.write(image, extension.toLowerCase(), path.toFile());
-        } catch (IOException e1) {
-            JOptionPane.showMessageDialog(frame, "Error while writing file "
-                    + path + ": " + e1.getMessage(), "Error",
-                    JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        JOptionPane.showMessageDialog(frame, "File successfully exported");
+        frame.exportDrawing(path, extension.toLowerCase());
     }
 
 }
@@ -2,22 +2,32 @@ package hr.fer.zemris.java.hw12.jvdraw.action;
 
 import hr.fer.zemris.java.hw12.jvdraw.JVDraw;
 import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
-import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
-import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.io.DrawingBinaryFormat;
+import hr.fer.zemris.java.hw12.jvdraw.io.DrawingBinaryReader;
+import hr.fer.zemris.java.hw12.jvdraw.io.DrawingTextReader;
+import hr.fer.zemris.java.hw12.jvdraw.io.ParallelDrawingTextReader;
+import hr.fer.zemris.java.hw12.jvdraw.io.ParseErrorReport;
 import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
-import hr.fer.zemris.java.hw12.jvdraw.object.Line;
 
+import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.Action;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 import javax.swing.KeyStroke;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
 
 /**
  * {@code OpenAction} defines an action for {@code JVDraw} frame which is used
@@ -25,6 +35,16 @@ import javax.swing.KeyStroke;
  * application. When this action is requested file with selected file path is
  * opened and interpreted as valid line representations of
  * {@code GeometricalObject}s, otherwise appropriate message will be printed.
+ * Files with {@code .jvdb} extension are being read in binary format by
+ * {@code DrawingBinaryReader}. File is being read on background thread, while
+ * progress of reading is shown and reading can be cancelled. Smaller files are
+ * being read by {@code DrawingTextReader}, so objects are added to the
+ * {@code DrawingModel} in batches as they are being parsed, without reading
+ * whole file into memory. Large files are being parsed in parallel by
+ * {@code ParallelDrawingTextReader}. Invalid lines are being collected in a
+ * {@code ParseErrorReport} which is shown to user once, after reading is
+ * finished. In lenient mode invalid lines are being skipped, in strict mode
+ * nothing is loaded if file contains any invalid line.
  * 
  * @author Domagoj Penic
  * @version 4.6.2015.
@@ -37,6 +57,16 @@ public class OpenAction extends JVDrawAction {
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Size of file in bytes from which file is being parsed in parallel.
+     */
+    private static final long PARALLEL_LOAD_THRESHOLD = 16 << 20;
+
+    /**
+     * Indicates if loading should be stopped on first invalid line.
+     */
+    private boolean strict;
+
     /**
      * Creates new {@code OpenAction} with specified {@code JVDraw} frame and
      * its {@code DrawingModel}. By this call, actions name, description and
@@ -56,6 +86,27 @@ public class OpenAction extends JVDrawAction {
         putValue(Action.MNEMONIC_KEY, KeyEvent.VK_O);
     }
 
+    /**
+     * Checks if loading is stopped on first invalid line.
+     * 
+     * @return {@code true} if strict mode is used
+     */
+    public boolean isStrict() {
+        return strict;
+    }
+
+    /**
+     * Sets mode in which files are being loaded. In strict mode, nothing is
+     * loaded if file contains any invalid line. In lenient mode, which is
+     * default one, invalid lines are being skipped.
+     * 
+     * @param strict
+     *            {@code true} if strict mode should be used
+     */
+    public void setStrict(boolean strict) {
+        this.strict = strict;
+    }
+
     @Override
     public void actionPerformed(ActionEvent e) {
         JFileChooser fc = new JFileChooser();
@@ -72,102 +123,279 @@ public class OpenAction extends JVDrawAction {
             return;
         }
 
-        try {
-            List<String> lines = Files.readAllLines(file);
-
-            for (String line : lines) {
-                String name = extractObjectName(line);
-                String parameters = extractObjectParameters(line);
-                try {
-                    GeometricalObject object = createObject(name, parameters);
-                    drawingModel.add(object);
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(frame, "Illegal line input: "
-                            + ex.getMessage(), "Warning",
-                            JOptionPane.WARNING_MESSAGE);
-                    continue;
-                }
+        setEnabled(false);
+
+        LoadWorker worker = new LoadWorker(file, new ParseErrorReport(strict,
+                ParseErrorReport.DEFAULT_LIMIT), drawingModel.getSize());
+        ProgressMonitor monitor = new ProgressMonitor(frame, "Opening " + file,
+                null, 0, 100);
+
+        // Show progress, cancel loading if user requested it and close
+        // progress monitor when loading is finished
+        worker.addPropertyChangeListener(evt -> {
+            if (worker.isDone()) {
+                monitor.close();
+            } else if (monitor.isCanceled()) {
+                worker.cancel(true);
+            } else if ("progress".equals(evt.getPropertyName())) {
+                monitor.setProgress((Integer) evt.getNewValue());
             }
+        });
 
-            frame.setCurrentPath(file);
-        } catch (IOException e1) {
-            System.out.println("IO error.");
-        }
+        worker.execute();
     }
 
     /**
-     * Extracts {@code GeometricalObject} name from specified line and its
-     * {@code String} representation is being returned as result.
+     * Shows summary of all invalid lines of opened file in a single dialog.
      * 
-     * @param line
-     *            Line from which {@code GeometricalObject} name is being
-     *            extracted
-     * @return {@code GeometricalObject} name
+     * @param report
+     *            Report which holds invalid lines
      */
-    private String extractObjectName(String line) {
-        String[] elements = line.split("\\s+", 2);
-        return elements[0].trim();
+    private void showReport(ParseErrorReport report) {
+        JTextArea text = new JTextArea(report.getSummary());
+        text.setEditable(false);
+
+        JScrollPane scrollPane = new JScrollPane(text);
+        scrollPane.setPreferredSize(new Dimension(500, 250));
+
+        if (report.isStrict()) {
+            JOptionPane.showMessageDialog(frame, scrollPane, "Error",
+                    JOptionPane.ERROR_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(frame, scrollPane, "Warning",
+                    JOptionPane.WARNING_MESSAGE);
+        }
     }
 
     /**
-     * Extracts {@code GeometricalObject} parameters from specified line and its
-     * {@code String} representation is being returned as result. Parameters are
-     * interpreted as everything after objects name to the end of current line.
+     * {@code LoadWorker} reads file on background thread, so user interface
+     * does not freeze while large files are being opened. Read
+     * {@code GeometricalObject}s are being published in batches and added to
+     * the {@code DrawingModel} on Event Dispatch Thread, so drawing is shown
+     * progressively. Batches which are processed together are added within
+     * one batch of changes, so observers are notified once for all of them,
+     * and changes made by user while loading are not merged with them.
+     * Progress is being measured by number of parsed bytes. Loading can be
+     * cancelled, in which case objects which are already added stay in the
+     * model.
      * 
-     * @param line
-     *            Line from which {@code GeometricalObject} parameters are being
-     *            extracted
-     * @return {@code GeometricalObject} name
+     * @author Domagoj Penic
+     * @version 4.6.2015.
+     *
      */
-    private String extractObjectParameters(String line) {
-        String[] elements = line.split("\\s+", 2);
+    private class LoadWorker extends
+            SwingWorker<Void, List<GeometricalObject>> {
+
+        /**
+         * Number of objects published at once while file is being read
+         * sequentially.
+         */
+        private static final int BATCH_SIZE = 4096;
 
-        if (elements.length == 1) {
-            return "";
+        /**
+         * File which is being read.
+         */
+        private Path file;
+
+        /**
+         * Size of file which is being read.
+         */
+        private long fileSize;
+
+        /**
+         * Report which collects invalid lines.
+         */
+        private ParseErrorReport report;
+
+        /**
+         * Number of objects in the {@code DrawingModel} before loading.
+         */
+        private int offset;
+
+        /**
+         * Creates new {@code LoadWorker} which reads specified file and
+         * collects its invalid lines in specified report.
+         * 
+         * @param file
+         *            File to be read
+         * @param report
+         *            Report which collects invalid lines
+         * @param offset
+         *            Number of objects in the {@code DrawingModel} before
+         *            loading
+         */
+        public LoadWorker(Path file, ParseErrorReport report, int offset) {
+            this.file = file;
+            this.report = report;
+            this.offset = offset;
         }
 
-        return elements[1].trim();
-    }
+        @Override
+        protected Void doInBackground() throws IOException {
+            fileSize = Files.size(file);
 
-    /**
-     * Creates {@code GeometricalObject} based on its name and specified
-     * parameters. Created object is being returned as a result of this call. If
-     * some error occurs, if object with specified name does not exits or if
-     * parameters are not legal, appropriate exception will be thrown.
-     * 
-     * @param name
-     *            {@code GeometricalObject} with specified name to be created
-     * @param parameters
-     *            {@code GeometricalObject} parameters to be parsed
-     * @return Created {@code GeometricalObject} with specified parameters
-     * @throws IllegalArgumentException
-     *             If {@code GeometricalObject} with specified name does not
-     *             exist
-     * @throws NumberFormatException
-     *             If parameters can not be interpreted as valid ones
-     */
-    private GeometricalObject createObject(String name, String parameters)
-            throws IllegalArgumentException, NumberFormatException {
-        name = name.toLowerCase();
-
-        GeometricalObject object;
-
-        switch (name) {
-            case "line":
-                object = Line.parseLine(parameters);
-                break;
-            case "circle":
-                object = Circle.parseCircle(parameters);
-                break;
-            case "fcircle":
-                object = FilledCircle.parseFilledCircle(parameters);
-                break;
-            default:
-                throw new IllegalArgumentException("\"" + name
-                        + "\" object does not exist");
+            if (DrawingBinaryFormat.isBinary(file)) {
+                loadBinary();
+            } else if (fileSize >= PARALLEL_LOAD_THRESHOLD) {
+                loadParallel();
+            } else {
+                loadSequential();
+            }
+
+            return null;
+        }
+
+        /**
+         * Reads file line by line and publishes read {@code GeometricalObject}s
+         * in batches. In strict mode objects are being published only if
+         * there is no invalid line.
+         * 
+         * @throws IOException
+         *             If reading of file fails
+         */
+        private void loadSequential() throws IOException {
+            List<GeometricalObject> batch = new ArrayList<>(BATCH_SIZE);
+
+            try (DrawingTextReader reader = new DrawingTextReader(
+                    FileChannel.open(file))) {
+                while (!isCancelled()) {
+                    GeometricalObject object;
+
+                    try {
+                        object = reader.readObject();
+                    } catch (IllegalArgumentException ex) {
+                        if (!report.add(reader.getLineNumber(),
+                                ex.getMessage())) {
+                            return;
+                        }
+                        continue;
+                    }
+
+                    if (object == null) {
+                        break;
+                    }
+
+                    batch.add(object);
+                    if (batch.size() >= BATCH_SIZE && !report.isStrict()) {
+                        publish(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+
+                    if (batch.size() % BATCH_SIZE == 0) {
+                        updateProgress(reader.getPosition());
+                    }
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                publish(batch);
+            }
+        }
+
+        /**
+         * Reads file in binary format by mapping it in memory and publishes
+         * read {@code GeometricalObject}s in batches.
+         * 
+         * @throws IOException
+         *             If reading of file fails or if file is not valid binary
+         *             drawing
+         */
+        private void loadBinary() throws IOException {
+            List<GeometricalObject> batch = new ArrayList<>(BATCH_SIZE);
+
+            try (DrawingBinaryReader reader = DrawingBinaryReader
+                    .map(FileChannel.open(file))) {
+                while (!isCancelled()) {
+                    GeometricalObject object = reader.readObject();
+                    if (object == null) {
+                        break;
+                    }
+
+                    batch.add(object);
+                    if (batch.size() == BATCH_SIZE) {
+                        publish(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                        updateProgress(reader.getPosition());
+                    }
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                publish(batch);
+            }
+        }
+
+        /**
+         * Reads file by parsing its chunks in parallel and publishes all read
+         * {@code GeometricalObject}s at once, so observers are notified only
+         * once. In strict mode objects are being published only if there is
+         * no invalid line.
+         * 
+         * @throws IOException
+         *             If reading of file fails
+         */
+        private void loadParallel() throws IOException {
+            List<GeometricalObject> objects = new ParallelDrawingTextReader()
+                    .read(file, report, this::updateProgress);
+
+            if (report.isEmpty() || !report.isStrict()) {
+                publish(objects);
+            }
+        }
+
+        /**
+         * Updates progress of this worker based on number of parsed bytes.
+         * 
+         * @param position
+         *            Number of parsed bytes
+         */
+        private void updateProgress(long position) {
+            if (fileSize > 0) {
+                setProgress((int) Math.min(100, 100 * position / fileSize));
+            }
+        }
+
+        @Override
+        protected void process(List<List<GeometricalObject>> batches) {
+            if (isCancelled()) {
+                return;
+            }
+
+            drawingModel.beginBatch();
+            try {
+                for (List<GeometricalObject> batch : batches) {
+                    drawingModel.addAll(batch);
+                }
+            } finally {
+                drawingModel.endBatch();
+            }
+        }
+
+        @Override
+        protected void done() {
+            setEnabled(true);
+
+            if (isCancelled()) {
+                return;
+            }
+
+            try {
+                get();
+            } catch (InterruptedException | ExecutionException ex) {
+                System.out.println("IO error.");
+                return;
+            }
+
+            if (!report.isEmpty()) {
+                showReport(report);
+                if (report.isStrict()) {
+                    return;
+                }
+            }
+
+            frame.documentLoaded(file, offset);
         }
 
-        return object;
     }
 
 }
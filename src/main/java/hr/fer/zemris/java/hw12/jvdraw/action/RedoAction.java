@@ -0,0 +1,72 @@
+package hr.fer.zemris.java.hw12.jvdraw.action;
+
+import hr.fer.zemris.java.hw12.jvdraw.JVDraw;
+import hr.fer.zemris.java.hw12.jvdraw.component.UndoableDrawingModel;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+
+import javax.swing.Action;
+import javax.swing.KeyStroke;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * {@code RedoAction} defines an action for {@code JVDraw} frame which is
+ * used to redo the most recently undone change of the drawing. Action
+ * observes history of changes and is enabled only while there is a change
+ * which can be redone.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class RedoAction extends JVDrawAction implements ChangeListener {
+
+    /**
+     * Default serial version ID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * {@code DrawingModel} which records changes of the drawing.
+     */
+    private UndoableDrawingModel undoableModel;
+
+    /**
+     * Creates new {@code RedoAction} with specified {@code JVDraw} frame and
+     * its {@code DrawingModel} which records changes. By this call, actions
+     * name, description and accelerator key are being set.
+     * 
+     * @param frame
+     *            {@code JVDraw} frame to be specified
+     * @param undoableModel
+     *            {@code DrawingModel} of specified frame
+     */
+    public RedoAction(JVDraw frame, UndoableDrawingModel undoableModel) {
+        super(frame, undoableModel);
+        this.undoableModel = undoableModel;
+
+        putValue(Action.NAME, "Redo");
+        putValue(Action.SHORT_DESCRIPTION, "Redo last undone change");
+        putValue(Action.ACCELERATOR_KEY, KeyStroke.getKeyStroke(
+                KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK));
+
+        setEnabled(undoableModel.canRedo());
+        undoableModel.addChangeListener(this);
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (undoableModel.canRedo()) {
+            undoableModel.redo();
+        }
+    }
+
+    @Override
+    public void stateChanged(ChangeEvent e) {
+        setEnabled(undoableModel.canRedo());
+    }
+
+}
@@ -6,17 +6,20 @@ import java.nio.file.Path;
 
 import hr.fer.zemris.java.hw12.jvdraw.JVDraw;
 import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.io.DrawingBinaryFormat;
 
 import javax.swing.Action;
 import javax.swing.JFileChooser;
 import javax.swing.KeyStroke;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 /**
  * {@code SaveAsAction} defines an action for {@code JVDraw} frame which is used
  * to save current document opened in {@code JVDraw} application. When this
  * action is requested and if current file is not saved, user will be asked by
  * appropriate dialog if he wants to save it, otherwise this method does
- * nothing.
+ * nothing. Document is being saved in binary format if binary drawing filter
+ * is chosen or if selected file has {@code .jvdb} extension.
  * 
  * @author Domagoj Penic
  * @version 4.6.2015.
@@ -53,11 +56,27 @@ public class SaveAsAction extends JVDrawAction {
         JFileChooser fc = new JFileChooser();
         fc.setDialogTitle("Save As document");
 
+        FileNameExtensionFilter textFilter = new FileNameExtensionFilter(
+                "Text drawing (*.jvd)", "jvd");
+        FileNameExtensionFilter binaryFilter = new FileNameExtensionFilter(
+                "Binary drawing (*." + DrawingBinaryFormat.EXTENSION + ")",
+                DrawingBinaryFormat.EXTENSION);
+        fc.addChoosableFileFilter(textFilter);
+        fc.addChoosableFileFilter(binaryFilter);
+
         if (fc.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) {
             return;
         }
 
         Path path = fc.getSelectedFile().toPath();
+
+        // Format is defined by extension, add it if binary format is chosen
+        if (fc.getFileFilter() == binaryFilter
+                && !DrawingBinaryFormat.isBinary(path)) {
+            path = path.resolveSibling(path.getFileName() + "."
+                    + DrawingBinaryFormat.EXTENSION);
+        }
+
         frame.setCurrentPath(path);
         frame.writeCurrentFile();
 
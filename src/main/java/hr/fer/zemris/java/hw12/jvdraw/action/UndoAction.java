@@ -0,0 +1,71 @@
+package hr.fer.zemris.java.hw12.jvdraw.action;
+
+import hr.fer.zemris.java.hw12.jvdraw.JVDraw;
+import hr.fer.zemris.java.hw12.jvdraw.component.UndoableDrawingModel;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+
+import javax.swing.Action;
+import javax.swing.KeyStroke;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * {@code UndoAction} defines an action for {@code JVDraw} frame which is
+ * used to undo the most recent change of the drawing. Action observes history
+ * of changes and is enabled only while there is a change which can be undone.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class UndoAction extends JVDrawAction implements ChangeListener {
+
+    /**
+     * Default serial version ID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * {@code DrawingModel} which records changes of the drawing.
+     */
+    private UndoableDrawingModel undoableModel;
+
+    /**
+     * Creates new {@code UndoAction} with specified {@code JVDraw} frame and
+     * its {@code DrawingModel} which records changes. By this call, actions
+     * name, description and accelerator key are being set.
+     * 
+     * @param frame
+     *            {@code JVDraw} frame to be specified
+     * @param undoableModel
+     *            {@code DrawingModel} of specified frame
+     */
+    public UndoAction(JVDraw frame, UndoableDrawingModel undoableModel) {
+        super(frame, undoableModel);
+        this.undoableModel = undoableModel;
+
+        putValue(Action.NAME, "Undo");
+        putValue(Action.SHORT_DESCRIPTION, "Undo last change");
+        putValue(Action.ACCELERATOR_KEY, KeyStroke.getKeyStroke(
+                KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK));
+
+        setEnabled(undoableModel.canUndo());
+        undoableModel.addChangeListener(this);
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (undoableModel.canUndo()) {
+            undoableModel.undo();
+        }
+    }
+
+    @Override
+    public void stateChanged(ChangeEvent e) {
+        setEnabled(undoableModel.canUndo());
+    }
+
+}
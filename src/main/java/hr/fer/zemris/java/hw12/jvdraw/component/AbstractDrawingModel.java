@@ -0,0 +1,484 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * {@code AbstractDrawingModel} is a base class for implementations of
+ * {@code DrawingModel} which is responsible for storing attached
+ * {@code DrawingModelListener}s and notifying them about changes, for
+ * assigning serial numbers to added {@code GeometricalObject}s, for
+ * coalescing notifications during batches of changes and for maintaining
+ * spatial index of stored objects. Implementations only have to
+ * define how objects are being stored.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public abstract class AbstractDrawingModel implements DrawingModel {
+
+    /**
+     * Maximal number of ranges of removed objects about which observers are
+     * notified separately by {@linkplain #removeIf(Predicate)}.
+     */
+    private static final int MAX_REMOVED_RANGES = 16;
+
+    /**
+     * Collection of all attached listeners, i.e. observers in this Observer
+     * design pattern.
+     */
+    private List<DrawingModelListener> drawingModelListeners = new ArrayList<>();
+
+    /**
+     * Spatial index of stored {@code GeometricalObject}s, used for fast
+     * retrieval of objects which intersect some area. Snapshots build it
+     * when it is needed for the first time.
+     */
+    private volatile SpatialGrid spatialGrid = new SpatialGrid();
+
+    /**
+     * Index of a line which is being created when new one is drawn. This index
+     * is used for defining line's name.
+     */
+    private int lineIndex = 1;
+
+    /**
+     * Index of a circle which is being created when new one is drawn. This
+     * index is used for defining cricle's name.
+     */
+    private int circleIndex = 1;
+
+    /**
+     * Number of batches which are currently in progress.
+     */
+    private int batchDepth;
+
+    /**
+     * Position of first object added during current batch about which
+     * observers are not yet notified, or -1 if there is no such object.
+     */
+    private int pendingIndex0 = -1;
+
+    /**
+     * Position of last object added during current batch about which
+     * observers are not yet notified.
+     */
+    private int pendingIndex1;
+
+    @Override
+    public int[] getObjectsIn(Rectangle area) {
+        return getSpatialGrid().query(area.x, area.y, area.x + area.width - 1,
+                area.y + area.height - 1);
+    }
+
+    @Override
+    public int getObjectAt(int x, int y, int tolerance) {
+        Rectangle area = new Rectangle(x, y, 1, 1);
+        int[] candidates = getObjectsIn(extend(area, tolerance));
+
+        for (int i = candidates.length - 1; i >= 0; i--) {
+            if (intersects(candidates[i], area, tolerance)) {
+                return candidates[i];
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int[] getObjectsAt(Rectangle area, int tolerance) {
+        int[] candidates = getObjectsIn(extend(area, tolerance));
+
+        // Hit objects are moved to the beginning, keeping their order
+        int count = 0;
+        for (int index : candidates) {
+            if (intersects(index, area, tolerance)) {
+                candidates[count++] = index;
+            }
+        }
+
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Checks if {@code GeometricalObject} on specified position is hit by
+     * specified area, as defined by
+     * {@linkplain GeometricalObject#intersects(Rectangle, int)}.
+     * 
+     * @param index
+     *            Position of object
+     * @param area
+     *            Tested area
+     * @param tolerance
+     *            Number of pixels by which area is being extended
+     * @return {@code true} if object is hit by specified area
+     */
+    protected abstract boolean intersects(int index, Rectangle area,
+            int tolerance);
+
+    /**
+     * Returns area extended by specified number of pixels on each side.
+     * 
+     * @param area
+     *            Area to be extended
+     * @param tolerance
+     *            Number of pixels by which area is being extended
+     * @return Extended area
+     */
+    private static Rectangle extend(Rectangle area, int tolerance) {
+        return new Rectangle(area.x - tolerance, area.y - tolerance,
+                area.width + 2 * tolerance, area.height + 2 * tolerance);
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return getSpatialGrid().getBounds();
+    }
+
+    @Override
+    public void insert(int index, List<? extends GeometricalObject> objects)
+            throws IndexOutOfBoundsException {
+        if (index < 0 || index > getSize()) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        // Pending notifications refer to positions before insertion
+        firePendingAdded();
+
+        getSpatialGrid().insert(index, objects.size());
+        insertObjects(index, objects);
+
+        fireObjectsAdded(index, index + objects.size() - 1);
+    }
+
+    /**
+     * Stores specified {@code GeometricalObject}s in internal storage,
+     * starting from specified position, and moves following objects towards
+     * the end. Objects keep their serial numbers, unless they do not have
+     * one. Bounding boxes of inserted objects have to be stored by
+     * {@linkplain #indexBounds(int, Rectangle)}, spatial index already has
+     * space for them.
+     * 
+     * @param index
+     *            Position of first inserted object
+     * @param objects
+     *            {@code GeometricalObject}s to be inserted
+     */
+    protected abstract void insertObjects(int index,
+            List<? extends GeometricalObject> objects);
+
+    @Override
+    public void remove(int index) throws IndexOutOfBoundsException {
+        removeRange(index, index);
+    }
+
+    @Override
+    public void removeRange(int index0, int index1)
+            throws IndexOutOfBoundsException {
+        if (index0 < 0 || index1 >= getSize() || index0 > index1) {
+            throw new IndexOutOfBoundsException("Invalid range: " + index0
+                    + " - " + index1);
+        }
+
+        BitSet removed = new BitSet(index1 + 1);
+        removed.set(index0, index1 + 1);
+
+        // Pending notifications refer to positions before removal
+        SpatialGrid grid = getSpatialGrid();
+        firePendingAdded();
+        compact(removed);
+        grid.remove(removed);
+
+        fireObjectsRemoved(index0, index1);
+    }
+
+    @Override
+    public int removeIf(Predicate<? super GeometricalObject> filter) {
+        int size = getSize();
+        BitSet removed = new BitSet(size);
+        for (int index = 0; index < size; index++) {
+            if (filter.test(getObject(index))) {
+                removed.set(index);
+            }
+        }
+
+        int count = removed.cardinality();
+        if (count == 0) {
+            return 0;
+        }
+
+        SpatialGrid grid = getSpatialGrid();
+        firePendingAdded();
+        compact(removed);
+        grid.remove(removed);
+
+        fireRemovedRanges(removed, size);
+        return count;
+    }
+
+    /**
+     * Removes objects on all positions which are set in specified
+     * {@code BitSet} from internal storage. Remaining objects have to keep
+     * their order and have to be moved towards the beginning in a single
+     * pass. Spatial index is updated by the caller.
+     * 
+     * @param removed
+     *            Positions of objects to be removed
+     */
+    protected abstract void compact(BitSet removed);
+
+    @Override
+    public void addDrawingModelListener(DrawingModelListener listener) {
+        drawingModelListeners.add(listener);
+    }
+
+    @Override
+    public void removeDrawingModelListener(DrawingModelListener listener) {
+        drawingModelListeners.remove(listener);
+    }
+
+    /**
+     * Prepares specified model, which shares stored objects with this one, to
+     * be a snapshot of this model. Serial numbers of objects which are added
+     * to the snapshot continue from current ones, and spatial index of the
+     * snapshot is not built until it is needed, so taking a snapshot does not
+     * depend on number of stored objects.
+     * 
+     * @param snapshot
+     *            New snapshot of this model
+     */
+    protected void initSnapshot(AbstractDrawingModel snapshot) {
+        snapshot.lineIndex = lineIndex;
+        snapshot.circleIndex = circleIndex;
+        snapshot.spatialGrid = null;
+    }
+
+    /**
+     * Returns spatial index of stored objects. If it is not built yet, it is
+     * built now from bounding boxes of all objects. Snapshots can be read on
+     * several threads at once, so building is synchronized.
+     * 
+     * @return Spatial index of stored objects
+     */
+    private SpatialGrid getSpatialGrid() {
+        SpatialGrid grid = spatialGrid;
+        if (grid != null) {
+            return grid;
+        }
+
+        synchronized (this) {
+            if (spatialGrid == null) {
+                grid = new SpatialGrid();
+                for (int index = 0, size = getSize(); index < size; index++) {
+                    Rectangle box = getObject(index).getBoundingBox();
+                    grid.add(box.x, box.y, box.x + box.width - 1, box.y
+                            + box.height - 1);
+                }
+                spatialGrid = grid;
+            }
+            return spatialGrid;
+        }
+    }
+
+    @Override
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    @Override
+    public void endBatch() throws IllegalStateException {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch in progress.");
+        }
+
+        batchDepth--;
+        if (batchDepth == 0) {
+            firePendingAdded();
+        }
+    }
+
+    /**
+     * Returns next serial number for specified {@code GeometricalObject}.
+     * Lines and circles are being numbered separately.
+     * 
+     * @param object
+     *            {@code GeometricalObject} which is being added
+     * @return Serial number for specified object
+     */
+    protected int nextSerialIndex(GeometricalObject object) {
+        if (object instanceof Line) {
+            return lineIndex++;
+        } else {
+            return circleIndex++;
+        }
+    }
+
+    /**
+     * Stores bounding box of object on specified position in spatial index.
+     * If position is equal to number of already indexed objects, object is
+     * being added, otherwise its bounding box is being updated. All
+     * coordinates are inclusive.
+     * 
+     * @param index
+     *            Position of object
+     * @param minX
+     *            Minimal x-coordinate of object's bounding box
+     * @param minY
+     *            Minimal y-coordinate of object's bounding box
+     * @param maxX
+     *            Maximal x-coordinate of object's bounding box
+     * @param maxY
+     *            Maximal y-coordinate of object's bounding box
+     */
+    protected void indexBounds(int index, int minX, int minY, int maxX,
+            int maxY) {
+        SpatialGrid grid = getSpatialGrid();
+        if (index == grid.size()) {
+            grid.add(minX, minY, maxX, maxY);
+        } else {
+            grid.update(index, minX, minY, maxX, maxY);
+        }
+    }
+
+    /**
+     * Stores specified bounding box of object on specified position in
+     * spatial index. For more informations look at
+     * {@linkplain #indexBounds(int, int, int, int, int)}.
+     * 
+     * @param index
+     *            Position of object
+     * @param box
+     *            Bounding box of object
+     */
+    protected void indexBounds(int index, Rectangle box) {
+        indexBounds(index, box.x, box.y, box.x + box.width - 1, box.y
+                + box.height - 1);
+    }
+
+    /**
+     * Notifies all attached observers that objects are added on specified
+     * positions.
+     * 
+     * @param index0
+     *            Position of first added object
+     * @param index1
+     *            Position of last added object
+     */
+    protected void fireObjectsAdded(int index0, int index1) {
+        if (batchDepth > 0) {
+            // Coalesce with pending additions if objects directly follow them
+            if (pendingIndex0 != -1 && index0 != pendingIndex1 + 1) {
+                firePendingAdded();
+            }
+            if (pendingIndex0 == -1) {
+                pendingIndex0 = index0;
+            }
+            pendingIndex1 = index1;
+            return;
+        }
+
+        for (DrawingModelListener listener : drawingModelListeners) {
+            listener.objectsAdded(this, index0, index1);
+        }
+    }
+
+    /**
+     * Notifies all attached observers that objects are removed from specified
+     * positions.
+     * 
+     * @param index0
+     *            Position of first removed object
+     * @param index1
+     *            Position of last removed object
+     */
+    protected void fireObjectsRemoved(int index0, int index1) {
+        firePendingAdded();
+
+        for (DrawingModelListener listener : drawingModelListeners) {
+            listener.objectsRemoved(this, index0, index1);
+        }
+    }
+
+    /**
+     * Notifies all attached observers about objects removed from positions
+     * which are set in specified {@code BitSet}. Every contiguous range of
+     * removed objects is reported separately, from the last one to the first
+     * one. If there are too many ranges, which would make observers shift
+     * their state once per range, removal of all objects from the first
+     * removed one and addition of remaining ones is reported instead.
+     * 
+     * @param removed
+     *            Positions of removed objects
+     * @param oldSize
+     *            Number of objects before removal
+     */
+    private void fireRemovedRanges(BitSet removed, int oldSize) {
+        int ranges = 0;
+        for (int index = removed.nextSetBit(0); index >= 0; index = removed
+                .nextSetBit(removed.nextClearBit(index))) {
+            ranges++;
+        }
+
+        if (ranges > MAX_REMOVED_RANGES) {
+            int first = removed.nextSetBit(0);
+            fireObjectsRemoved(first, oldSize - 1);
+            if (getSize() > first) {
+                fireObjectsAdded(first, getSize() - 1);
+            }
+            return;
+        }
+
+        int index1 = removed.previousSetBit(oldSize - 1);
+        while (index1 >= 0) {
+            int index0 = removed.previousClearBit(index1) + 1;
+            fireObjectsRemoved(index0, index1);
+            index1 = removed.previousSetBit(index0 - 1);
+        }
+    }
+
+    /**
+     * Notifies all attached observers that objects on specified positions are
+     * changed.
+     * 
+     * @param index0
+     *            Position of first changed object
+     * @param index1
+     *            Position of last changed object
+     */
+    protected void fireObjectsChanged(int index0, int index1) {
+        firePendingAdded();
+
+        for (DrawingModelListener listener : drawingModelListeners) {
+            listener.objectsChanged(this, index0, index1);
+        }
+    }
+
+    /**
+     * Notifies all attached observers about objects which were added during
+     * current batch and about which they are not yet notified.
+     */
+    private void firePendingAdded() {
+        if (pendingIndex0 == -1) {
+            return;
+        }
+
+        int index0 = pendingIndex0;
+        pendingIndex0 = -1;
+
+        for (DrawingModelListener listener : drawingModelListeners) {
+            listener.objectsAdded(this, index0, pendingIndex1);
+        }
+    }
+
+}
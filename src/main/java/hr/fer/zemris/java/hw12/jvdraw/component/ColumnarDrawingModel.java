@@ -0,0 +1,455 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * {@code ColumnarDrawingModel} is a concrete implementation of
+ * {@code DrawingModel} intended for very large drawings. Instead of holding
+ * one {@code GeometricalObject} instance per stored object, it stores their
+ * properties in several primitive arrays: type tags, coordinates, packed ARGB
+ * colors and serial numbers. Objects returned by {@linkplain #getObject(int)}
+ * are being created from these arrays on every call, so changes made on them
+ * have to be stored back by {@linkplain #set(int, GeometricalObject)}.
+ * Painting is being done directly from the arrays, without creating any
+ * objects. Arrays are divided in chunks which are shared with snapshots and
+ * copied on write, as described in {@code CopyOnWriteChunks}.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class ColumnarDrawingModel extends AbstractDrawingModel {
+
+    /** Type tag of {@code Line}. */
+    private static final byte LINE = 0;
+    /** Type tag of {@code Circle}. */
+    private static final byte CIRCLE = 1;
+    /** Type tag of {@code FilledCircle}. */
+    private static final byte FILLED_CIRCLE = 2;
+
+    /** Binary logarithm of number of objects in single chunk. */
+    private static final int CHUNK_SHIFT = CopyOnWriteChunks.CHUNK_SHIFT;
+    /** Number of objects in single chunk. */
+    private static final int CHUNK_SIZE = CopyOnWriteChunks.CHUNK_SIZE;
+    /** Mask which gives position of an object inside its chunk. */
+    private static final int CHUNK_MASK = CopyOnWriteChunks.CHUNK_MASK;
+
+    /** Initial number of chunks which can be referenced without resizing. */
+    private static final int INITIAL_CHUNKS = 8;
+
+    /** Number of entries of painting color cache, must be power of two. */
+    private static final int COLOR_CACHE_SIZE = 256;
+
+    /**
+     * Chunks of type tags of stored objects.
+     */
+    private byte[][] types = new byte[INITIAL_CHUNKS][];
+
+    /**
+     * Chunks of coordinates of stored objects, four values per object. Line
+     * stores its start and end point, circles store center point and radius.
+     */
+    private int[][] coordinates = new int[INITIAL_CHUNKS][];
+
+    /**
+     * Chunks of packed ARGB colors of stored objects, two values per object.
+     * Filled circle stores its outline and area color, other objects only
+     * first one.
+     */
+    private int[][] colors = new int[INITIAL_CHUNKS][];
+
+    /**
+     * Chunks of serial number indices of stored objects.
+     */
+    private int[][] serialIndices = new int[INITIAL_CHUNKS][];
+
+    /**
+     * Ownership of chunks, shared chunks are copied before they are changed.
+     */
+    private CopyOnWriteChunks chunks = new CopyOnWriteChunks();
+
+    /**
+     * Number of stored objects.
+     */
+    private int size;
+
+    /**
+     * Colors used for painting, indexed by hash of their ARGB value. Colors
+     * are immutable, so concurrent painting can only replace an entry, which
+     * costs one more allocation.
+     */
+    private Color[] colorCache = new Color[COLOR_CACHE_SIZE];
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public GeometricalObject getObject(int index) {
+        checkIndex(index);
+
+        int chunk = index >>> CHUNK_SHIFT;
+        int[] coords = coordinates[chunk];
+        int[] argb = colors[chunk];
+        int c = 4 * (index & CHUNK_MASK);
+        int k = 2 * (index & CHUNK_MASK);
+        GeometricalObject object;
+
+        switch (types[chunk][index & CHUNK_MASK]) {
+            case LINE:
+                object = new Line(coords[c], coords[c + 1], coords[c + 2],
+                        coords[c + 3], new Color(argb[k], true));
+                break;
+            case CIRCLE:
+                object = new Circle(coords[c], coords[c + 1], coords[c + 2],
+                        new Color(argb[k], true));
+                break;
+            default:
+                object = new FilledCircle(coords[c], coords[c + 1],
+                        coords[c + 2], new Color(argb[k], true), new Color(
+                                argb[k + 1], true));
+                break;
+        }
+
+        object.setIndex(serialIndices[chunk][index & CHUNK_MASK]);
+        return object;
+    }
+
+    @Override
+    public void paintObject(int index, Graphics g) {
+        checkIndex(index);
+
+        int chunk = index >>> CHUNK_SHIFT;
+        int[] coords = coordinates[chunk];
+        int[] argb = colors[chunk];
+        int c = 4 * (index & CHUNK_MASK);
+        int k = 2 * (index & CHUNK_MASK);
+        byte type = types[chunk][index & CHUNK_MASK];
+
+        if (type == LINE) {
+            setColor(g, argb[k]);
+            g.drawLine(coords[c], coords[c + 1], coords[c + 2], coords[c + 3]);
+            return;
+        }
+
+        int radius = coords[c + 2];
+        int x = coords[c] - radius;
+        int y = coords[c + 1] - radius;
+
+        if (type == FILLED_CIRCLE) {
+            setColor(g, argb[k + 1]);
+            g.fillOval(x, y, 2 * radius, 2 * radius);
+        }
+
+        setColor(g, argb[k]);
+        g.drawOval(x, y, 2 * radius, 2 * radius);
+    }
+
+    /**
+     * Sets specified ARGB color to specified {@code Graphics}, unless it is
+     * already set. Colors are taken from the cache, so painting of objects of
+     * few colors does not create any objects.
+     * 
+     * @param g
+     *            {@code Graphics} on which objects are painted
+     * @param argb
+     *            Packed ARGB color
+     */
+    private void setColor(Graphics g, int argb) {
+        Color current = g.getColor();
+        if (current != null && current.getRGB() == argb) {
+            return;
+        }
+
+        int entry = (argb ^ (argb >>> 8) ^ (argb >>> 16))
+                & (COLOR_CACHE_SIZE - 1);
+        Color color = colorCache[entry];
+        if (color == null || color.getRGB() != argb) {
+            color = new Color(argb, true);
+            colorCache[entry] = color;
+        }
+        g.setColor(color);
+    }
+
+    @Override
+    protected boolean intersects(int index, Rectangle area, int tolerance) {
+        int chunk = index >>> CHUNK_SHIFT;
+        int[] coords = coordinates[chunk];
+        int c = 4 * (index & CHUNK_MASK);
+
+        switch (types[chunk][index & CHUNK_MASK]) {
+            case LINE:
+                return Line.intersects(coords[c], coords[c + 1], coords[c + 2],
+                        coords[c + 3], area, tolerance);
+            case CIRCLE:
+                return Circle.intersects(coords[c], coords[c + 1],
+                        coords[c + 2], area, tolerance);
+            default:
+                return FilledCircle.intersects(coords[c], coords[c + 1],
+                        coords[c + 2], area, tolerance);
+        }
+    }
+
+    @Override
+    public void add(GeometricalObject object) {
+        ensureCapacity(size + 1);
+
+        int index = size;
+        store(index, object);
+        setSerialIndex(index, nextSerialIndex(object));
+        size++;
+
+        fireObjectsAdded(index, index);
+    }
+
+    @Override
+    public void addAll(List<? extends GeometricalObject> objects) {
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        ensureCapacity(size + objects.size());
+
+        int index0 = size;
+        for (GeometricalObject object : objects) {
+            store(size, object);
+            setSerialIndex(size, nextSerialIndex(object));
+            size++;
+        }
+
+        fireObjectsAdded(index0, size - 1);
+    }
+
+    @Override
+    protected void insertObjects(int index,
+            List<? extends GeometricalObject> objects) {
+        int count = objects.size();
+        ensureCapacity(size + count);
+
+        // Move following objects towards the end, starting from the last one
+        for (int from = size - 1; from >= index; from--) {
+            move(from, from + count);
+        }
+        size += count;
+
+        for (int i = 0; i < count; i++) {
+            GeometricalObject object = objects.get(i);
+            store(index + i, object);
+            setSerialIndex(index + i, object.getIndex() == 0
+                    ? nextSerialIndex(object) : object.getIndex());
+        }
+    }
+
+    @Override
+    public void set(int index, GeometricalObject object) {
+        checkIndex(index);
+
+        store(index, object);
+        fireObjectsChanged(index, index);
+    }
+
+    @Override
+    protected void compact(BitSet removed) {
+        int newSize = removed.nextSetBit(0);
+
+        for (int index = newSize + 1; index < size; index++) {
+            if (!removed.get(index)) {
+                move(index, newSize++);
+            }
+        }
+
+        size = newSize;
+    }
+
+    @Override
+    public DrawingModel snapshot() {
+        ColumnarDrawingModel snapshot = new ColumnarDrawingModel();
+
+        // Only references to chunks are copied
+        snapshot.types = types.clone();
+        snapshot.coordinates = coordinates.clone();
+        snapshot.colors = colors.clone();
+        snapshot.serialIndices = serialIndices.clone();
+        snapshot.chunks = chunks.share();
+        snapshot.size = size;
+
+        initSnapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Stores properties of specified {@code GeometricalObject} on specified
+     * position in internal arrays and updates spatial index.
+     * 
+     * @param index
+     *            Position of object
+     * @param object
+     *            {@code GeometricalObject} to be stored
+     * @throws IllegalArgumentException
+     *             If specified object is not supported
+     */
+    private void store(int index, GeometricalObject object)
+            throws IllegalArgumentException {
+        int chunk = writableChunk(index);
+        int[] coords = coordinates[chunk];
+        int[] argb = colors[chunk];
+        int c = 4 * (index & CHUNK_MASK);
+        int k = 2 * (index & CHUNK_MASK);
+
+        if (object instanceof Line) {
+            Line line = (Line) object;
+            types[chunk][index & CHUNK_MASK] = LINE;
+            coords[c] = line.getStartX();
+            coords[c + 1] = line.getStartY();
+            coords[c + 2] = line.getEndX();
+            coords[c + 3] = line.getEndY();
+            argb[k] = line.getColor().getRGB();
+            argb[k + 1] = 0;
+
+            indexBounds(index, Math.min(coords[c], coords[c + 2]),
+                    Math.min(coords[c + 1], coords[c + 3]),
+                    Math.max(coords[c], coords[c + 2]),
+                    Math.max(coords[c + 1], coords[c + 3]));
+            return;
+        }
+
+        if (object instanceof Circle) {
+            Circle circle = (Circle) object;
+            types[chunk][index & CHUNK_MASK] = CIRCLE;
+            coords[c] = circle.getCenterX();
+            coords[c + 1] = circle.getCenterY();
+            coords[c + 2] = circle.getRadius();
+            argb[k] = circle.getColor().getRGB();
+            argb[k + 1] = 0;
+        } else if (object instanceof FilledCircle) {
+            FilledCircle circle = (FilledCircle) object;
+            types[chunk][index & CHUNK_MASK] = FILLED_CIRCLE;
+            coords[c] = circle.getCenterX();
+            coords[c + 1] = circle.getCenterY();
+            coords[c + 2] = circle.getRadius();
+            argb[k] = circle.getOutlineColor().getRGB();
+            argb[k + 1] = circle.getAreaColor().getRGB();
+        } else {
+            throw new IllegalArgumentException("Unsupported object: "
+                    + object);
+        }
+
+        coords[c + 3] = 0;
+
+        int radius = coords[c + 2];
+        indexBounds(index, coords[c] - radius, coords[c + 1] - radius,
+                coords[c] + radius, coords[c + 1] + radius);
+    }
+
+    /**
+     * Sets serial number of object on specified position.
+     * 
+     * @param index
+     *            Position of object
+     * @param serialIndex
+     *            Serial number of object
+     */
+    private void setSerialIndex(int index, int serialIndex) {
+        int chunk = writableChunk(index);
+        serialIndices[chunk][index & CHUNK_MASK] = serialIndex;
+    }
+
+    /**
+     * Copies all properties of object on one position to other position.
+     * Spatial index is not being updated.
+     * 
+     * @param from
+     *            Position of copied object
+     * @param to
+     *            Position to which object is copied
+     */
+    private void move(int from, int to) {
+        int source = from >>> CHUNK_SHIFT;
+        int target = writableChunk(to);
+        int i = from & CHUNK_MASK;
+        int j = to & CHUNK_MASK;
+
+        types[target][j] = types[source][i];
+        System.arraycopy(coordinates[source], 4 * i, coordinates[target],
+                4 * j, 4);
+        System.arraycopy(colors[source], 2 * i, colors[target], 2 * j, 2);
+        serialIndices[target][j] = serialIndices[source][i];
+    }
+
+    /**
+     * Returns position of chunk which holds object on specified position,
+     * after the chunk is copied if it is shared with some snapshot.
+     * 
+     * @param index
+     *            Position of object which is being changed
+     * @return Position of chunk which can be changed
+     */
+    private int writableChunk(int index) {
+        int chunk = index >>> CHUNK_SHIFT;
+
+        if (!chunks.isOwned(chunk)) {
+            types[chunk] = types[chunk].clone();
+            coordinates[chunk] = coordinates[chunk].clone();
+            colors[chunk] = colors[chunk].clone();
+            serialIndices[chunk] = serialIndices[chunk].clone();
+            chunks.setOwned(chunk);
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Ensures that internal arrays can hold at least specified number of
+     * objects.
+     * 
+     * @param capacity
+     *            Requested number of objects
+     */
+    private void ensureCapacity(int capacity) {
+        int chunkCount = CopyOnWriteChunks.chunkCount(capacity);
+
+        if (chunkCount > types.length) {
+            int newLength = Math.max(chunkCount, 2 * types.length);
+            types = Arrays.copyOf(types, newLength);
+            coordinates = Arrays.copyOf(coordinates, newLength);
+            colors = Arrays.copyOf(colors, newLength);
+            serialIndices = Arrays.copyOf(serialIndices, newLength);
+        }
+
+        // Chunks are allocated in order, so only the last ones can be missing
+        for (int chunk = chunkCount - 1; chunk >= 0 && types[chunk] == null;
+                chunk--) {
+            types[chunk] = new byte[CHUNK_SIZE];
+            coordinates[chunk] = new int[4 * CHUNK_SIZE];
+            colors[chunk] = new int[2 * CHUNK_SIZE];
+            serialIndices[chunk] = new int[CHUNK_SIZE];
+            chunks.setOwned(chunk);
+        }
+    }
+
+    /**
+     * Checks if there is stored object on specified position.
+     * 
+     * @param index
+     *            Position to be checked
+     * @throws IndexOutOfBoundsException
+     *             If there is no object on specified position
+     */
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+    }
+
+}
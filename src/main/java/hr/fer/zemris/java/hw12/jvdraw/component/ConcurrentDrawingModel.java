@@ -0,0 +1,350 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * {@code ConcurrentDrawingModel} is a {@code DrawingModel} to which objects
+ * can be added from many threads at once, e.g. by background simulations.
+ * Added objects are being put in lock-free queues, one of several stripes
+ * chosen by the adding thread, so producers rarely compete with each other.
+ * Pending objects are published to the adapted {@code DrawingModel} on Event
+ * Dispatch Thread, many of them at once, so observers are notified on that
+ * thread only, about whole ranges of added objects. Serial numbers are being
+ * assigned when objects are published, in order of their positions, so every
+ * object gets unique serial number which never changes. Objects added by
+ * single thread are published in order in which they were added. All other
+ * methods, including {@linkplain #add(GeometricalObject)} called on Event
+ * Dispatch Thread, are passed to the adapted model and must be called on that
+ * thread. Objects added on Event Dispatch Thread are added after all pending
+ * objects. Number of pending objects is bounded, producers which add objects
+ * while there are too many of them wait until some are published, so they
+ * can not outrun Event Dispatch Thread and fill the memory.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class ConcurrentDrawingModel implements DrawingModel {
+
+    /**
+     * Number of stripes of pending objects, must be power of two.
+     */
+    private static final int STRIPE_COUNT = 32;
+
+    /**
+     * Maximal number of objects published at once, so Event Dispatch Thread
+     * is not blocked by publishing for too long.
+     */
+    private static final int MAX_PUBLISHED = 1 << 16;
+
+    /**
+     * Number of pending objects above which producers wait until some of them
+     * are published.
+     */
+    private static final int MAX_PENDING = 4 * MAX_PUBLISHED;
+
+    /**
+     * {@code DrawingModel} which is being adapted by this
+     * {@code ConcurrentDrawingModel}.
+     */
+    private DrawingModel drawingModel;
+
+    /**
+     * Stripes of pending objects, lists of objects added by single call are
+     * stored as single elements.
+     */
+    private List<Queue<List<? extends GeometricalObject>>> stripes =
+            new ArrayList<>();
+
+    /**
+     * Indicates whether publishing of pending objects is already requested.
+     */
+    private AtomicBoolean publishRequested = new AtomicBoolean();
+
+    /**
+     * Number of objects which are added but not published yet.
+     */
+    private AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Lock on which producers wait while there are too many pending objects.
+     */
+    private final Object pendingLock = new Object();
+
+    /**
+     * Stripe from which next publishing starts, so no stripe is preferred.
+     */
+    private int firstStripe;
+
+    /**
+     * Creates new {@code ConcurrentDrawingModel} which adapts specified
+     * {@code DrawingModel}. Adapted model should not be used directly
+     * anymore.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} to be adapted by this
+     *            {@code ConcurrentDrawingModel}
+     */
+    public ConcurrentDrawingModel(DrawingModel drawingModel) {
+        this.drawingModel = drawingModel;
+
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Publishes all pending objects to the adapted model immediately. Must
+     * be called on Event Dispatch Thread.
+     */
+    public void flush() {
+        boolean published = false;
+        while (!published) {
+            published = publish();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return drawingModel.getSize();
+    }
+
+    @Override
+    public GeometricalObject getObject(int index) {
+        return drawingModel.getObject(index);
+    }
+
+    @Override
+    public void paintObject(int index, Graphics g) {
+        drawingModel.paintObject(index, g);
+    }
+
+    @Override
+    public int[] getObjectsIn(Rectangle area) {
+        return drawingModel.getObjectsIn(area);
+    }
+
+    @Override
+    public int getObjectAt(int x, int y, int tolerance) {
+        return drawingModel.getObjectAt(x, y, tolerance);
+    }
+
+    @Override
+    public int[] getObjectsAt(Rectangle area, int tolerance) {
+        return drawingModel.getObjectsAt(area, tolerance);
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return drawingModel.getBounds();
+    }
+
+    /**
+     * Adds specified {@code GeometricalObject}. This method can be called on
+     * any thread. If it is not called on Event Dispatch Thread, object is
+     * added when pending objects are published, and this method waits while
+     * there are too many pending objects.
+     * 
+     * @param object
+     *            {@code GeometricalObject} to be added
+     */
+    @Override
+    public void add(GeometricalObject object) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            flush();
+            drawingModel.add(object);
+            return;
+        }
+
+        enqueue(Collections.singletonList(object));
+    }
+
+    /**
+     * Adds all specified {@code GeometricalObject}s. This method can be
+     * called on any thread. If it is not called on Event Dispatch Thread,
+     * objects are added together when pending objects are published, and
+     * this method waits while there are too many pending objects.
+     * 
+     * @param objects
+     *            {@code GeometricalObject}s to be added
+     */
+    @Override
+    public void addAll(List<? extends GeometricalObject> objects) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            flush();
+            drawingModel.addAll(objects);
+            return;
+        }
+
+        if (!objects.isEmpty()) {
+            // List could be reused by the caller before it is published
+            enqueue(new ArrayList<>(objects));
+        }
+    }
+
+    @Override
+    public void insert(int index, List<? extends GeometricalObject> objects)
+            throws IndexOutOfBoundsException {
+        drawingModel.insert(index, objects);
+    }
+
+    @Override
+    public void set(int index, GeometricalObject object) {
+        drawingModel.set(index, object);
+    }
+
+    @Override
+    public void remove(int index) throws IndexOutOfBoundsException {
+        drawingModel.remove(index);
+    }
+
+    @Override
+    public void removeRange(int index0, int index1)
+            throws IndexOutOfBoundsException {
+        drawingModel.removeRange(index0, index1);
+    }
+
+    @Override
+    public int removeIf(Predicate<? super GeometricalObject> filter) {
+        return drawingModel.removeIf(filter);
+    }
+
+    @Override
+    public DrawingModel snapshot() {
+        return drawingModel.snapshot();
+    }
+
+    @Override
+    public void beginBatch() {
+        drawingModel.beginBatch();
+    }
+
+    @Override
+    public void endBatch() throws IllegalStateException {
+        drawingModel.endBatch();
+    }
+
+    @Override
+    public void addDrawingModelListener(DrawingModelListener listener) {
+        drawingModel.addDrawingModelListener(listener);
+    }
+
+    @Override
+    public void removeDrawingModelListener(DrawingModelListener listener) {
+        drawingModel.removeDrawingModelListener(listener);
+    }
+
+    /**
+     * Puts specified objects to the stripe of current thread, requests their
+     * publishing and waits while there are more than {@value #MAX_PENDING}
+     * pending objects. If current thread is interrupted while waiting, it
+     * stops waiting and its interrupt status is set again, objects are
+     * published anyway.
+     * 
+     * @param objects
+     *            Objects to be added
+     */
+    private void enqueue(List<? extends GeometricalObject> objects) {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPE_COUNT - 1);
+        stripes.get(stripe).offer(objects);
+        int count = pending.addAndGet(objects.size());
+
+        requestPublishing();
+
+        if (count > MAX_PENDING) {
+            synchronized (pendingLock) {
+                try {
+                    while (pending.get() > MAX_PENDING) {
+                        pendingLock.wait();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests publishing of pending objects on Event Dispatch Thread, unless
+     * it is already requested.
+     */
+    private void requestPublishing() {
+        // Flag is only read while publishing is requested, so producers do
+        // not compete for it
+        if (!publishRequested.get()
+                && publishRequested.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::publishPending);
+        }
+    }
+
+    /**
+     * Publishes pending objects as requested. If there are too many of them,
+     * publishing of remaining ones is requested again, so other events can
+     * be processed in between.
+     */
+    private void publishPending() {
+        // Objects which are added from now on need new request
+        publishRequested.set(false);
+
+        if (!publish()) {
+            requestPublishing();
+        }
+    }
+
+    /**
+     * Publishes pending objects to the adapted model, at most
+     * {@value #MAX_PUBLISHED} of them, except when objects added by single
+     * call are more numerous. Observers are notified once about all
+     * published objects.
+     * 
+     * @return {@code true} if all pending objects were published
+     */
+    private boolean publish() {
+        List<GeometricalObject> objects = new ArrayList<>();
+        boolean published = true;
+
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            Queue<List<? extends GeometricalObject>> stripe = stripes
+                    .get((firstStripe + i) & (STRIPE_COUNT - 1));
+
+            List<? extends GeometricalObject> part;
+            while (objects.size() < MAX_PUBLISHED
+                    && (part = stripe.poll()) != null) {
+                objects.addAll(part);
+            }
+
+            if (objects.size() >= MAX_PUBLISHED) {
+                published = false;
+                break;
+            }
+        }
+        firstStripe = (firstStripe + 1) & (STRIPE_COUNT - 1);
+
+        if (!objects.isEmpty()) {
+            // Producers wait only while the bound is exceeded
+            int count = pending.addAndGet(-objects.size());
+            if (count + objects.size() > MAX_PENDING && count <= MAX_PENDING) {
+                synchronized (pendingLock) {
+                    pendingLock.notifyAll();
+                }
+            }
+
+            drawingModel.addAll(objects);
+        }
+        return published;
+    }
+
+}
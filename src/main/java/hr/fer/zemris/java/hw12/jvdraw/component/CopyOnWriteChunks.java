@@ -0,0 +1,104 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code CopyOnWriteChunks} keeps track of ownership of chunks in which
+ * drawing models store their objects. Storage is divided in chunks of fixed
+ * number of objects and a snapshot of the model shares all chunks with it.
+ * Chunk which is shared must not be changed, so before the first change
+ * after a snapshot is taken, model has to copy that chunk and mark the copy
+ * as owned. Snapshot is therefore taken by copying only references to the
+ * chunks, and every later change copies at most the chunks it touches.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+class CopyOnWriteChunks {
+
+    /**
+     * Binary logarithm of number of objects in single chunk.
+     */
+    static final int CHUNK_SHIFT = 10;
+
+    /**
+     * Number of objects in single chunk.
+     */
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /**
+     * Mask which gives position of an object inside its chunk.
+     */
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Source of unique versions, every owner of chunks gets its own one.
+     */
+    private static final AtomicInteger VERSIONS = new AtomicInteger();
+
+    /**
+     * Version of the owner, chunks marked with it can be changed.
+     */
+    private int version = VERSIONS.incrementAndGet();
+
+    /**
+     * Version of every chunk, i.e. version of its owner when it was created
+     * or copied.
+     */
+    private int[] chunkVersions = new int[8];
+
+    /**
+     * Returns number of chunks needed for specified number of objects.
+     * 
+     * @param size
+     *            Number of objects
+     * @return Number of chunks
+     */
+    static int chunkCount(int size) {
+        return (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+    }
+
+    /**
+     * Checks if chunk on specified position is owned, so it can be changed.
+     * 
+     * @param chunk
+     *            Position of chunk
+     * @return {@code true} if chunk can be changed
+     */
+    boolean isOwned(int chunk) {
+        return chunk < chunkVersions.length && chunkVersions[chunk] == version;
+    }
+
+    /**
+     * Marks chunk on specified position as owned, after it was created or
+     * copied.
+     * 
+     * @param chunk
+     *            Position of chunk
+     */
+    void setOwned(int chunk) {
+        if (chunk >= chunkVersions.length) {
+            chunkVersions = Arrays.copyOf(chunkVersions, Math.max(chunk + 1,
+                    2 * chunkVersions.length));
+        }
+
+        chunkVersions[chunk] = version;
+    }
+
+    /**
+     * Marks all chunks as shared with a snapshot and returns ownership for
+     * that snapshot, in which no chunk is owned either.
+     * 
+     * @return Ownership of chunks for new snapshot
+     */
+    CopyOnWriteChunks share() {
+        version = VERSIONS.incrementAndGet();
+
+        CopyOnWriteChunks snapshot = new CopyOnWriteChunks();
+        snapshot.chunkVersions = new int[chunkVersions.length];
+        return snapshot;
+    }
+
+}
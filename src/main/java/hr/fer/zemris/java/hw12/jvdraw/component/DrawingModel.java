@@ -2,13 +2,22 @@ package hr.fer.zemris.java.hw12.jvdraw.component;
 
 import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
 
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.function.Predicate;
+
 /**
  * {@code DrawingModel} defines an interface for subjects in Observer design
  * pattern where concrete observers are implementations of
  * {@code DrawingModelListener}. Concrete subjects have to implement several
  * method implementations which are used for retrieving
- * {@code GeometricalObject}s which are stored in this model, for adding
- * {@code GeometricalObject}s and for adding and removing attached observers.
+ * {@code GeometricalObject}s which are stored in this model, for adding and
+ * replacing {@code GeometricalObject}s and for adding and removing attached
+ * observers. Implementations are free to choose how objects are being stored,
+ * so objects returned by {@linkplain #getObject(int)} are not guaranteed to be
+ * the same instances which were added. Every change of an object has to be
+ * stored back by {@linkplain #set(int, GeometricalObject)} method.
  * 
  * @author Domagoj Penic
  * @version 3.6.2015.
@@ -37,6 +46,69 @@ public interface DrawingModel {
      */
     GeometricalObject getObject(int index);
 
+    /**
+     * Paints {@code GeometricalObject} which is stored on specified position
+     * in this {@code DrawingModel} on specified {@code Graphics} object.
+     * 
+     * @param index
+     *            Position of object to be painted
+     * @param g
+     *            {@code Graphics} object on which object is being painted
+     */
+    void paintObject(int index, Graphics g);
+
+    /**
+     * Returns positions of all {@code GeometricalObject}s stored in this
+     * {@code DrawingModel} whose bounding box intersects specified area.
+     * Positions are sorted in ascending order, so objects can be painted in
+     * the same order in which they were added.
+     * 
+     * @param area
+     *            Requested area
+     * @return Sorted positions of objects which intersect specified area
+     */
+    int[] getObjectsIn(Rectangle area);
+
+    /**
+     * Returns position of topmost {@code GeometricalObject}, i.e. the last one
+     * painted, which is hit by specified point, as defined by
+     * {@linkplain GeometricalObject#intersects(Rectangle, int)}. Used for
+     * picking objects under mouse cursor.
+     * 
+     * @param x
+     *            Point's x-coordinate
+     * @param y
+     *            Point's y-coordinate
+     * @param tolerance
+     *            Maximal distance in pixels between point and hit object
+     * @return Position of topmost hit object, or -1 if no object is hit
+     */
+    int getObjectAt(int x, int y, int tolerance);
+
+    /**
+     * Returns positions of all {@code GeometricalObject}s which are hit by
+     * specified area, as defined by
+     * {@linkplain GeometricalObject#intersects(Rectangle, int)}. Unlike
+     * {@linkplain #getObjectsIn(Rectangle)}, actual shape of objects is
+     * tested, not only their bounding boxes.
+     * 
+     * @param area
+     *            Requested area
+     * @param tolerance
+     *            Maximal distance in pixels between area and hit object
+     * @return Sorted positions of hit objects
+     */
+    int[] getObjectsAt(Rectangle area, int tolerance);
+
+    /**
+     * Returns the smallest {@code Rectangle} which contains bounding boxes of
+     * all {@code GeometricalObject}s stored in this {@code DrawingModel}.
+     * 
+     * @return Bounding box of the whole drawing, or {@code null} if there are
+     *         no objects
+     */
+    Rectangle getBounds();
+
     /**
      * Adds new {@code GeometricalObject} in internal collection of objects
      * inside this {@code DrawingModel}.
@@ -46,6 +118,129 @@ public interface DrawingModel {
      */
     void add(GeometricalObject object);
 
+    /**
+     * Adds all specified {@code GeometricalObject}s, in given order, in
+     * internal collection of objects inside this {@code DrawingModel}.
+     * Attached observers are being notified only once, about whole range of
+     * added objects.
+     * 
+     * @param objects
+     *            {@code GeometricalObject}s to be added
+     */
+    void addAll(List<? extends GeometricalObject> objects);
+
+    /**
+     * Inserts all specified {@code GeometricalObject}s, in given order, on
+     * specified position in internal collection of objects inside this
+     * {@code DrawingModel}. Objects which were on that position and after it
+     * are being moved towards the end. Unlike
+     * {@linkplain #addAll(List)}, objects keep their serial numbers, so
+     * removed objects can be restored. Objects without serial number get new
+     * one. Attached observers are being notified only once, about whole range
+     * of inserted objects.
+     * 
+     * @param index
+     *            Position of first inserted object
+     * @param objects
+     *            {@code GeometricalObject}s to be inserted
+     * @throws IndexOutOfBoundsException
+     *             If position is negative or greater than number of objects
+     */
+    void insert(int index, List<? extends GeometricalObject> objects)
+            throws IndexOutOfBoundsException;
+
+    /**
+     * Replaces {@code GeometricalObject} stored on specified position with
+     * specified one. Replaced object keeps serial number of the old one. After
+     * this call, all attached observers are being notified about this change
+     * on specified index.
+     * 
+     * @param index
+     *            Position of object to be replaced
+     * @param object
+     *            New {@code GeometricalObject} on specified position
+     */
+    void set(int index, GeometricalObject object);
+
+    /**
+     * Removes {@code GeometricalObject} stored on specified position. Objects
+     * after it are being moved one position towards the beginning. After this
+     * call, all attached observers are being notified about removal.
+     * 
+     * @param index
+     *            Position of object to be removed
+     * @throws IndexOutOfBoundsException
+     *             If there is no object on specified position
+     */
+    void remove(int index) throws IndexOutOfBoundsException;
+
+    /**
+     * Removes all {@code GeometricalObject}s stored on positions from
+     * {@code index0} to {@code index1}, both inclusive. Attached observers are
+     * being notified only once, about whole range of removed objects.
+     * 
+     * @param index0
+     *            Position of first object to be removed
+     * @param index1
+     *            Position of last object to be removed
+     * @throws IndexOutOfBoundsException
+     *             If specified range is not valid
+     */
+    void removeRange(int index0, int index1) throws IndexOutOfBoundsException;
+
+    /**
+     * Removes all {@code GeometricalObject}s which satisfy specified
+     * predicate. Remaining objects keep their order and are moved towards the
+     * beginning in a single pass, so removal takes linear time regardless of
+     * number of removed objects. Attached observers are being notified once
+     * for every contiguous range of removed objects, starting from the last
+     * one, so positions in every notification are valid at the moment it is
+     * received. If removed objects are scattered in too many ranges, observers
+     * are instead notified that all objects from the first removed one are
+     * removed and that remaining ones are added again. Predicate is tested
+     * exactly once for every object, in order of their positions.
+     * 
+     * @param filter
+     *            Predicate which returns {@code true} for objects to be
+     *            removed
+     * @return Number of removed objects
+     */
+    int removeIf(Predicate<? super GeometricalObject> filter);
+
+    /**
+     * Returns independent copy of current content of this
+     * {@code DrawingModel}. Later changes of this model are not visible in
+     * returned copy, so it can be safely read on other thread, for example
+     * while it is being saved, exported or rendered. Returned copy does not
+     * have any observers. Implementations share unchanged content with the
+     * snapshot and copy it only when it is changed, so taking a snapshot does
+     * not copy stored objects. Stored objects themselves can be shared, so
+     * they must not be changed by readers of the snapshot.
+     * 
+     * @return Copy of current content of this model
+     */
+    DrawingModel snapshot();
+
+    /**
+     * Starts a batch of changes. While batch is in progress, notifications
+     * about added objects are not being sent one by one, instead, when
+     * {@linkplain #endBatch()} is called, attached observers are being
+     * notified only once about whole range of added objects. Other changes
+     * are being reported immediately, after pending additions. Batches can be
+     * nested, notifications are being sent when the outermost batch ends.
+     */
+    void beginBatch();
+
+    /**
+     * Ends a batch of changes started by {@linkplain #beginBatch()}. If this
+     * is the outermost batch, attached observers are being notified about all
+     * objects added during the batch.
+     * 
+     * @throws IllegalStateException
+     *             If there is no batch in progress
+     */
+    void endBatch() throws IllegalStateException;
+
     /**
      * Adds new {@code DrawingModelListener}, i.e. observer in this Observer
      * design pattern, to be attached to this subject, {@code DrawingModel}.
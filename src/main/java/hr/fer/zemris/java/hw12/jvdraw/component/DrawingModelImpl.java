@@ -1,9 +1,11 @@
 package hr.fer.zemris.java.hw12.jvdraw.component;
 
 import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
-import hr.fer.zemris.java.hw12.jvdraw.object.Line;
 
-import java.util.ArrayList;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -11,91 +13,207 @@ import java.util.List;
  * which holds various implementations of {@code GeometricalObject}s. This
  * implementation is subject in Observer design patter where observers are
  * implementations of {@code DrawingModelListener} interface. When some change
- * occurs in this model, all observers are being notified.
+ * occurs in this model, all observers are being notified. Objects are stored
+ * in chunks which are shared with snapshots and copied on write, as described
+ * in {@code CopyOnWriteChunks}. Stored objects themselves are shared with
+ * snapshots too, so they must never be changed in place, changed copy of an
+ * object is stored by {@linkplain #set(int, GeometricalObject)} instead.
  * 
  * @author Domagoj Penic
  * @version 4.6.2015.
  *
  */
-public class DrawingModelImpl implements DrawingModel {
+public class DrawingModelImpl extends AbstractDrawingModel {
 
-    /**
-     * Collection of all attached listeners, i.e. observers in this Observer
-     * design pattern.
-     */
-    private List<DrawingModelListener> drawingModelListeners = new ArrayList<>();
+    /** Binary logarithm of number of objects in single chunk. */
+    private static final int CHUNK_SHIFT = CopyOnWriteChunks.CHUNK_SHIFT;
+    /** Number of objects in single chunk. */
+    private static final int CHUNK_SIZE = CopyOnWriteChunks.CHUNK_SIZE;
+    /** Mask which gives position of an object inside its chunk. */
+    private static final int CHUNK_MASK = CopyOnWriteChunks.CHUNK_MASK;
+
+    /** Initial number of chunks which can be referenced without resizing. */
+    private static final int INITIAL_CHUNKS = 8;
 
     /**
-     * Collection of {@code GeometricalObject}s which are being hold by this
+     * Chunks of {@code GeometricalObject}s which are being hold by this
      * {@code DrawingModel}.
      */
-    private List<GeometricalObject> geometricalObjects = new ArrayList<>();
+    private GeometricalObject[][] geometricalObjects =
+            new GeometricalObject[INITIAL_CHUNKS][];
 
     /**
-     * Index of a line which is being created when new one is drawn. This index
-     * is used for defining line's name.
+     * Ownership of chunks, shared chunks are copied before they are changed.
      */
-    private int lineIndex = 1;
+    private CopyOnWriteChunks chunks = new CopyOnWriteChunks();
 
     /**
-     * Index of a circle which is being created when new one is drawn. This
-     * index is used for defining cricle's name.
+     * Number of stored objects.
      */
-    private int circleIndex = 1;
+    private int size;
 
     @Override
     public int getSize() {
-        return geometricalObjects.size();
+        return size;
     }
 
     @Override
     public GeometricalObject getObject(int index) {
-        return geometricalObjects.get(index);
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+
+        return geometricalObjects[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    @Override
+    public void paintObject(int index, Graphics g) {
+        getObject(index).paint(g);
+    }
+
+    @Override
+    protected boolean intersects(int index, Rectangle area, int tolerance) {
+        return getObject(index).intersects(area, tolerance);
     }
 
     @Override
     public void add(GeometricalObject object) {
-        geometricalObjects.add(object);
+        ensureCapacity(size + 1);
 
         // Define index for this object
-        if (object instanceof Line) {
-            object.setIndex(lineIndex);
-            lineIndex++;
-        } else {
-            object.setIndex(circleIndex);
-            circleIndex++;
-        }
+        object.setIndex(nextSerialIndex(object));
 
-        int index = geometricalObjects.size() - 1;
+        int index = size++;
+        store(index, object);
+        indexBounds(index, object.getBoundingBox());
 
         // Notify all observers about change
-        for (DrawingModelListener listener : drawingModelListeners) {
-            listener.objectsAdded(this, index, index);
+        fireObjectsAdded(index, index);
+    }
+
+    @Override
+    public void addAll(List<? extends GeometricalObject> objects) {
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        ensureCapacity(size + objects.size());
+
+        int index0 = size;
+        for (GeometricalObject object : objects) {
+            object.setIndex(nextSerialIndex(object));
+
+            int index = size++;
+            store(index, object);
+            indexBounds(index, object.getBoundingBox());
+        }
+
+        fireObjectsAdded(index0, size - 1);
+    }
+
+    @Override
+    protected void insertObjects(int index,
+            List<? extends GeometricalObject> objects) {
+        int count = objects.size();
+        ensureCapacity(size + count);
+
+        // Move following objects towards the end, starting from the last one
+        for (int from = size - 1; from >= index; from--) {
+            store(from + count, getObject(from));
+        }
+        size += count;
+
+        for (int i = 0; i < count; i++) {
+            GeometricalObject object = objects.get(i);
+            if (object.getIndex() == 0) {
+                object.setIndex(nextSerialIndex(object));
+            }
+            store(index + i, object);
+            indexBounds(index + i, object.getBoundingBox());
+        }
+    }
+
+    @Override
+    public void set(int index, GeometricalObject object) {
+        GeometricalObject oldObject = getObject(index);
+        object.setIndex(oldObject.getIndex());
+
+        store(index, object);
+        indexBounds(index, object.getBoundingBox());
+        fireObjectsChanged(index, index);
+    }
+
+    @Override
+    protected void compact(BitSet removed) {
+        int newSize = removed.nextSetBit(0);
+
+        for (int index = newSize + 1; index < size; index++) {
+            if (!removed.get(index)) {
+                store(newSize++, getObject(index));
+            }
+        }
+
+        // Removed objects must not be referenced anymore
+        for (int index = newSize; index < size; index++) {
+            store(index, null);
         }
+        size = newSize;
+    }
+
+    @Override
+    public DrawingModel snapshot() {
+        DrawingModelImpl snapshot = new DrawingModelImpl();
+
+        // Only references to chunks are copied
+        snapshot.geometricalObjects = geometricalObjects.clone();
+        snapshot.chunks = chunks.share();
+        snapshot.size = size;
+
+        initSnapshot(snapshot);
+        return snapshot;
     }
 
     /**
-     * Indicates that {@code GeometricalObject} on specified position is being
-     * changed. After this call, all attached observers are being notified about
-     * this change on specified index.
+     * Stores specified {@code GeometricalObject} on specified position, after
+     * the chunk which holds it is copied if it is shared with some snapshot.
      * 
      * @param index
-     *            Index on which change has occurred
+     *            Position on which object is stored
+     * @param object
+     *            {@code GeometricalObject} to be stored
      */
-    public void objectChanged(int index) {
-        for (DrawingModelListener listener : drawingModelListeners) {
-            listener.objectsChanged(this, index, index);
+    private void store(int index, GeometricalObject object) {
+        int chunk = index >>> CHUNK_SHIFT;
+
+        if (!chunks.isOwned(chunk)) {
+            geometricalObjects[chunk] = geometricalObjects[chunk].clone();
+            chunks.setOwned(chunk);
         }
-    }
 
-    @Override
-    public void addDrawingModelListener(DrawingModelListener listener) {
-        drawingModelListeners.add(listener);
+        geometricalObjects[chunk][index & CHUNK_MASK] = object;
     }
 
-    @Override
-    public void removeDrawingModelListener(DrawingModelListener listener) {
-        drawingModelListeners.remove(listener);
+    /**
+     * Ensures that internal chunks can hold at least specified number of
+     * objects.
+     * 
+     * @param capacity
+     *            Requested number of objects
+     */
+    private void ensureCapacity(int capacity) {
+        int chunkCount = CopyOnWriteChunks.chunkCount(capacity);
+
+        if (chunkCount > geometricalObjects.length) {
+            geometricalObjects = Arrays.copyOf(geometricalObjects,
+                    Math.max(chunkCount, 2 * geometricalObjects.length));
+        }
+
+        // Chunks are allocated in order, so only the last ones can be missing
+        for (int chunk = chunkCount - 1; chunk >= 0
+                && geometricalObjects[chunk] == null; chunk--) {
+            geometricalObjects[chunk] = new GeometricalObject[CHUNK_SIZE];
+            chunks.setOwned(chunk);
+        }
     }
 
 }
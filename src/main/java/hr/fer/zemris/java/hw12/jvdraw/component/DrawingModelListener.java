@@ -22,7 +22,7 @@ public interface DrawingModelListener {
      * @param index0
      *            Index on which change has occurred, inclusively
      * @param index1
-     *            Index on which change ends, exclusively
+     *            Index on which change ends, inclusively
      */
     public void objectsAdded(DrawingModel source, int index0, int index1);
 
@@ -35,7 +35,7 @@ public interface DrawingModelListener {
      * @param index0
      *            Index on which change has occurred, inclusively
      * @param index1
-     *            Index on which change ends, exclusively
+     *            Index on which change ends, inclusively
      */
     public void objectsRemoved(DrawingModel source, int index0, int index1);
 
@@ -48,7 +48,7 @@ public interface DrawingModelListener {
      * @param index0
      *            Index on which change has occurred, inclusively
      * @param index1
-     *            Index on which change ends, exclusively
+     *            Index on which change ends, inclusively
      */
     public void objectsChanged(DrawingModel source, int index0, int index1);
 
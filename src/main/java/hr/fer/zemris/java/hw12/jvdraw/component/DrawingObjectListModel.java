@@ -2,6 +2,11 @@ package hr.fer.zemris.java.hw12.jvdraw.component;
 
 import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
 
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.function.Predicate;
+
 import javax.swing.AbstractListModel;
 
 /**
@@ -58,11 +63,83 @@ public class DrawingObjectListModel extends
         return drawingModel.getObject(index);
     }
 
+    @Override
+    public void paintObject(int index, Graphics g) {
+        drawingModel.paintObject(index, g);
+    }
+
+    @Override
+    public int[] getObjectsIn(Rectangle area) {
+        return drawingModel.getObjectsIn(area);
+    }
+
+    @Override
+    public int getObjectAt(int x, int y, int tolerance) {
+        return drawingModel.getObjectAt(x, y, tolerance);
+    }
+
+    @Override
+    public int[] getObjectsAt(Rectangle area, int tolerance) {
+        return drawingModel.getObjectsAt(area, tolerance);
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return drawingModel.getBounds();
+    }
+
     @Override
     public void add(GeometricalObject object) {
         drawingModel.add(object);
     }
 
+    @Override
+    public void addAll(List<? extends GeometricalObject> objects) {
+        drawingModel.addAll(objects);
+    }
+
+    @Override
+    public void insert(int index, List<? extends GeometricalObject> objects)
+            throws IndexOutOfBoundsException {
+        drawingModel.insert(index, objects);
+    }
+
+    @Override
+    public void set(int index, GeometricalObject object) {
+        drawingModel.set(index, object);
+    }
+
+    @Override
+    public void remove(int index) throws IndexOutOfBoundsException {
+        drawingModel.remove(index);
+    }
+
+    @Override
+    public void removeRange(int index0, int index1)
+            throws IndexOutOfBoundsException {
+        drawingModel.removeRange(index0, index1);
+    }
+
+    @Override
+    public int removeIf(Predicate<? super GeometricalObject> filter) {
+        return drawingModel.removeIf(filter);
+    }
+
+    @Override
+    public DrawingModel snapshot() {
+        return drawingModel.snapshot();
+    }
+
+    @Override
+    public void beginBatch() {
+        drawingModel.beginBatch();
+    }
+
+    @Override
+    public void endBatch() throws IllegalStateException {
+        drawingModel.endBatch();
+    }
+
     @Override
     public void addDrawingModelListener(DrawingModelListener listener) {
         drawingModel.addDrawingModelListener(listener);
@@ -0,0 +1,179 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import java.util.Arrays;
+
+/**
+ * {@code IntList} is a simple growable collection of primitive {@code int}
+ * values. It is used internally by drawing models and their indexes where
+ * storing large number of indices as boxed {@code Integer}s would be too
+ * expensive.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+class IntList {
+
+    /**
+     * Internal array which holds stored values.
+     */
+    private int[] elements;
+
+    /**
+     * Number of values currently stored in this list.
+     */
+    private int size;
+
+    /**
+     * Upper bound of stored values, at least as large as the largest one.
+     */
+    private int max = Integer.MIN_VALUE;
+
+    /**
+     * Creates new empty {@code IntList} with default initial capacity.
+     */
+    public IntList() {
+        this.elements = new int[8];
+    }
+
+    /**
+     * Returns number of values stored in this {@code IntList}.
+     * 
+     * @return Number of stored values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns upper bound of values stored in this {@code IntList}. It is
+     * exact after values are added or remapped, removing single value by
+     * {@linkplain #removeValue(int)} does not lower it.
+     * 
+     * @return Value which is not smaller than any stored value, or
+     *         {@code Integer.MIN_VALUE} if no value was stored
+     */
+    public int max() {
+        return max;
+    }
+
+    /**
+     * Returns value stored on specified position.
+     * 
+     * @param index
+     *            Requested position
+     * @return Value stored on specified position
+     * @throws IndexOutOfBoundsException
+     *             If specified position is not valid
+     */
+    public int get(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+
+        return elements[index];
+    }
+
+    /**
+     * Replaces value stored on specified position with specified one.
+     * 
+     * @param index
+     *            Requested position
+     * @param value
+     *            New value
+     * @throws IndexOutOfBoundsException
+     *             If specified position is not valid
+     */
+    public void set(int index, int value) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+
+        elements[index] = value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds specified value at the end of this {@code IntList}.
+     * 
+     * @param value
+     *            Value to be added
+     */
+    public void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+
+        elements[size++] = value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Removes first occurrence of specified value from this {@code IntList}.
+     * Order of remaining values is not preserved.
+     * 
+     * @param value
+     *            Value to be removed
+     * @return {@code true} if value was found and removed, {@code false}
+     *         otherwise
+     */
+    public boolean removeValue(int value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == value) {
+                elements[i] = elements[--size];
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Replaces stored values by their new values from specified mapping and
+     * removes values which are mapped to a negative number. Values smaller
+     * than specified offset are kept unchanged, other value {@code v} is
+     * replaced by {@code mapping[v - offset]}. Order of kept values is
+     * preserved.
+     * 
+     * @param offset
+     *            The smallest value which is being mapped
+     * @param mapping
+     *            New values of mapped values
+     */
+    public void remap(int offset, int[] mapping) {
+        int count = 0;
+        max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            int value = elements[i];
+            if (value >= offset) {
+                value = mapping[value - offset];
+                if (value < 0) {
+                    continue;
+                }
+            }
+            elements[count++] = value;
+            max = Math.max(max, value);
+        }
+
+        size = count;
+    }
+
+    /**
+     * Removes all values from this {@code IntList}.
+     */
+    public void clear() {
+        size = 0;
+        max = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns new array which holds all values stored in this
+     * {@code IntList}.
+     * 
+     * @return Array of stored values
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+}
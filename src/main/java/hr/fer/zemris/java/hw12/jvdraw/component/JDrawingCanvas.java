@@ -1,11 +1,16 @@
 package hr.fer.zemris.java.hw12.jvdraw.component;
 
 import hr.fer.zemris.java.hw12.jvdraw.drawer.GeometricalObjectDrawer;
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
 
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Insets;
 import java.awt.Point;
 import java.awt.Rectangle;
@@ -13,8 +18,15 @@ import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.BitSet;
 
+import javax.swing.DefaultListSelectionModel;
 import javax.swing.JComponent;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.ListSelectionListener;
 
 /**
  * {@code JDrawingCanvas} is a {@code JComponent} on which various types of
@@ -24,7 +36,9 @@ import javax.swing.JComponent;
  * to the {@code DrawingModel}. This class is observer in two Observer design
  * patterns. It is being notified when some {@code Color} change occurs inside
  * {@code JColorArea} and when new {@code GeometricalObject} is being added,
- * removed or changed in {@code DrawingModel}.
+ * removed or changed in {@code DrawingModel}. When no drawer is selected,
+ * objects can be selected by clicking on them and object under mouse cursor is
+ * highlighted.
  * 
  * @author Domagoj Penic
  * @version 4.6.2015.
@@ -38,6 +52,53 @@ public class JDrawingCanvas extends JComponent implements DrawingModelListener,
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Number of objects per pixel of a tile above which the tile is painted
+     * at low level of detail, without antialiasing.
+     */
+    private static final double DENSE_OBJECTS_PER_PIXEL = 0.25;
+
+    /**
+     * Width and height of tiles in pixels, for which level of detail is
+     * chosen separately. Tiles are aligned to this component, so level of
+     * detail of a tile does not depend on the repainted area.
+     */
+    private static final int TILE_SIZE = 256;
+
+    /**
+     * Width and height of bounding box in pixels up to which object is being
+     * painted without antialiasing at any level of detail, since it covers
+     * only a few pixels anyway.
+     */
+    private static final int SMALL_OBJECT_SIZE = 3;
+
+    /**
+     * Maximal distance in pixels between mouse cursor and picked object.
+     */
+    private static final int PICK_TOLERANCE = 3;
+
+    /**
+     * Distance in pixels between bounding box of highlighted object and its
+     * highlight frame.
+     */
+    private static final int HIGHLIGHT_MARGIN = 2;
+
+    /**
+     * Color of frame around selected objects.
+     */
+    private static final Color SELECTION_COLOR = new Color(0, 120, 215);
+
+    /**
+     * Color of frame around object under mouse cursor.
+     */
+    private static final Color HOVER_COLOR = Color.GRAY;
+
+    /**
+     * Maximal number of objects whose highlights are repainted separately
+     * when selection changes, otherwise whole canvas is repainted.
+     */
+    private static final int MAX_HIGHLIGHT_REPAINTS = 1024;
+
     /**
      * {@code DrawingModel} which holds {@code GeometricalObject}s which are
      * being painted on this canvas.
@@ -76,6 +137,92 @@ public class JDrawingCanvas extends JComponent implements DrawingModelListener,
      */
     private Color backgroundColor;
 
+    /**
+     * Off-screen image which holds already painted {@code GeometricalObject}s
+     * from {@code DrawingModel}. Temporary object which is being drawn is
+     * painted over this image, so model does not have to be painted again on
+     * every mouse move. Image has resolution of the screen, so on scaled
+     * displays it is larger than this component.
+     */
+    private BufferedImage committedLayer;
+
+    /**
+     * Horizontal scale from coordinates of this component to pixels of
+     * {@linkplain #committedLayer}.
+     */
+    private double layerScaleX = 1;
+
+    /**
+     * Vertical scale from coordinates of this component to pixels of
+     * {@linkplain #committedLayer}.
+     */
+    private double layerScaleY = 1;
+
+    /**
+     * Area of {@linkplain #committedLayer} which does not reflect current
+     * state of {@code DrawingModel} and has to be painted again, or
+     * {@code null} if layer is up to date.
+     */
+    private Rectangle committedLayerDirtyArea;
+
+    /**
+     * Bounding boxes of {@code GeometricalObject}s as they were last painted,
+     * four values per object: {@code x, y, width, height}. They are used for
+     * determining which area has to be repainted when some object changes or
+     * is removed from the model.
+     */
+    private int[] objectBounds = new int[64];
+
+    /**
+     * Number of objects whose bounding boxes are stored in
+     * {@linkplain #objectBounds}.
+     */
+    private int objectCount;
+
+    /**
+     * Indicates if level of detail is being reduced where it is not visible.
+     */
+    private boolean levelOfDetail = true;
+
+    /**
+     * Tiles of {@linkplain #committedLayer} which were painted at low level
+     * of detail, indexed by {@linkplain #tileIndex(int, int)}.
+     */
+    private BitSet denseTiles = new BitSet();
+
+    /**
+     * Tiles of {@linkplain #committedLayer} whose level of detail is stored
+     * in {@linkplain #denseTiles}.
+     */
+    private BitSet paintedTiles = new BitSet();
+
+    /**
+     * Model which holds positions of selected {@code GeometricalObject}s.
+     */
+    private ListSelectionModel selectionModel;
+
+    /**
+     * Listener which repaints highlights when selection changes.
+     */
+    private ListSelectionListener selectionListener = e -> {
+        int index0 = Math.max(e.getFirstIndex(), 0);
+        int index1 = Math.min(e.getLastIndex(), objectCount - 1);
+
+        if (index1 - index0 > MAX_HIGHLIGHT_REPAINTS) {
+            repaint();
+            return;
+        }
+        for (int index = index0; index <= index1; index++) {
+            repaintHighlight(index);
+        }
+    };
+
+    /**
+     * Position of {@code GeometricalObject} under mouse cursor, or -1 if there
+     * is no such object.
+     */
+    private int hoveredIndex = -1;
+
     /**
      * Creates new {@code JDrawingCanvas} with specified {@code DrawingModel}.
      * {@code GeometricalObject} which are defined by specified model are being
@@ -90,9 +237,15 @@ public class JDrawingCanvas extends JComponent implements DrawingModelListener,
         this.drawingModel = drawingModel;
         this.drawingModel.addDrawingModelListener(this);
 
+        if (drawingModel.getSize() > 0) {
+            objectsAdded(drawingModel, 0, drawingModel.getSize() - 1);
+        }
+
         this.foregroundColor = Color.RED;
         this.backgroundColor = Color.BLUE;
 
+        setSelectionModel(new DefaultListSelectionModel());
+
         addMouseListener(new MouseAdapter() {
 
             @Override
@@ -102,16 +255,24 @@ public class JDrawingCanvas extends JComponent implements DrawingModelListener,
                     if (!mouseClicked) {
                         // First click occurred
                         startPoint = e.getPoint();
-                    } else {
+                    } else if (endPoint != null) {
                         // Second click occurred, save object
                         drawingModel.add(drawer.getCurrentObject());
                         endPoint = null;
                     }
 
                     mouseClicked = !mouseClicked;
+                } else {
+                    // Without drawer, clicks select objects
+                    select(getObjectAt(e.getPoint()), e.isControlDown());
                 }
             }
 
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHoveredIndex(-1);
+            }
+
         });
 
         addMouseMotionListener(new MouseMotionAdapter() {
@@ -119,15 +280,40 @@ public class JDrawingCanvas extends JComponent implements DrawingModelListener,
             @Override
             public void mouseMoved(MouseEvent e) {
                 if (mouseClicked && drawer != null) {
+                    // Repaint only area of previous and current temporary
+                    // object
+                    Rectangle area = null;
+                    if (endPoint != null) {
+                        area = drawer.getCurrentObject().getBoundingBox();
+                    }
+
                     // Define new end point
                     endPoint = e.getPoint();
-                    repaint();
+                    drawer.update(startPoint, endPoint, foregroundColor,
+                            backgroundColor);
+
+                    Rectangle box = drawer.getCurrentObject().getBoundingBox();
+                    area = area == null ? box : area.union(box);
+                    area.grow(1, 1);
+                    repaint(area);
+                } else if (drawer == null) {
+                    setHoveredIndex(getObjectAt(e.getPoint()));
                 }
             }
 
         });
     }
 
+    /**
+     * Returns current {@code GeometricalObjectDrawer} of this
+     * {@code JDrawingCanvas}.
+     * 
+     * @return Current drawer, or {@code null} if objects are not being drawn
+     */
+    public GeometricalObjectDrawer getCurrentDrawer() {
+        return drawer;
+    }
+
     /**
      * Sets specified {@code GeometricalObjectDrawer} to be current drawer for
      * this {@code JDrawingCanvas}. It is used for drawing objects when mouse is
@@ -138,26 +324,394 @@ public class JDrawingCanvas extends JComponent implements DrawingModelListener,
      */
     public void setCurrentDrawer(GeometricalObjectDrawer drawer) {
         this.drawer = drawer;
+
+        if (drawer == null) {
+            // Discard unfinished object
+            mouseClicked = false;
+            endPoint = null;
+            repaint();
+        } else {
+            setHoveredIndex(-1);
+        }
+    }
+
+    /**
+     * Sets model which holds positions of selected {@code GeometricalObject}s.
+     * Selected objects are highlighted on this canvas, and when there is no
+     * current drawer, objects can be selected by clicking on them. Model can
+     * be shared with a {@code JList} which shows the same objects, so
+     * selection is the same in both components.
+     * 
+     * @param selectionModel
+     *            Model of selected objects
+     */
+    public void setSelectionModel(ListSelectionModel selectionModel) {
+        if (this.selectionModel != null) {
+            this.selectionModel.removeListSelectionListener(selectionListener);
+        }
+
+        this.selectionModel = selectionModel;
+        selectionModel.addListSelectionListener(selectionListener);
+        repaint();
+    }
+
+    /**
+     * Returns model which holds positions of selected
+     * {@code GeometricalObject}s.
+     * 
+     * @return Model of selected objects
+     */
+    public ListSelectionModel getSelectionModel() {
+        return selectionModel;
+    }
+
+    /**
+     * Returns position of topmost {@code GeometricalObject} under specified
+     * point of this canvas.
+     * 
+     * @param point
+     *            Point on this canvas
+     * @return Position of object, or -1 if there is no object under point
+     */
+    public int getObjectAt(Point point) {
+        return drawingModel.getObjectAt(point.x, point.y, PICK_TOLERANCE);
+    }
+
+    /**
+     * Selects object on specified position. If selection is being extended,
+     * selection of object is toggled, otherwise it becomes the only selected
+     * object. Position -1 clears selection, unless it is being extended.
+     * 
+     * @param index
+     *            Position of object, or -1
+     * @param extend
+     *            {@code true} if selection is being extended
+     */
+    private void select(int index, boolean extend) {
+        if (index < 0) {
+            if (!extend) {
+                selectionModel.clearSelection();
+            }
+        } else if (!extend) {
+            selectionModel.setSelectionInterval(index, index);
+        } else if (selectionModel.isSelectedIndex(index)) {
+            selectionModel.removeSelectionInterval(index, index);
+        } else {
+            selectionModel.addSelectionInterval(index, index);
+        }
+    }
+
+    /**
+     * Sets position of object under mouse cursor and repaints highlights of
+     * previous and new object.
+     * 
+     * @param index
+     *            Position of object, or -1 if there is no such object
+     */
+    private void setHoveredIndex(int index) {
+        if (index != hoveredIndex) {
+            repaintHighlight(hoveredIndex);
+            hoveredIndex = index;
+            repaintHighlight(hoveredIndex);
+        }
+    }
+
+    /**
+     * Returns area covered by highlight frame of object on specified
+     * position, or {@code null} if its bounds are not known.
+     * 
+     * @param index
+     *            Position of object
+     * @return Area of highlight frame, or {@code null}
+     */
+    private Rectangle highlightArea(int index) {
+        if (index < 0 || index >= objectCount) {
+            return null;
+        }
+
+        Rectangle area = storedBounds(index);
+        area.grow(HIGHLIGHT_MARGIN, HIGHLIGHT_MARGIN);
+        return area;
+    }
+
+    /**
+     * Repaints area of highlight frame of object on specified position.
+     * 
+     * @param index
+     *            Position of object, or -1
+     */
+    private void repaintHighlight(int index) {
+        Rectangle area = highlightArea(index);
+        if (area != null) {
+            repaint(area.x, area.y, area.width + 1, area.height + 1);
+        }
+    }
+
+    /**
+     * Enables or disables level of detail rendering. When it is enabled,
+     * objects whose bounding box is only a few pixels large are painted
+     * without antialiasing, and tiles of this component crowded with more
+     * objects than can be distinguished on screen, e.g. when whole huge
+     * drawing is visible, are painted without antialiasing at all. In such
+     * tiles small objects which are completely covered by later opaque
+     * objects of a single pixel are not painted. It is enabled by default.
+     * 
+     * @param levelOfDetail
+     *            {@code true} if level of detail should be reduced
+     */
+    public void setLevelOfDetail(boolean levelOfDetail) {
+        if (this.levelOfDetail != levelOfDetail) {
+            this.levelOfDetail = levelOfDetail;
+            markDirty(new Rectangle(0, 0, getWidth(), getHeight()));
+        }
+    }
+
+    /**
+     * Checks if level of detail rendering is enabled, see
+     * {@linkplain #setLevelOfDetail(boolean)}.
+     * 
+     * @return {@code true} if level of detail is being reduced
+     */
+    public boolean isLevelOfDetail() {
+        return levelOfDetail;
     }
 
     @Override
     public void objectsAdded(DrawingModel source, int index0, int index1) {
-        repaint();
+        // Positions of following objects are being shifted
+        if (hoveredIndex >= index0) {
+            setHoveredIndex(-1);
+        }
+
+        int count = index1 - index0 + 1;
+
+        if (4 * (objectCount + count) > objectBounds.length) {
+            objectBounds = Arrays.copyOf(objectBounds, Math.max(
+                    2 * objectBounds.length, 4 * (objectCount + count)));
+        }
+
+        // Make space for added objects
+        System.arraycopy(objectBounds, 4 * index0, objectBounds, 4 * (index0
+                + count), 4 * (objectCount - index0));
+        objectCount += count;
+
+        Rectangle area = null;
+        for (int index = index0; index <= index1; index++) {
+            Rectangle box = source.getObject(index).getBoundingBox();
+            storeBounds(index, box);
+            area = area == null ? box : area.union(box);
+        }
+
+        markDirty(area);
     }
 
     @Override
     public void objectsRemoved(DrawingModel source, int index0, int index1) {
-        repaint();
+        if (hoveredIndex >= index0) {
+            setHoveredIndex(-1);
+        }
+
+        Rectangle area = null;
+        for (int index = index0; index <= index1; index++) {
+            Rectangle box = storedBounds(index);
+            area = area == null ? box : area.union(box);
+        }
+
+        // Remove bounding boxes of removed objects
+        int count = index1 - index0 + 1;
+        System.arraycopy(objectBounds, 4 * (index1 + 1), objectBounds,
+                4 * index0, 4 * (objectCount - index1 - 1));
+        objectCount -= count;
+
+        markDirty(area);
     }
 
     @Override
     public void objectsChanged(DrawingModel source, int index0, int index1) {
-        repaint();
+        Rectangle area = null;
+        for (int index = index0; index <= index1; index++) {
+            // Both old and new area of changed object have to be repainted
+            Rectangle box = source.getObject(index).getBoundingBox();
+            Rectangle changed = storedBounds(index).union(box);
+            storeBounds(index, box);
+            area = area == null ? changed : area.union(changed);
+        }
+
+        markDirty(area);
+    }
+
+    /**
+     * Stores bounding box of {@code GeometricalObject} on specified position,
+     * as it is being painted on this canvas.
+     * 
+     * @param index
+     *            Position of object
+     * @param box
+     *            Bounding box of object
+     */
+    private void storeBounds(int index, Rectangle box) {
+        objectBounds[4 * index] = box.x;
+        objectBounds[4 * index + 1] = box.y;
+        objectBounds[4 * index + 2] = box.width;
+        objectBounds[4 * index + 3] = box.height;
+    }
+
+    /**
+     * Returns bounding box of {@code GeometricalObject} on specified position,
+     * as it was last painted on this canvas.
+     * 
+     * @param index
+     *            Position of object
+     * @return Bounding box of object
+     */
+    private Rectangle storedBounds(int index) {
+        return new Rectangle(objectBounds[4 * index],
+                objectBounds[4 * index + 1], objectBounds[4 * index + 2],
+                objectBounds[4 * index + 3]);
+    }
+
+    /**
+     * Marks specified area of this canvas as one which does not reflect
+     * current state of {@code DrawingModel}. Only this area is repainted.
+     * 
+     * @param area
+     *            Changed area, can be {@code null}
+     */
+    private void markDirty(Rectangle area) {
+        if (area == null || area.isEmpty()) {
+            return;
+        }
+
+        // Antialiased edges can spill one pixel outside object's bounding box
+        area.grow(1, 1);
+
+        if (committedLayerDirtyArea == null) {
+            committedLayerDirtyArea = area;
+        } else {
+            committedLayerDirtyArea = committedLayerDirtyArea.union(area);
+        }
+
+        // Highlight frames of changed objects have to be repainted as well
+        repaint(area.x - HIGHLIGHT_MARGIN, area.y - HIGHLIGHT_MARGIN,
+                area.width + 2 * HIGHLIGHT_MARGIN + 1, area.height + 2
+                        * HIGHLIGHT_MARGIN + 1);
     }
 
     @Override
     public void paintComponent(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        // Layer covers all device pixels of this component, so it is not
+        // blurred by scaling on HiDPI displays
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        double scaleX = 1;
+        double scaleY = 1;
+        if (configuration != null) {
+            AffineTransform transform = configuration.getDefaultTransform();
+            scaleX = transform.getScaleX();
+            scaleY = transform.getScaleY();
+        }
+        int layerWidth = (int) Math.ceil(width * scaleX);
+        int layerHeight = (int) Math.ceil(height * scaleY);
+
+        // Create new layer if component is resized or moved to other screen
+        if (committedLayer == null || committedLayer.getWidth() != layerWidth
+                || committedLayer.getHeight() != layerHeight
+                || layerScaleX != scaleX || layerScaleY != scaleY) {
+            if (configuration != null) {
+                committedLayer = configuration.createCompatibleImage(
+                        layerWidth, layerHeight);
+            } else {
+                committedLayer = new BufferedImage(layerWidth, layerHeight,
+                        BufferedImage.TYPE_INT_RGB);
+            }
+            layerScaleX = scaleX;
+            layerScaleY = scaleY;
+            committedLayerDirtyArea = new Rectangle(0, 0, width, height);
+            paintedTiles.clear();
+        }
+
+        if (committedLayerDirtyArea != null) {
+            paintCommittedLayer(committedLayerDirtyArea);
+            committedLayerDirtyArea = null;
+        }
+
         Graphics2D g2d = (Graphics2D) g;
+        g2d.drawImage(committedLayer, 0, 0, width, height, null);
+        paintHighlights(g2d);
+
+        // Pain temporary geometric object if mouse is moving and first click
+        // occurred
+        if (drawer != null && endPoint != null) {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_ON);
+            drawer.getCurrentObject().paint(g2d);
+        }
+    }
+
+    /**
+     * Paints frames around selected {@code GeometricalObject}s which are
+     * visible in clip area of specified {@code Graphics2D}, and around object
+     * under mouse cursor.
+     * 
+     * @param g2d
+     *            {@code Graphics2D} object on which frames are being painted
+     */
+    private void paintHighlights(Graphics2D g2d) {
+        if (!selectionModel.isSelectionEmpty()) {
+            Rectangle clip = g2d.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            clip.grow(HIGHLIGHT_MARGIN, HIGHLIGHT_MARGIN);
+
+            g2d.setColor(SELECTION_COLOR);
+            for (int index : drawingModel.getObjectsIn(clip)) {
+                if (selectionModel.isSelectedIndex(index)) {
+                    paintHighlight(g2d, index);
+                }
+            }
+        }
+
+        if (hoveredIndex >= 0
+                && !selectionModel.isSelectedIndex(hoveredIndex)) {
+            g2d.setColor(HOVER_COLOR);
+            paintHighlight(g2d, hoveredIndex);
+        }
+    }
+
+    /**
+     * Paints frame around {@code GeometricalObject} on specified position.
+     * 
+     * @param g2d
+     *            {@code Graphics2D} object on which frame is being painted
+     * @param index
+     *            Position of object
+     */
+    private void paintHighlight(Graphics2D g2d, int index) {
+        Rectangle area = highlightArea(index);
+        if (area != null) {
+            g2d.drawRect(area.x, area.y, area.width, area.height);
+        }
+    }
+
+    /**
+     * Paints all {@code GeometricalObject}s from {@code DrawingModel} which
+     * intersect specified area of this canvas into off-screen layer. Parts of
+     * this layer are being repainted only when some change in model occurs,
+     * and whole layer when size of this component changes.
+     * 
+     * @param area
+     *            Area of layer to be painted
+     */
+    private void paintCommittedLayer(Rectangle area) {
+        Graphics2D g2d = committedLayer.createGraphics();
+        g2d.scale(layerScaleX, layerScaleY);
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                 RenderingHints.VALUE_ANTIALIAS_ON);
 
@@ -170,24 +724,260 @@ public class JDrawingCanvas extends JComponent implements DrawingModelListener,
                 - insets.bottom);
 
         g2d.setColor(Color.WHITE);
-        g2d.fillRect(rectangle.x, rectangle.y, rectangle.width,
-                rectangle.height);
+        g2d.fillRect(area.x, area.y, area.width, area.height);
+
+        // Paint only geometric objects which are visible in changed area,
+        // antialiased edges can spill one pixel outside object's bounding box
+        g2d.clip(rectangle);
+        Rectangle visible = area.intersection(rectangle);
+        if (visible.isEmpty()) {
+            g2d.dispose();
+            return;
+        }
+
+        if (levelOfDetail) {
+            paintTiles(g2d, visible, rectangle);
+        } else {
+            g2d.clip(area);
+            visible.grow(1, 1);
+            paintObjects(g2d, drawingModel.getObjectsIn(visible));
+        }
 
-        int numberOfObjects = drawingModel.getSize();
+        g2d.dispose();
+    }
 
-        // Paint all geometric objects which are drawn on this canvas
-        for (int index = 0; index < numberOfObjects; index++) {
-            drawingModel.getObject(index).paintComponent(g2d);
+    /**
+     * Paints {@code GeometricalObject}s in specified area tile by tile.
+     * Level of detail of every tile is chosen by number of objects in the
+     * whole tile, so a tile looks the same whether it is painted whole or
+     * only its part is repainted. Tiles at low level of detail are always
+     * painted whole, as well as tiles whose level of detail changes.
+     * 
+     * @param g2d
+     *            {@code Graphics2D} object on which objects are being painted
+     * @param area
+     *            Area to be painted
+     * @param bounds
+     *            Area of this component in which objects are painted
+     */
+    private void paintTiles(Graphics2D g2d, Rectangle area, Rectangle bounds) {
+        int firstX = Math.floorDiv(area.x, TILE_SIZE) * TILE_SIZE;
+        int firstY = Math.floorDiv(area.y, TILE_SIZE) * TILE_SIZE;
+
+        for (int y = firstY; y < area.y + area.height; y += TILE_SIZE) {
+            for (int x = firstX; x < area.x + area.width; x += TILE_SIZE) {
+                Rectangle tile = new Rectangle(x, y, TILE_SIZE, TILE_SIZE)
+                        .intersection(bounds);
+                Rectangle painted = tile.intersection(area);
+                if (painted.isEmpty()) {
+                    continue;
+                }
+
+                // Antialiased edges can spill one pixel outside object's
+                // bounding box
+                Rectangle query = new Rectangle(tile);
+                query.grow(1, 1);
+                int[] indices = drawingModel.getObjectsIn(query);
+                boolean dense = indices.length > DENSE_OBJECTS_PER_PIXEL
+                        * tile.width * tile.height;
+
+                // Pixels of objects painted without antialiasing depend on
+                // clip, so such tiles are always painted whole
+                int tileIndex = tileIndex(x, y);
+                if (paintedTiles.get(tileIndex)
+                        && denseTiles.get(tileIndex) != dense) {
+                    painted = tile;
+                    repaint(tile);
+                } else if (dense) {
+                    painted = tile;
+                }
+                paintedTiles.set(tileIndex);
+                denseTiles.set(tileIndex, dense);
+
+                Graphics2D tileGraphics = (Graphics2D) g2d.create();
+                tileGraphics.clip(painted);
+                tileGraphics.fillRect(painted.x, painted.y, painted.width,
+                        painted.height);
+                if (dense) {
+                    paintDenseObjects(tileGraphics, indices, tile);
+                } else {
+                    paintObjects(tileGraphics, indices);
+                }
+                tileGraphics.dispose();
+            }
         }
+    }
 
-        // Pain temporary geometric object if mouse is moving and first click
-        // occurred
-        if (drawer != null && endPoint != null) {
-            drawer.draw(g2d, startPoint, endPoint, foregroundColor,
-                    backgroundColor);
+    /**
+     * Paints {@code GeometricalObject}s on specified positions with
+     * antialiasing. If level of detail rendering is enabled, small objects
+     * are painted without antialiasing.
+     * 
+     * @param g2d
+     *            {@code Graphics2D} object on which objects are being painted
+     * @param indices
+     *            Positions of objects to be painted
+     */
+    private void paintObjects(Graphics2D g2d, int[] indices) {
+        boolean antialiasing = true;
+
+        for (int index : indices) {
+            boolean small = levelOfDetail && isSmall(index);
+
+            if (small == antialiasing) {
+                antialiasing = !small;
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                        antialiasing ? RenderingHints.VALUE_ANTIALIAS_ON
+                                : RenderingHints.VALUE_ANTIALIAS_OFF);
+            }
+
+            drawingModel.paintObject(index, g2d);
         }
     }
 
+    /**
+     * Returns index of tile with specified upper left corner, which is used
+     * in {@linkplain #denseTiles} and {@linkplain #paintedTiles}.
+     * 
+     * @param x
+     *            X-coordinate of tile
+     * @param y
+     *            Y-coordinate of tile
+     * @return Index of tile
+     */
+    private int tileIndex(int x, int y) {
+        int columns = getWidth() / TILE_SIZE + 1;
+        return y / TILE_SIZE * columns + x / TILE_SIZE;
+    }
+
+    /**
+     * Paints {@code GeometricalObject}s on specified positions in area which
+     * is crowded with more of them than can be distinguished, without
+     * antialiasing. Without antialiasing small object is painted only inside
+     * its bounding box and object of a single pixel paints exactly that
+     * pixel. Small object whose every pixel is painted by later opaque
+     * objects of a single pixel would not be visible, so it is not painted,
+     * which does not change painted image. This holds only if one pixel of
+     * this component is one pixel of the layer, otherwise all objects are
+     * painted.
+     * 
+     * @param g2d
+     *            {@code Graphics2D} object on which objects are being painted
+     * @param indices
+     *            Positions of objects to be painted, in ascending order
+     * @param area
+     *            Area in which objects are being painted
+     */
+    private void paintDenseObjects(Graphics2D g2d, int[] indices,
+            Rectangle area) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_OFF);
+
+        BitSet hidden = new BitSet(indices.length);
+        if (layerScaleX == 1 && layerScaleY == 1) {
+            BitSet covered = new BitSet(area.width * area.height);
+
+            // Topmost object is the last one, so objects are visited
+            // backwards
+            for (int i = indices.length - 1; i >= 0; i--) {
+                int index = indices[i];
+                if (!isSmall(index)) {
+                    continue;
+                }
+
+                int x = objectBounds[4 * index] - area.x;
+                int y = objectBounds[4 * index + 1] - area.y;
+                int width = objectBounds[4 * index + 2];
+                int height = objectBounds[4 * index + 3];
+                if (x < 0 || y < 0 || x + width > area.width
+                        || y + height > area.height) {
+                    continue;
+                }
+
+                if (isCovered(covered, area.width, x, y, width, height)) {
+                    hidden.set(i);
+                } else if (width == 1 && height == 1
+                        && isOpaque(drawingModel.getObject(index))) {
+                    covered.set(y * area.width + x);
+                }
+            }
+        }
+
+        for (int i = hidden.nextClearBit(0); i < indices.length; i = hidden
+                .nextClearBit(i + 1)) {
+            drawingModel.paintObject(indices[i], g2d);
+        }
+    }
+
+    /**
+     * Checks if all pixels of specified rectangle are set in specified
+     * {@code BitSet} of pixels, which are stored row by row.
+     * 
+     * @param pixels
+     *            Set pixels of an area
+     * @param stride
+     *            Width of the area
+     * @param x
+     *            X-coordinate of rectangle inside the area
+     * @param y
+     *            Y-coordinate of rectangle inside the area
+     * @param width
+     *            Width of rectangle
+     * @param height
+     *            Height of rectangle
+     * @return {@code true} if all pixels of rectangle are set
+     */
+    private static boolean isCovered(BitSet pixels, int stride, int x, int y,
+            int width, int height) {
+        for (int row = y; row < y + height; row++) {
+            int first = row * stride + x;
+            if (pixels.nextClearBit(first) < first + width) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if specified {@code GeometricalObject} of a single pixel paints
+     * that pixel with opaque color, i.e. if it hides objects below it. Only
+     * outline of filled circle is painted at that size.
+     * 
+     * @param object
+     *            Checked object
+     * @return {@code true} if object is painted with opaque color
+     */
+    private static boolean isOpaque(GeometricalObject object) {
+        Color color;
+        if (object instanceof Line) {
+            color = ((Line) object).getColor();
+        } else if (object instanceof Circle) {
+            color = ((Circle) object).getColor();
+        } else if (object instanceof FilledCircle) {
+            color = ((FilledCircle) object).getOutlineColor();
+        } else {
+            return false;
+        }
+
+        return color.getAlpha() == 255;
+    }
+
+    /**
+     * Checks if {@code GeometricalObject} on specified position covers only a
+     * few pixels, i.e. if its bounding box is at most
+     * {@value #SMALL_OBJECT_SIZE} pixels wide and high.
+     * 
+     * @param index
+     *            Position of object
+     * @return {@code true} if object is small
+     */
+    private boolean isSmall(int index) {
+        // Bounds of objects added in current batch are not yet stored
+        return index < objectCount
+                && objectBounds[4 * index + 2] <= SMALL_OBJECT_SIZE
+                && objectBounds[4 * index + 3] <= SMALL_OBJECT_SIZE;
+    }
+
     @Override
     public void newColorSelected(IColorProvider source, Color oldColor,
             Color newColor) {
@@ -0,0 +1,503 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * {@code SpatialGrid} is a uniform grid spatial index which is used by
+ * {@code DrawingModel} implementations for fast retrieval of objects which
+ * intersect some area, e.g. visible part of {@code JDrawingCanvas}. Every
+ * object is identified by its position in the model and described by its
+ * bounding box. Plane is divided in square cells and every object is
+ * registered in all cells its bounding box covers. Objects which cover too
+ * many cells are kept in a separate collection which is always checked.
+ * Insertion and removal renumber only cells which hold objects on changed
+ * positions or after them, other cells are skipped by their largest
+ * position. Undoing or redoing an edit near the end of a large drawing
+ * therefore costs as much as the edit and one check per cell, regardless
+ * of number of registered objects.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+class SpatialGrid {
+
+    /**
+     * Binary logarithm of cell size, cells are 256 x 256 pixels.
+     */
+    private static final int CELL_SHIFT = 8;
+
+    /**
+     * Maximum number of cells in which single object is being registered.
+     * Larger objects are stored in oversized collection.
+     */
+    private static final int MAX_CELLS_PER_OBJECT = 64;
+
+    /**
+     * Indices of objects registered in each non-empty cell.
+     */
+    private Map<Long, IntList> cells = new HashMap<>();
+
+    /**
+     * Indices of objects which cover too many cells.
+     */
+    private IntList oversized = new IntList();
+
+    /**
+     * Bounding boxes of all indexed objects, four values per object:
+     * {@code minX, minY, maxX, maxY}, all inclusive.
+     */
+    private int[] bounds = new int[64];
+
+    /**
+     * Number of indexed objects.
+     */
+    private int size;
+
+    /**
+     * Returns number of objects indexed by this {@code SpatialGrid}.
+     * 
+     * @return Number of indexed objects
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds new object at the end of this index. Its index is equal to the
+     * number of previously indexed objects. Bounding box coordinates are
+     * inclusive.
+     * 
+     * @param minX
+     *            Minimal x-coordinate of object's bounding box
+     * @param minY
+     *            Minimal y-coordinate of object's bounding box
+     * @param maxX
+     *            Maximal x-coordinate of object's bounding box
+     * @param maxY
+     *            Maximal y-coordinate of object's bounding box
+     */
+    public void add(int minX, int minY, int maxX, int maxY) {
+        if (4 * size == bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+
+        int index = size++;
+        setBounds(index, minX, minY, maxX, maxY);
+        register(index);
+    }
+
+    /**
+     * Updates bounding box of already indexed object on specified position.
+     * 
+     * @param index
+     *            Position of changed object
+     * @param minX
+     *            Minimal x-coordinate of object's bounding box
+     * @param minY
+     *            Minimal y-coordinate of object's bounding box
+     * @param maxX
+     *            Maximal x-coordinate of object's bounding box
+     * @param maxY
+     *            Maximal y-coordinate of object's bounding box
+     * @throws IndexOutOfBoundsException
+     *             If there is no object on specified position
+     */
+    public void update(int index, int minX, int minY, int maxX, int maxY)
+            throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+
+        // Inserted objects are not registered until their bounds are set
+        if (bounds[4 * index] <= bounds[4 * index + 2]) {
+            unregister(index);
+        }
+        setBounds(index, minX, minY, maxX, maxY);
+        register(index);
+    }
+
+    /**
+     * Makes space for specified number of objects on specified position.
+     * Positions of objects which were on that position and after it are being
+     * increased by number of inserted objects. Inserted objects are not
+     * registered in any cell until their bounding boxes are set by
+     * {@linkplain #update(int, int, int, int, int)}.
+     * 
+     * @param index
+     *            Position of first inserted object
+     * @param count
+     *            Number of inserted objects
+     * @throws IndexOutOfBoundsException
+     *             If position is not valid
+     */
+    public void insert(int index, int count) throws IndexOutOfBoundsException {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+
+        int[] mapping = new int[size - index];
+        for (int i = 0; i < mapping.length; i++) {
+            mapping[i] = index + count + i;
+        }
+
+        // Cells which hold only objects before the insertion stay unchanged
+        if (mapping.length > 0) {
+            for (IntList cell : cells.values()) {
+                if (cell.max() >= index) {
+                    cell.remap(index, mapping);
+                }
+            }
+            if (oversized.max() >= index) {
+                oversized.remap(index, mapping);
+            }
+        }
+
+        if (4 * (size + count) > bounds.length) {
+            bounds = Arrays.copyOf(bounds, Math.max(2 * bounds.length,
+                    4 * (size + count)));
+        }
+        System.arraycopy(bounds, 4 * index, bounds, 4 * (index + count),
+                4 * (size - index));
+        size += count;
+
+        // Inverted bounds mark objects which are not registered
+        for (int i = index; i < index + count; i++) {
+            bounds[4 * i] = Integer.MAX_VALUE;
+            bounds[4 * i + 1] = Integer.MAX_VALUE;
+            bounds[4 * i + 2] = Integer.MIN_VALUE;
+            bounds[4 * i + 3] = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Removes objects on all positions which are set in specified
+     * {@code BitSet}. Remaining objects keep their order and their positions
+     * are being decreased by number of removed objects before them. Bounding
+     * boxes and all cells are being compacted in a single pass.
+     * 
+     * @param removed
+     *            Positions of objects to be removed
+     */
+    public void remove(BitSet removed) {
+        int first = removed.nextSetBit(0);
+        if (first < 0 || first >= size) {
+            return;
+        }
+
+        // New position of every object from the first removed one onwards
+        int[] mapping = new int[size - first];
+        int newSize = first;
+        for (int index = first; index < size; index++) {
+            if (removed.get(index)) {
+                mapping[index - first] = -1;
+            } else {
+                mapping[index - first] = newSize;
+                System.arraycopy(bounds, 4 * index, bounds, 4 * newSize, 4);
+                newSize++;
+            }
+        }
+        size = newSize;
+
+        Iterator<IntList> iterator = cells.values().iterator();
+        while (iterator.hasNext()) {
+            IntList cell = iterator.next();
+            if (cell.max() < first) {
+                continue;
+            }
+
+            cell.remap(first, mapping);
+            if (cell.size() == 0) {
+                iterator.remove();
+            }
+        }
+        if (oversized.max() >= first) {
+            oversized.remap(first, mapping);
+        }
+    }
+
+    /**
+     * Removes all objects from this index.
+     */
+    public void clear() {
+        cells.clear();
+        oversized.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the smallest rectangle which contains bounding boxes of all
+     * indexed objects. Stored bounding boxes are being combined directly, so
+     * no objects are created while bounds are being computed.
+     * 
+     * @return Bounding box of all objects, or {@code null} if there are no
+     *         indexed objects
+     */
+    public Rectangle getBounds() {
+        if (size == 0) {
+            return null;
+        }
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+
+        for (int offset = 0, end = 4 * size; offset < end; offset += 4) {
+            minX = Math.min(minX, bounds[offset]);
+            minY = Math.min(minY, bounds[offset + 1]);
+            maxX = Math.max(maxX, bounds[offset + 2]);
+            maxY = Math.max(maxY, bounds[offset + 3]);
+        }
+
+        // Size of very large drawings is limited to the largest int
+        return new Rectangle(minX, minY, (int) Math.min(Integer.MAX_VALUE,
+                (long) maxX - minX + 1), (int) Math.min(Integer.MAX_VALUE,
+                (long) maxY - minY + 1));
+    }
+
+    /**
+     * Returns positions of all objects whose bounding box intersects specified
+     * area. Coordinates are inclusive and returned positions are sorted in
+     * ascending order, i.e. in painting order.
+     * 
+     * @param minX
+     *            Minimal x-coordinate of requested area
+     * @param minY
+     *            Minimal y-coordinate of requested area
+     * @param maxX
+     *            Maximal x-coordinate of requested area
+     * @param maxY
+     *            Maximal y-coordinate of requested area
+     * @return Sorted positions of objects which intersect specified area
+     */
+    public int[] query(int minX, int minY, int maxX, int maxY) {
+        IntList result = new IntList();
+
+        if (minX > maxX || minY > maxY) {
+            return result.toArray();
+        }
+
+        int cellMinX = minX >> CELL_SHIFT;
+        int cellMinY = minY >> CELL_SHIFT;
+        int cellMaxX = maxX >> CELL_SHIFT;
+        int cellMaxY = maxY >> CELL_SHIFT;
+
+        long cellCount = ((long) cellMaxX - cellMinX + 1)
+                * ((long) cellMaxY - cellMinY + 1);
+
+        if (cellCount <= cells.size()) {
+            for (int cellX = cellMinX; cellX <= cellMaxX; cellX++) {
+                for (int cellY = cellMinY; cellY <= cellMaxY; cellY++) {
+                    IntList cell = cells.get(key(cellX, cellY));
+                    if (cell != null) {
+                        collect(cell, cellX, cellY, minX, minY, maxX, maxY,
+                                result);
+                    }
+                }
+            }
+        } else {
+            // Requested area is larger than populated part of the plane
+            for (Map.Entry<Long, IntList> entry : cells.entrySet()) {
+                long key = entry.getKey();
+                int cellX = (int) (key >> 32);
+                int cellY = (int) key;
+
+                if (cellX >= cellMinX && cellX <= cellMaxX
+                        && cellY >= cellMinY && cellY <= cellMaxY) {
+                    collect(entry.getValue(), cellX, cellY, minX, minY, maxX,
+                            maxY, result);
+                }
+            }
+        }
+
+        for (int i = 0, n = oversized.size(); i < n; i++) {
+            int index = oversized.get(i);
+            if (intersects(index, minX, minY, maxX, maxY)) {
+                result.add(index);
+            }
+        }
+
+        int[] indices = result.toArray();
+        Arrays.sort(indices);
+        return indices;
+    }
+
+    /**
+     * Adds to the result all objects from specified cell which intersect
+     * requested area. Object which spans several cells is being reported only
+     * in the first cell shared by both object and requested area, so no
+     * duplicates are produced.
+     * 
+     * @param cell
+     *            Objects registered in current cell
+     * @param cellX
+     *            Current cell x-coordinate
+     * @param cellY
+     *            Current cell y-coordinate
+     * @param minX
+     *            Minimal x-coordinate of requested area
+     * @param minY
+     *            Minimal y-coordinate of requested area
+     * @param maxX
+     *            Maximal x-coordinate of requested area
+     * @param maxY
+     *            Maximal y-coordinate of requested area
+     * @param result
+     *            Collection of found objects
+     */
+    private void collect(IntList cell, int cellX, int cellY, int minX,
+            int minY, int maxX, int maxY, IntList result) {
+        for (int i = 0, n = cell.size(); i < n; i++) {
+            int index = cell.get(i);
+            if (!intersects(index, minX, minY, maxX, maxY)) {
+                continue;
+            }
+
+            int firstCellX = Math.max(bounds[4 * index], minX) >> CELL_SHIFT;
+            int firstCellY = Math.max(bounds[4 * index + 1], minY) >> CELL_SHIFT;
+
+            if (firstCellX == cellX && firstCellY == cellY) {
+                result.add(index);
+            }
+        }
+    }
+
+    /**
+     * Checks if bounding box of object on specified position intersects
+     * requested area.
+     * 
+     * @param index
+     *            Position of object
+     * @param minX
+     *            Minimal x-coordinate of requested area
+     * @param minY
+     *            Minimal y-coordinate of requested area
+     * @param maxX
+     *            Maximal x-coordinate of requested area
+     * @param maxY
+     *            Maximal y-coordinate of requested area
+     * @return {@code true} if object intersects requested area
+     */
+    private boolean intersects(int index, int minX, int minY, int maxX,
+            int maxY) {
+        int offset = 4 * index;
+        return bounds[offset] <= maxX && bounds[offset + 2] >= minX
+                && bounds[offset + 1] <= maxY && bounds[offset + 3] >= minY;
+    }
+
+    /**
+     * Stores normalized bounding box for object on specified position.
+     * 
+     * @param index
+     *            Position of object
+     * @param minX
+     *            Minimal x-coordinate of object's bounding box
+     * @param minY
+     *            Minimal y-coordinate of object's bounding box
+     * @param maxX
+     *            Maximal x-coordinate of object's bounding box
+     * @param maxY
+     *            Maximal y-coordinate of object's bounding box
+     */
+    private void setBounds(int index, int minX, int minY, int maxX, int maxY) {
+        int offset = 4 * index;
+        bounds[offset] = Math.min(minX, maxX);
+        bounds[offset + 1] = Math.min(minY, maxY);
+        bounds[offset + 2] = Math.max(minX, maxX);
+        bounds[offset + 3] = Math.max(minY, maxY);
+    }
+
+    /**
+     * Registers object on specified position in all cells covered by its
+     * bounding box, or in oversized collection if it covers too many cells.
+     * 
+     * @param index
+     *            Position of object
+     */
+    private void register(int index) {
+        int offset = 4 * index;
+        int cellMinX = bounds[offset] >> CELL_SHIFT;
+        int cellMinY = bounds[offset + 1] >> CELL_SHIFT;
+        int cellMaxX = bounds[offset + 2] >> CELL_SHIFT;
+        int cellMaxY = bounds[offset + 3] >> CELL_SHIFT;
+
+        long cellCount = ((long) cellMaxX - cellMinX + 1)
+                * ((long) cellMaxY - cellMinY + 1);
+
+        if (cellCount > MAX_CELLS_PER_OBJECT) {
+            oversized.add(index);
+            return;
+        }
+
+        for (int cellX = cellMinX; cellX <= cellMaxX; cellX++) {
+            for (int cellY = cellMinY; cellY <= cellMaxY; cellY++) {
+                Long key = key(cellX, cellY);
+                IntList cell = cells.get(key);
+
+                if (cell == null) {
+                    cell = new IntList();
+                    cells.put(key, cell);
+                }
+
+                cell.add(index);
+            }
+        }
+    }
+
+    /**
+     * Removes object on specified position from all cells in which it is
+     * currently registered.
+     * 
+     * @param index
+     *            Position of object
+     */
+    private void unregister(int index) {
+        int offset = 4 * index;
+        int cellMinX = bounds[offset] >> CELL_SHIFT;
+        int cellMinY = bounds[offset + 1] >> CELL_SHIFT;
+        int cellMaxX = bounds[offset + 2] >> CELL_SHIFT;
+        int cellMaxY = bounds[offset + 3] >> CELL_SHIFT;
+
+        long cellCount = ((long) cellMaxX - cellMinX + 1)
+                * ((long) cellMaxY - cellMinY + 1);
+
+        if (cellCount > MAX_CELLS_PER_OBJECT) {
+            oversized.removeValue(index);
+            return;
+        }
+
+        for (int cellX = cellMinX; cellX <= cellMaxX; cellX++) {
+            for (int cellY = cellMinY; cellY <= cellMaxY; cellY++) {
+                Long key = key(cellX, cellY);
+                IntList cell = cells.get(key);
+
+                if (cell != null) {
+                    cell.removeValue(index);
+                    if (cell.size() == 0) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates unique key for cell with specified coordinates.
+     * 
+     * @param cellX
+     *            Cell x-coordinate
+     * @param cellY
+     *            Cell y-coordinate
+     * @return Key of specified cell
+     */
+    private static Long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+}
@@ -0,0 +1,754 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * {@code UndoableDrawingModel} is a {@code DrawingModel} which adapts other
+ * model and records every change made through it, so changes can be undone
+ * and redone. Instead of copies of the whole drawing, only compact deltas are
+ * being recorded: positions of added or removed objects together with their
+ * properties, or old and new properties of changed object, all packed in
+ * primitive arrays. Undo and redo therefore cost as much as the change
+ * itself. Recorded changes are held in a bounded history whose size is
+ * limited by memory budget. When budget is exceeded, the oldest changes are
+ * being forgotten. Changes which are made directly on adapted model are not
+ * recorded, so all changes should be made through this model. The only
+ * exception are objects appended at the end of adapted model, e.g. when a
+ * document is loaded, which do not move any object of recorded changes, so
+ * they can be added directly when their addition should not be undone.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class UndoableDrawingModel implements DrawingModel {
+
+    /**
+     * Memory budget which is used if none is specified, 16 MB.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 16L << 20;
+
+    /**
+     * Number of values in which properties of single object are packed.
+     */
+    private static final int STATE_SIZE = 8;
+
+    /**
+     * Estimated size in bytes of a change without its arrays.
+     */
+    private static final int CHANGE_OVERHEAD = 64;
+
+    /**
+     * Maximal number of ranges which are restored by separate insertions.
+     * Objects removed in more ranges are restored by single insertion.
+     */
+    private static final int MAX_INSERTED_RANGES = 16;
+
+    /** Type tag of {@code Line}. */
+    private static final int LINE = 0;
+    /** Type tag of {@code Circle}. */
+    private static final int CIRCLE = 1;
+    /** Type tag of {@code FilledCircle}. */
+    private static final int FILLED_CIRCLE = 2;
+
+    /**
+     * {@code DrawingModel} which is being adapted by this model.
+     */
+    private DrawingModel drawingModel;
+
+    /**
+     * Changes which can be undone, the most recent one is the last one.
+     */
+    private Deque<Change> undoHistory = new ArrayDeque<>();
+
+    /**
+     * Changes which can be redone, the most recently undone one is the last
+     * one.
+     */
+    private Deque<Change> redoHistory = new ArrayDeque<>();
+
+    /**
+     * Listeners which are notified when history of changes is changed.
+     */
+    private List<ChangeListener> changeListeners = new ArrayList<>();
+
+    /**
+     * Maximal number of bytes which can be used by recorded changes.
+     */
+    private long memoryBudget;
+
+    /**
+     * Number of bytes used by recorded changes.
+     */
+    private long memoryUsage;
+
+    /**
+     * Creates new {@code UndoableDrawingModel} which adapts specified
+     * {@code DrawingModel} and uses default memory budget.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} to be adapted
+     */
+    public UndoableDrawingModel(DrawingModel drawingModel) {
+        this(drawingModel, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Creates new {@code UndoableDrawingModel} which adapts specified
+     * {@code DrawingModel} and uses specified memory budget.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} to be adapted
+     * @param memoryBudget
+     *            Maximal number of bytes used by recorded changes
+     * @throws IllegalArgumentException
+     *             If memory budget is negative
+     */
+    public UndoableDrawingModel(DrawingModel drawingModel, long memoryBudget)
+            throws IllegalArgumentException {
+        this.drawingModel = drawingModel;
+        setMemoryBudget(memoryBudget);
+    }
+
+    /**
+     * Returns maximal number of bytes which can be used by recorded changes.
+     * 
+     * @return Memory budget in bytes
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets maximal number of bytes which can be used by recorded changes. If
+     * recorded changes use more, the oldest ones are being forgotten.
+     * 
+     * @param memoryBudget
+     *            Memory budget in bytes
+     * @throws IllegalArgumentException
+     *             If memory budget is negative
+     */
+    public void setMemoryBudget(long memoryBudget)
+            throws IllegalArgumentException {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Invalid memory budget: "
+                    + memoryBudget);
+        }
+
+        this.memoryBudget = memoryBudget;
+        trimHistory();
+        fireHistoryChanged();
+    }
+
+    /**
+     * Returns number of bytes used by recorded changes.
+     * 
+     * @return Memory usage in bytes
+     */
+    public long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Checks if there is a change which can be undone.
+     * 
+     * @return {@code true} if {@linkplain #undo()} can be called
+     */
+    public boolean canUndo() {
+        return !undoHistory.isEmpty();
+    }
+
+    /**
+     * Checks if there is an undone change which can be redone.
+     * 
+     * @return {@code true} if {@linkplain #redo()} can be called
+     */
+    public boolean canRedo() {
+        return !redoHistory.isEmpty();
+    }
+
+    /**
+     * Undoes the most recent recorded change.
+     * 
+     * @throws IllegalStateException
+     *             If there is no change to be undone
+     */
+    public void undo() throws IllegalStateException {
+        if (undoHistory.isEmpty()) {
+            throw new IllegalStateException("Nothing to undo.");
+        }
+
+        // Change is moved before it is applied, so observers see new state
+        Change change = undoHistory.removeLast();
+        redoHistory.addLast(change);
+        change.apply(true);
+        fireHistoryChanged();
+    }
+
+    /**
+     * Redoes the most recently undone change.
+     * 
+     * @throws IllegalStateException
+     *             If there is no change to be redone
+     */
+    public void redo() throws IllegalStateException {
+        if (redoHistory.isEmpty()) {
+            throw new IllegalStateException("Nothing to redo.");
+        }
+
+        Change change = redoHistory.removeLast();
+        undoHistory.addLast(change);
+        change.apply(false);
+        fireHistoryChanged();
+    }
+
+    /**
+     * Forgets all recorded changes.
+     */
+    public void clearHistory() {
+        undoHistory.clear();
+        redoHistory.clear();
+        memoryUsage = 0;
+        fireHistoryChanged();
+    }
+
+    /**
+     * Adds listener which is notified whenever a change is recorded, undone
+     * or redone, or when recorded changes are forgotten.
+     * 
+     * @param listener
+     *            Listener to be added
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes specified listener of history of changes.
+     * 
+     * @param listener
+     *            Listener to be removed
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    @Override
+    public int getSize() {
+        return drawingModel.getSize();
+    }
+
+    @Override
+    public GeometricalObject getObject(int index) {
+        return drawingModel.getObject(index);
+    }
+
+    @Override
+    public void paintObject(int index, Graphics g) {
+        drawingModel.paintObject(index, g);
+    }
+
+    @Override
+    public int[] getObjectsIn(Rectangle area) {
+        return drawingModel.getObjectsIn(area);
+    }
+
+    @Override
+    public int getObjectAt(int x, int y, int tolerance) {
+        return drawingModel.getObjectAt(x, y, tolerance);
+    }
+
+    @Override
+    public int[] getObjectsAt(Rectangle area, int tolerance) {
+        return drawingModel.getObjectsAt(area, tolerance);
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return drawingModel.getBounds();
+    }
+
+    @Override
+    public void add(GeometricalObject object) {
+        drawingModel.add(object);
+        recordAdded(drawingModel.getSize() - 1, drawingModel.getSize() - 1);
+    }
+
+    @Override
+    public void addAll(List<? extends GeometricalObject> objects) {
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        drawingModel.addAll(objects);
+        recordAdded(drawingModel.getSize() - objects.size(),
+                drawingModel.getSize() - 1);
+    }
+
+    @Override
+    public void insert(int index, List<? extends GeometricalObject> objects)
+            throws IndexOutOfBoundsException {
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        drawingModel.insert(index, objects);
+        recordAdded(index, index + objects.size() - 1);
+    }
+
+    @Override
+    public void set(int index, GeometricalObject object) {
+        int[] states = new int[2 * STATE_SIZE];
+        encode(drawingModel.getObject(index), states, 0);
+
+        drawingModel.set(index, object);
+        encode(drawingModel.getObject(index), states, STATE_SIZE);
+
+        // Unchanged objects are not recorded
+        for (int i = 0; i < STATE_SIZE; i++) {
+            if (states[i] != states[STATE_SIZE + i]) {
+                record(new Change(Change.SET, new int[] { index, index },
+                        states));
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void remove(int index) throws IndexOutOfBoundsException {
+        removeRange(index, index);
+    }
+
+    @Override
+    public void removeRange(int index0, int index1)
+            throws IndexOutOfBoundsException {
+        if (index0 < 0 || index1 >= drawingModel.getSize() || index0 > index1) {
+            throw new IndexOutOfBoundsException("Invalid range: " + index0
+                    + " - " + index1);
+        }
+
+        int[] states = new int[STATE_SIZE * (index1 - index0 + 1)];
+        for (int index = index0; index <= index1; index++) {
+            encode(drawingModel.getObject(index), states, STATE_SIZE
+                    * (index - index0));
+        }
+
+        drawingModel.removeRange(index0, index1);
+        record(new Change(Change.REMOVE, new int[] { index0, index1 },
+                states));
+    }
+
+    @Override
+    public int removeIf(Predicate<? super GeometricalObject> filter) {
+        IntList ranges = new IntList();
+        IntList states = new IntList();
+        int[] state = new int[STATE_SIZE];
+        int[] position = new int[1];
+
+        // Predicate is tested once per object in order, so removed objects
+        // are recorded while they are being removed
+        int count = drawingModel.removeIf(object -> {
+            int index = position[0]++;
+            if (!filter.test(object)) {
+                return false;
+            }
+
+            int last = ranges.size() - 1;
+            if (last > 0 && ranges.get(last) == index - 1) {
+                ranges.set(last, index);
+            } else {
+                ranges.add(index);
+                ranges.add(index);
+            }
+
+            encode(object, state, 0);
+            for (int value : state) {
+                states.add(value);
+            }
+            return true;
+        });
+
+        if (count > 0) {
+            record(new Change(Change.REMOVE, ranges.toArray(),
+                    states.toArray()));
+        }
+        return count;
+    }
+
+    @Override
+    public DrawingModel snapshot() {
+        return drawingModel.snapshot();
+    }
+
+    @Override
+    public void beginBatch() {
+        drawingModel.beginBatch();
+    }
+
+    @Override
+    public void endBatch() throws IllegalStateException {
+        drawingModel.endBatch();
+    }
+
+    @Override
+    public void addDrawingModelListener(DrawingModelListener listener) {
+        drawingModel.addDrawingModelListener(listener);
+    }
+
+    @Override
+    public void removeDrawingModelListener(DrawingModelListener listener) {
+        drawingModel.removeDrawingModelListener(listener);
+    }
+
+    /**
+     * Records addition of objects on positions from {@code index0} to
+     * {@code index1}, both inclusive, together with their properties.
+     * 
+     * @param index0
+     *            Position of first added object
+     * @param index1
+     *            Position of last added object
+     */
+    private void recordAdded(int index0, int index1) {
+        int[] states = new int[STATE_SIZE * (index1 - index0 + 1)];
+        for (int index = index0; index <= index1; index++) {
+            encode(drawingModel.getObject(index), states, STATE_SIZE
+                    * (index - index0));
+        }
+
+        record(new Change(Change.ADD, new int[] { index0, index1 }, states));
+    }
+
+    /**
+     * Adds specified change at the end of undo history. All undone changes
+     * are being forgotten and the oldest changes are forgotten while memory
+     * budget is exceeded.
+     * 
+     * @param change
+     *            Change to be recorded
+     */
+    private void record(Change change) {
+        for (Change undone : redoHistory) {
+            memoryUsage -= undone.getMemoryUsage();
+        }
+        redoHistory.clear();
+
+        undoHistory.addLast(change);
+        memoryUsage += change.getMemoryUsage();
+        trimHistory();
+        fireHistoryChanged();
+    }
+
+    /**
+     * Forgets the oldest recorded changes while memory budget is exceeded.
+     */
+    private void trimHistory() {
+        while (memoryUsage > memoryBudget && !undoHistory.isEmpty()) {
+            memoryUsage -= undoHistory.removeFirst().getMemoryUsage();
+        }
+
+        // Redo is possible only if all changes before it can be undone
+        if (memoryUsage > memoryBudget) {
+            undoHistory.clear();
+            redoHistory.clear();
+            memoryUsage = 0;
+        }
+    }
+
+    /**
+     * Notifies all listeners that history of changes is changed.
+     */
+    private void fireHistoryChanged() {
+        ChangeEvent event = new ChangeEvent(this);
+        for (ChangeListener listener : changeListeners) {
+            listener.stateChanged(event);
+        }
+    }
+
+    /**
+     * Packs properties of specified {@code GeometricalObject} in specified
+     * array: type tag, four coordinates, two ARGB colors and serial number.
+     * 
+     * @param object
+     *            {@code GeometricalObject} to be packed
+     * @param states
+     *            Array in which properties are being stored
+     * @param offset
+     *            Position of first stored value
+     * @throws IllegalArgumentException
+     *             If specified object is not supported
+     */
+    private static void encode(GeometricalObject object, int[] states,
+            int offset) throws IllegalArgumentException {
+        if (object instanceof Line) {
+            Line line = (Line) object;
+            states[offset] = LINE;
+            states[offset + 1] = line.getStartX();
+            states[offset + 2] = line.getStartY();
+            states[offset + 3] = line.getEndX();
+            states[offset + 4] = line.getEndY();
+            states[offset + 5] = line.getColor().getRGB();
+            states[offset + 6] = 0;
+        } else if (object instanceof Circle) {
+            Circle circle = (Circle) object;
+            states[offset] = CIRCLE;
+            states[offset + 1] = circle.getCenterX();
+            states[offset + 2] = circle.getCenterY();
+            states[offset + 3] = circle.getRadius();
+            states[offset + 4] = 0;
+            states[offset + 5] = circle.getColor().getRGB();
+            states[offset + 6] = 0;
+        } else if (object instanceof FilledCircle) {
+            FilledCircle circle = (FilledCircle) object;
+            states[offset] = FILLED_CIRCLE;
+            states[offset + 1] = circle.getCenterX();
+            states[offset + 2] = circle.getCenterY();
+            states[offset + 3] = circle.getRadius();
+            states[offset + 4] = 0;
+            states[offset + 5] = circle.getOutlineColor().getRGB();
+            states[offset + 6] = circle.getAreaColor().getRGB();
+        } else {
+            throw new IllegalArgumentException("Unsupported object: "
+                    + object);
+        }
+
+        states[offset + 7] = object.getIndex();
+    }
+
+    /**
+     * Creates new {@code GeometricalObject} from properties packed by
+     * {@linkplain #encode(GeometricalObject, int[], int)}.
+     * 
+     * @param states
+     *            Array in which properties are stored
+     * @param offset
+     *            Position of first stored value
+     * @return New {@code GeometricalObject}
+     */
+    private static GeometricalObject decode(int[] states, int offset) {
+        GeometricalObject object;
+
+        switch (states[offset]) {
+            case LINE:
+                object = new Line(states[offset + 1], states[offset + 2],
+                        states[offset + 3], states[offset + 4], new Color(
+                                states[offset + 5], true));
+                break;
+            case CIRCLE:
+                object = new Circle(states[offset + 1], states[offset + 2],
+                        states[offset + 3], new Color(states[offset + 5],
+                                true));
+                break;
+            default:
+                object = new FilledCircle(states[offset + 1],
+                        states[offset + 2], states[offset + 3], new Color(
+                                states[offset + 5], true), new Color(
+                                states[offset + 6], true));
+                break;
+        }
+
+        if (states[offset + 7] > 0) {
+            object.setIndex(states[offset + 7]);
+        }
+        return object;
+    }
+
+    /**
+     * {@code Change} is a single recorded change of adapted
+     * {@code DrawingModel}. Addition and removal are described by inclusive
+     * ranges of positions which objects have while they are in the model,
+     * in ascending order, and by packed properties of these objects. Change
+     * of an object is described by its position and by its old and new
+     * packed properties.
+     * 
+     * @author Domagoj Penic
+     * @version 4.6.2015.
+     *
+     */
+    private class Change {
+
+        /** Kind of change in which objects are added. */
+        static final int ADD = 0;
+        /** Kind of change in which objects are removed. */
+        static final int REMOVE = 1;
+        /** Kind of change in which an object is replaced. */
+        static final int SET = 2;
+
+        /**
+         * Kind of this change.
+         */
+        private int kind;
+
+        /**
+         * Pairs of first and last position of every range of affected
+         * objects.
+         */
+        private int[] ranges;
+
+        /**
+         * Packed properties of affected objects.
+         */
+        private int[] states;
+
+        /**
+         * Creates new {@code Change} of specified kind.
+         * 
+         * @param kind
+         *            Kind of change
+         * @param ranges
+         *            Ranges of positions of affected objects
+         * @param states
+         *            Packed properties of affected objects
+         */
+        public Change(int kind, int[] ranges, int[] states) {
+            this.kind = kind;
+            this.ranges = ranges;
+            this.states = states;
+        }
+
+        /**
+         * Returns estimated number of bytes used by this change.
+         * 
+         * @return Memory usage in bytes
+         */
+        public long getMemoryUsage() {
+            return CHANGE_OVERHEAD + 4L * (ranges.length + states.length);
+        }
+
+        /**
+         * Applies this change, or its inverse, on adapted model.
+         * 
+         * @param inverse
+         *            {@code true} if change is being undone
+         */
+        public void apply(boolean inverse) {
+            if (kind == SET) {
+                drawingModel.set(ranges[0], decode(states, inverse ? 0
+                        : STATE_SIZE));
+            } else if ((kind == ADD) == inverse) {
+                removeRanges();
+            } else {
+                insertRanges();
+            }
+        }
+
+        /**
+         * Removes all objects in ranges of this change from adapted model.
+         */
+        private void removeRanges() {
+            if (ranges.length == 2) {
+                drawingModel.removeRange(ranges[0], ranges[1]);
+                return;
+            }
+
+            BitSet removed = new BitSet();
+            for (int i = 0; i < ranges.length; i += 2) {
+                removed.set(ranges[i], ranges[i + 1] + 1);
+            }
+
+            int[] position = new int[1];
+            drawingModel.removeIf(object -> removed.get(position[0]++));
+        }
+
+        /**
+         * Inserts all objects of this change back on their positions in
+         * adapted model. If there are too many ranges, all objects from the
+         * first range onwards are removed and inserted again, merged with
+         * restored objects, so restoring takes linear time.
+         */
+        private void insertRanges() {
+            if (ranges.length > 2 * MAX_INSERTED_RANGES) {
+                insertMerged();
+                return;
+            }
+
+            drawingModel.beginBatch();
+            try {
+                int offset = 0;
+                for (int i = 0; i < ranges.length; i += 2) {
+                    int count = ranges[i + 1] - ranges[i] + 1;
+                    drawingModel.insert(ranges[i],
+                            decodeObjects(offset, count));
+                    offset += STATE_SIZE * count;
+                }
+            } finally {
+                drawingModel.endBatch();
+            }
+        }
+
+        /**
+         * Restores all objects of this change by single insertion, as
+         * described in {@linkplain #insertRanges()}.
+         */
+        private void insertMerged() {
+            int first = ranges[0];
+            int size = drawingModel.getSize();
+            int restored = states.length / STATE_SIZE;
+            List<GeometricalObject> merged = new ArrayList<>(size - first
+                    + restored);
+
+            int next = first;
+            int offset = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                // Objects which stayed in model between two ranges
+                while (merged.size() + first < ranges[i]) {
+                    merged.add(drawingModel.getObject(next++));
+                }
+
+                int count = ranges[i + 1] - ranges[i] + 1;
+                merged.addAll(decodeObjects(offset, count));
+                offset += STATE_SIZE * count;
+            }
+            while (next < size) {
+                merged.add(drawingModel.getObject(next++));
+            }
+
+            drawingModel.beginBatch();
+            try {
+                if (first < size) {
+                    drawingModel.removeRange(first, size - 1);
+                }
+                drawingModel.insert(first, merged);
+            } finally {
+                drawingModel.endBatch();
+            }
+        }
+
+        /**
+         * Creates objects from specified number of packed properties of this
+         * change.
+         * 
+         * @param offset
+         *            Position of first packed value
+         * @param count
+         *            Number of objects
+         * @return New {@code GeometricalObject}s
+         */
+        private List<GeometricalObject> decodeObjects(int offset,
+                int count) {
+            List<GeometricalObject> objects = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                objects.add(decode(states, offset + STATE_SIZE * i));
+            }
+            return objects;
+        }
+
+    }
+
+}
@@ -1,9 +1,9 @@
 package hr.fer.zemris.java.hw12.jvdraw.drawer;
 
 import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
 
 import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.Point;
 
 /**
@@ -21,13 +21,10 @@ import java.awt.Point;
 public class CircleDrawer extends GeometricalObjectDrawer {
 
     @Override
-    public void draw(Graphics graphics, Point startPoint, Point endPoint,
+    protected GeometricalObject createObject(Point startPoint, Point endPoint,
             Color foregroundColor, Color backgroundColor) {
         int radius = (int) startPoint.distance(endPoint);
-        currentObject = new Circle(startPoint.x, startPoint.y, radius,
-                foregroundColor);
-
-        currentObject.paintComponent(graphics);
+        return new Circle(startPoint.x, startPoint.y, radius, foregroundColor);
     }
 
 }
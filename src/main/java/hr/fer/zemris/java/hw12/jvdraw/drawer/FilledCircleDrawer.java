@@ -1,9 +1,9 @@
 package hr.fer.zemris.java.hw12.jvdraw.drawer;
 
 import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
 
 import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.Point;
 
 /**
@@ -21,13 +21,11 @@ import java.awt.Point;
 public class FilledCircleDrawer extends GeometricalObjectDrawer {
 
     @Override
-    public void draw(Graphics graphics, Point startPoint, Point endPoint,
+    protected GeometricalObject createObject(Point startPoint, Point endPoint,
             Color foregroundColor, Color backgroundColor) {
         int radius = (int) startPoint.distance(endPoint);
-        currentObject = new FilledCircle(startPoint.x, startPoint.y, radius,
+        return new FilledCircle(startPoint.x, startPoint.y, radius,
                 foregroundColor, backgroundColor);
-
-        currentObject.paintComponent(graphics);
     }
 
 }
@@ -9,7 +9,7 @@ import java.awt.Point;
 /**
  * {@code GeometricalObjectDrawer} is an abstract class which implementations
  * has to implement only one method,
- * {@linkplain #draw(Graphics, Point, Point, Color, Color)}, which defines which
+ * {@linkplain #createObject(Point, Point, Color, Color)}, which defines which
  * {@code GeometricalObject} is being drawn on specified {@code Graphics}
  * object. This class providers user with current {@code GeometricalObject}
  * which was last drawn by this object.
@@ -26,6 +26,44 @@ public abstract class GeometricalObjectDrawer {
      */
     protected GeometricalObject currentObject;
 
+    /**
+     * Creates concrete {@code GeometricalObject} specified by this
+     * {@code GeometricalObjectDrawer} based on mouse starting point and mouse
+     * current point.
+     * 
+     * @param startPoint
+     *            Mouse starting point
+     * @param endPoint
+     *            Mouse ending point
+     * @param foregroundColor
+     *            Foreground {@code Color}
+     * @param backgroundColor
+     *            Background {@code Color}
+     * @return Created {@code GeometricalObject}
+     */
+    protected abstract GeometricalObject createObject(Point startPoint,
+            Point endPoint, Color foregroundColor, Color backgroundColor);
+
+    /**
+     * Updates current {@code GeometricalObject} based on mouse starting point
+     * and mouse current point, without drawing it. Updated object can be
+     * reached by {@linkplain #getCurrentObject()} method.
+     * 
+     * @param startPoint
+     *            Mouse starting point
+     * @param endPoint
+     *            Mouse ending point
+     * @param foregroundColor
+     *            Foreground {@code Color}
+     * @param backgroundColor
+     *            Background {@code Color}
+     */
+    public void update(Point startPoint, Point endPoint, Color foregroundColor,
+            Color backgroundColor) {
+        currentObject = createObject(startPoint, endPoint, foregroundColor,
+                backgroundColor);
+    }
+
     /**
      * Draws concrete {@code GeometricalObject} specified by this
      * {@code GeometricalObjectDrawer} on specified {@code Graphics} object. It
@@ -45,14 +83,18 @@ public abstract class GeometricalObjectDrawer {
      * @param backgroundColor
      *            Background {@code Color}
      */
-    public abstract void draw(Graphics graphics, Point startPoint,
-            Point endPoint, Color foregroundColor, Color backgroundColor);
+    public void draw(Graphics graphics, Point startPoint, Point endPoint,
+            Color foregroundColor, Color backgroundColor) {
+        update(startPoint, endPoint, foregroundColor, backgroundColor);
+        currentObject.paint(graphics);
+    }
 
     /**
      * Returns current {@code GeometricalObject} drawn by this
      * {@code GeometricalObjectDrawer}. If this call is made before
-     * {@linkplain #draw(Graphics, Point, Point, Color, Color)} call, this
-     * method will return {@code null}.
+     * {@linkplain #draw(Graphics, Point, Point, Color, Color)} or
+     * {@linkplain #update(Point, Point, Color, Color)} call, this method will
+     * return {@code null}.
      * 
      * @return Currently drawn {@code GeometricalObject} by this
      *         {@code GeometricalObjectDrawer}
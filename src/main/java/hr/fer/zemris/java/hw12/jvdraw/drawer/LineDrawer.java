@@ -1,9 +1,9 @@
 package hr.fer.zemris.java.hw12.jvdraw.drawer;
 
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
 import hr.fer.zemris.java.hw12.jvdraw.object.Line;
 
 import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.Point;
 
 /**
@@ -21,11 +21,10 @@ import java.awt.Point;
 public class LineDrawer extends GeometricalObjectDrawer {
 
     @Override
-    public void draw(Graphics graphics, Point startPoint, Point endPoint,
+    protected GeometricalObject createObject(Point startPoint, Point endPoint,
             Color foregroundColor, Color backgroundColor) {
-        currentObject = new Line(startPoint.x, startPoint.y, endPoint.x,
-                endPoint.y, foregroundColor);
-        currentObject.paintComponent(graphics);
+        return new Line(startPoint.x, startPoint.y, endPoint.x, endPoint.y,
+                foregroundColor);
     }
 
 }
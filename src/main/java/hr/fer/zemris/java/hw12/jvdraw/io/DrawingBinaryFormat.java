@@ -0,0 +1,79 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import java.nio.file.Path;
+
+/**
+ * {@code DrawingBinaryFormat} defines constants of compact binary
+ * representation of drawing, which is written by {@code DrawingBinaryWriter}
+ * and read by {@code DrawingBinaryReader}. Document starts with header, which
+ * consists of four magic bytes {@code JVDB} and one byte with version of
+ * format, followed by one record for every {@code GeometricalObject}. Every
+ * record starts with one byte tag which defines type of object, followed by
+ * its coordinates as variable length integers and its colors as three bytes
+ * of red, green and blue component. Integers are being written in ZigZag
+ * encoding, so small negative numbers are also short, and then in groups of
+ * seven bits, starting with the least significant ones, where highest bit of
+ * every byte indicates that more bytes follow. Line is being stored as its
+ * start point and difference between end and start point, circles as center
+ * point and radius.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public final class DrawingBinaryFormat {
+
+    /**
+     * Extension of files which are being stored in binary format.
+     */
+    public static final String EXTENSION = "jvdb";
+
+    /**
+     * Magic bytes at the beginning of every binary drawing.
+     */
+    static final byte[] MAGIC = { 'J', 'V', 'D', 'B' };
+
+    /**
+     * Current version of binary format.
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * Size of header in bytes.
+     */
+    static final int HEADER_SIZE = MAGIC.length + 1;
+
+    /** Tag of {@code Line} record. */
+    static final byte LINE = 1;
+    /** Tag of {@code Circle} record. */
+    static final byte CIRCLE = 2;
+    /** Tag of {@code FilledCircle} record. */
+    static final byte FILLED_CIRCLE = 3;
+
+    /**
+     * Maximal size of single record in bytes: tag, four integers of at most
+     * five bytes and two colors.
+     */
+    static final int MAX_RECORD_SIZE = 1 + 4 * 5 + 2 * 3;
+
+    /**
+     * Disables creation of instances of this class.
+     */
+    private DrawingBinaryFormat() {
+    }
+
+    /**
+     * Checks if specified file should be stored in binary format, based on
+     * its extension.
+     * 
+     * @param file
+     *            File to be checked
+     * @return {@code true} if file has binary drawing extension
+     */
+    public static boolean isBinary(Path file) {
+        Path name = file.getFileName();
+        return name != null
+                && name.toString().toLowerCase().endsWith("." + EXTENSION);
+    }
+
+}
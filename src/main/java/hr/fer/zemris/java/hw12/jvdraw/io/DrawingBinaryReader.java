@@ -0,0 +1,349 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * {@code DrawingBinaryReader} reads {@code GeometricalObject}s from binary
+ * representation of drawing, in format defined by {@code DrawingBinaryFormat}.
+ * Reader does not load whole document into memory, it reads bytes from
+ * specified channel into fixed size buffer and decodes records directly from
+ * it. Objects are being returned one by one by {@linkplain #readObject()}
+ * method, so they can be added to the {@code DrawingModel} as they are being
+ * read. File can also be read by mapping it in memory, see
+ * {@linkplain #map(FileChannel)}. Since records do not have fixed size, reading
+ * can not continue after invalid record, so every error is reported as
+ * {@code IOException}.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingBinaryReader implements Closeable {
+
+    /**
+     * Size of buffer used when reading from channel.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximal size of single mapping of file which is read by memory mapping.
+     */
+    private static final long MAPPING_SIZE = 256L << 20;
+
+    /**
+     * Channel from which bytes are being read, or {@code null} if all bytes
+     * are already in buffer.
+     */
+    private ReadableByteChannel channel;
+
+    /**
+     * Buffer which holds bytes which are not yet decoded.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Number of bytes read from channel or from buffer before it was given to
+     * this reader.
+     */
+    private long bytesRead;
+
+    /**
+     * Indicates if end of channel is reached.
+     */
+    private boolean endOfChannel;
+
+    /**
+     * Indicates if header of document is already read.
+     */
+    private boolean headerRead;
+
+    /**
+     * File which is being read by memory mapping, or {@code null} if file is
+     * not mapped.
+     */
+    private FileChannel mappedFile;
+
+    /**
+     * Creates new {@code DrawingBinaryReader} which reads binary drawing from
+     * specified channel.
+     * 
+     * @param channel
+     *            Channel from which drawing is being read
+     */
+    public DrawingBinaryReader(ReadableByteChannel channel) {
+        this(channel, true);
+    }
+
+    /**
+     * Creates new {@code DrawingBinaryReader} which reads records from
+     * specified channel, with or without header of document. Reader without
+     * header is used for reading records from other files, such as journal.
+     * 
+     * @param channel
+     *            Channel from which records are being read
+     * @param header
+     *            {@code true} if records are preceded by header of document
+     */
+    DrawingBinaryReader(ReadableByteChannel channel, boolean header) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+        this.headerRead = !header;
+    }
+
+    /**
+     * Creates new {@code DrawingBinaryReader} which reads binary drawing from
+     * remaining bytes of specified buffer, for example from memory mapped
+     * file. Drawing has to start with its header.
+     * 
+     * @param buffer
+     *            Buffer from which drawing is being read
+     */
+    public DrawingBinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.bytesRead = buffer.remaining();
+        this.endOfChannel = true;
+    }
+
+    /**
+     * Creates new {@code DrawingBinaryReader} which reads binary drawing from
+     * specified file by mapping it in memory. Records are being decoded
+     * directly from mapped memory, without copying file through heap. Since
+     * single mapping is limited in size, large files are being mapped in
+     * consecutive windows, so files of any size can be read.
+     * 
+     * @param file
+     *            File from which drawing is being read
+     * @return New {@code DrawingBinaryReader} over mapped file
+     * @throws IOException
+     *             If mapping of file fails
+     */
+    public static DrawingBinaryReader map(FileChannel file) throws IOException {
+        ByteBuffer mapping;
+        try {
+            mapping = file.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(file.size(), MAPPING_SIZE));
+        } catch (IOException ex) {
+            file.close();
+            throw ex;
+        }
+
+        DrawingBinaryReader reader = new DrawingBinaryReader(mapping);
+        reader.channel = file;
+        reader.mappedFile = file;
+        reader.endOfChannel = reader.bytesRead == file.size();
+
+        return reader;
+    }
+
+    /**
+     * Returns number of bytes which were decoded by this reader.
+     * 
+     * @return Number of decoded bytes
+     */
+    public long getPosition() {
+        return bytesRead - buffer.remaining();
+    }
+
+    /**
+     * Reads next {@code GeometricalObject}. If there are no more objects,
+     * {@code null} is returned.
+     * 
+     * @return Next {@code GeometricalObject} or {@code null} if end of drawing
+     *         is reached
+     * @throws IOException
+     *             If reading from channel fails or if drawing is not valid
+     */
+    public GeometricalObject readObject() throws IOException {
+        if (!headerRead) {
+            readHeader();
+        }
+
+        if (!ensure(DrawingBinaryFormat.MAX_RECORD_SIZE)
+                && !buffer.hasRemaining()) {
+            return null;
+        }
+
+        byte tag = buffer.get();
+
+        switch (tag) {
+            case DrawingBinaryFormat.LINE: {
+                int startX = getInt();
+                int startY = getInt();
+                int endX = startX + getInt();
+                int endY = startY + getInt();
+                return new Line(startX, startY, endX, endY, getColor());
+            }
+            case DrawingBinaryFormat.CIRCLE:
+                return new Circle(getInt(), getInt(), getInt(), getColor());
+            case DrawingBinaryFormat.FILLED_CIRCLE:
+                return new FilledCircle(getInt(), getInt(), getInt(),
+                        getColor(), getColor());
+            default:
+                throw new IOException("Invalid record tag " + tag
+                        + " at position " + (getPosition() - 1) + ".");
+        }
+    }
+
+    /**
+     * Reads single byte tag.
+     * 
+     * @return Read tag or -1 if end of channel is reached
+     * @throws IOException
+     *             If reading from channel fails
+     */
+    int readTag() throws IOException {
+        if (!ensure(1)) {
+            return -1;
+        }
+
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Reads variable length integer.
+     * 
+     * @return Read integer
+     * @throws IOException
+     *             If reading from channel fails or if integer is not valid
+     */
+    int readInt() throws IOException {
+        ensure(5);
+        return getInt();
+    }
+
+    /**
+     * Reads and checks header of drawing.
+     * 
+     * @throws IOException
+     *             If reading from channel fails or if header is not valid
+     */
+    private void readHeader() throws IOException {
+        ensure(DrawingBinaryFormat.HEADER_SIZE);
+        if (buffer.remaining() < DrawingBinaryFormat.HEADER_SIZE) {
+            throw new IOException("Not a binary drawing.");
+        }
+
+        for (byte magic : DrawingBinaryFormat.MAGIC) {
+            if (buffer.get() != magic) {
+                throw new IOException("Not a binary drawing.");
+            }
+        }
+
+        byte version = buffer.get();
+        if (version != DrawingBinaryFormat.VERSION) {
+            throw new IOException("Unsupported binary drawing version: "
+                    + version + ".");
+        }
+
+        headerRead = true;
+    }
+
+    /**
+     * Decodes next variable length integer in ZigZag encoding.
+     * 
+     * @return Decoded integer
+     * @throws IOException
+     *             If integer is truncated or too long
+     */
+    private int getInt() throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new IOException("Truncated record.");
+            }
+
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+
+            if (b >= 0) {
+                return (value >>> 1) ^ -(value & 1);
+            }
+        }
+
+        throw new IOException("Invalid integer at position " + getPosition()
+                + ".");
+    }
+
+    /**
+     * Decodes next color from its red, green and blue component.
+     * 
+     * @return Decoded color
+     * @throws IOException
+     *             If color is truncated
+     */
+    private Color getColor() throws IOException {
+        if (buffer.remaining() < 3) {
+            throw new IOException("Truncated record.");
+        }
+
+        int r = buffer.get() & 0xFF;
+        int g = buffer.get() & 0xFF;
+        int b = buffer.get() & 0xFF;
+        return new Color(r, g, b);
+    }
+
+    /**
+     * Reads bytes from channel until buffer holds at least specified number
+     * of bytes or end of channel is reached.
+     * 
+     * @param count
+     *            Requested number of bytes
+     * @return {@code true} if buffer holds requested number of bytes
+     * @throws IOException
+     *             If reading from channel fails
+     */
+    private boolean ensure(int count) throws IOException {
+        if (buffer.remaining() >= count) {
+            return true;
+        }
+
+        if (endOfChannel) {
+            return false;
+        }
+
+        if (mappedFile != null) {
+            // Map next window which starts at first byte not yet decoded
+            long position = getPosition();
+            buffer = mappedFile.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(mappedFile.size() - position, MAPPING_SIZE));
+            bytesRead = position + buffer.remaining();
+            endOfChannel = bytesRead == mappedFile.size();
+
+            return buffer.remaining() >= count;
+        }
+
+        buffer.compact();
+        while (buffer.position() < count) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                endOfChannel = true;
+                break;
+            }
+
+            bytesRead += read;
+        }
+        buffer.flip();
+
+        return buffer.remaining() >= count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+}
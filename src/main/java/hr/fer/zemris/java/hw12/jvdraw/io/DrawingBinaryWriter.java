@@ -0,0 +1,206 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * {@code DrawingBinaryWriter} writes {@code GeometricalObject}s in binary
+ * format defined by {@code DrawingBinaryFormat}. Records are being encoded
+ * into fixed size buffer which is written to specified channel whenever it
+ * becomes full, so whole document is never held in memory.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingBinaryWriter implements Closeable, Flushable {
+
+    /**
+     * Size of buffer used when writing to channel.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Channel to which bytes are being written.
+     */
+    private WritableByteChannel channel;
+
+    /**
+     * Buffer which holds encoded bytes which are not yet written.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Creates new {@code DrawingBinaryWriter} which writes to specified
+     * channel. Header of document is being written immediately.
+     * 
+     * @param channel
+     *            Channel to which bytes are being written
+     */
+    public DrawingBinaryWriter(WritableByteChannel channel) {
+        this(channel, true);
+    }
+
+    /**
+     * Creates new {@code DrawingBinaryWriter} which writes to specified
+     * channel, with or without header of document. Writer without header is
+     * used for writing records in other files, such as journal.
+     * 
+     * @param channel
+     *            Channel to which bytes are being written
+     * @param header
+     *            {@code true} if header of document should be written
+     */
+    DrawingBinaryWriter(WritableByteChannel channel, boolean header) {
+        this.channel = channel;
+
+        if (header) {
+            buffer.put(DrawingBinaryFormat.MAGIC);
+            buffer.put(DrawingBinaryFormat.VERSION);
+        }
+    }
+
+    /**
+     * Writes record of specified {@code GeometricalObject}.
+     * 
+     * @param object
+     *            {@code GeometricalObject} to be written
+     * @throws IOException
+     *             If writing to channel fails
+     * @throws IllegalArgumentException
+     *             If specified object is not supported
+     */
+    public void writeObject(GeometricalObject object) throws IOException,
+            IllegalArgumentException {
+        if (buffer.remaining() < DrawingBinaryFormat.MAX_RECORD_SIZE) {
+            flushBuffer();
+        }
+
+        if (object instanceof Line) {
+            Line line = (Line) object;
+            buffer.put(DrawingBinaryFormat.LINE);
+            putInt(line.getStartX());
+            putInt(line.getStartY());
+            putInt(line.getEndX() - line.getStartX());
+            putInt(line.getEndY() - line.getStartY());
+            putColor(line.getColor().getRGB());
+        } else if (object instanceof Circle) {
+            Circle circle = (Circle) object;
+            buffer.put(DrawingBinaryFormat.CIRCLE);
+            putInt(circle.getCenterX());
+            putInt(circle.getCenterY());
+            putInt(circle.getRadius());
+            putColor(circle.getColor().getRGB());
+        } else if (object instanceof FilledCircle) {
+            FilledCircle circle = (FilledCircle) object;
+            buffer.put(DrawingBinaryFormat.FILLED_CIRCLE);
+            putInt(circle.getCenterX());
+            putInt(circle.getCenterY());
+            putInt(circle.getRadius());
+            putColor(circle.getOutlineColor().getRGB());
+            putColor(circle.getAreaColor().getRGB());
+        } else {
+            throw new IllegalArgumentException("Unsupported object: "
+                    + object);
+        }
+    }
+
+    /**
+     * Writes single byte tag.
+     * 
+     * @param tag
+     *            Tag to be written
+     * @throws IOException
+     *             If writing to channel fails
+     */
+    void writeTag(byte tag) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flushBuffer();
+        }
+
+        buffer.put(tag);
+    }
+
+    /**
+     * Writes specified integer as variable length integer.
+     * 
+     * @param value
+     *            Integer to be written
+     * @throws IOException
+     *             If writing to channel fails
+     */
+    void writeInt(int value) throws IOException {
+        if (buffer.remaining() < 5) {
+            flushBuffer();
+        }
+
+        putInt(value);
+    }
+
+    /**
+     * Encodes specified integer in ZigZag encoding as variable length
+     * integer.
+     * 
+     * @param value
+     *            Integer to be encoded
+     */
+    private void putInt(int value) {
+        int zigZag = (value << 1) ^ (value >> 31);
+
+        while ((zigZag & ~0x7F) != 0) {
+            buffer.put((byte) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+
+        buffer.put((byte) zigZag);
+    }
+
+    /**
+     * Encodes red, green and blue component of specified packed color.
+     * 
+     * @param rgb
+     *            Packed ARGB color
+     */
+    private void putColor(int rgb) {
+        buffer.put((byte) (rgb >> 16));
+        buffer.put((byte) (rgb >> 8));
+        buffer.put((byte) rgb);
+    }
+
+    /**
+     * Writes all encoded bytes from buffer to channel.
+     * 
+     * @throws IOException
+     *             If writing to channel fails
+     */
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
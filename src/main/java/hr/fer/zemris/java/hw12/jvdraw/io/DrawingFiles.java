@@ -0,0 +1,396 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.imageio.ImageIO;
+
+/**
+ * {@code DrawingFiles} provides static methods for reading drawings from
+ * files, storing them in files and exporting them as images. Format of file
+ * is defined by its extension, files with {@code .jvdb} extension are in
+ * binary format defined by {@code DrawingBinaryFormat}, other files are text.
+ * Drawing is first written to temporary file in the same directory, which is
+ * forced to the storage device and then atomically replaces requested file,
+ * so if writing fails or system crashes, old content of file stays intact.
+ * Temporary file gets permissions of replaced file.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public final class DrawingFiles {
+
+    /**
+     * Name of vector image format.
+     */
+    public static final String SVG_FORMAT = "svg";
+
+    /**
+     * Number of objects which are being added to model at once while drawing
+     * is being read.
+     */
+    private static final int BATCH_SIZE = 4096;
+
+    /**
+     * Name of raster image format whose encoder reads image row by row.
+     */
+    private static final String PNG_FORMAT = "png";
+
+    /**
+     * Maximal width and height of exported image in pixels. One row of tiles
+     * of the widest image takes 384 MB, and two rows are held while image is
+     * being encoded, the one which is read and the one rendered in advance,
+     * so export of the widest image needs 768 MB.
+     */
+    private static final int MAX_IMAGE_SIZE = 1 << 18;
+
+    /**
+     * Maximal number of pixels of image exported in format other than
+     * {@value #PNG_FORMAT}. Encoders of such formats, e.g. JPEG and GIF, copy
+     * whole image into single raster, which takes 192 MB for the largest
+     * image, in addition to two rows of tiles.
+     */
+    private static final long MAX_BUFFERED_PIXELS = 1L << 26;
+
+    /**
+     * Disables creation of instances of this class.
+     */
+    private DrawingFiles() {
+    }
+
+    /**
+     * Reads all {@code GeometricalObject}s from specified file and adds them
+     * to specified {@code DrawingModel}. Format is defined by extension of
+     * file. Invalid lines of text files are being added to specified report,
+     * and if report is strict, reading is being stopped on first of them.
+     * Observers of model are notified once, after all objects are added.
+     * 
+     * @param file
+     *            File to be read
+     * @param drawingModel
+     *            {@code DrawingModel} to which objects are being added
+     * @param report
+     *            Report to which invalid lines are being added
+     * @throws IOException
+     *             If reading of file fails or if binary file is not valid
+     */
+    public static void read(Path file, DrawingModel drawingModel,
+            ParseErrorReport report) throws IOException {
+        List<GeometricalObject> batch = new ArrayList<>(BATCH_SIZE);
+
+        drawingModel.beginBatch();
+        try {
+            if (DrawingBinaryFormat.isBinary(file)) {
+                try (DrawingBinaryReader reader = DrawingBinaryReader
+                        .map(FileChannel.open(file))) {
+                    GeometricalObject object;
+                    while ((object = reader.readObject()) != null) {
+                        addToBatch(drawingModel, batch, object);
+                    }
+                }
+            } else {
+                try (DrawingTextReader reader = new DrawingTextReader(
+                        FileChannel.open(file))) {
+                    while (true) {
+                        GeometricalObject object;
+
+                        try {
+                            object = reader.readObject();
+                        } catch (IllegalArgumentException ex) {
+                            if (!report.add(reader.getLineNumber(),
+                                    ex.getMessage())) {
+                                break;
+                            }
+                            continue;
+                        }
+
+                        if (object == null) {
+                            break;
+                        }
+                        addToBatch(drawingModel, batch, object);
+                    }
+                }
+            }
+
+            drawingModel.addAll(batch);
+        } finally {
+            drawingModel.endBatch();
+        }
+    }
+
+    /**
+     * Adds specified object to specified batch, and adds whole batch to
+     * specified {@code DrawingModel} when it is full.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} to which objects are being added
+     * @param batch
+     *            Objects which are not yet added to the model
+     * @param object
+     *            Object to be added
+     */
+    private static void addToBatch(DrawingModel drawingModel,
+            List<GeometricalObject> batch, GeometricalObject object) {
+        batch.add(object);
+
+        if (batch.size() == BATCH_SIZE) {
+            drawingModel.addAll(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Exports all {@code GeometricalObject}s from specified
+     * {@code DrawingModel} as image in specified format, e.g. {@code png},
+     * {@code jpg} or {@code gif}. Image covers bounding box of the drawing,
+     * see {@linkplain DrawingModel#getBounds()}, and is rendered in parallel
+     * by {@code TiledDrawingImage}. Only {@code png} encoder reads image row
+     * by row, encoders of other formats read whole image at once, so size of
+     * images in these formats is limited more. Format {@code svg} is written
+     * as vector image by {@code DrawingSvgWriter}, without rasterizing, so
+     * its size is not limited.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} which holds objects to be exported
+     * @param file
+     *            File to be written
+     * @param format
+     *            Informal name of image format
+     * @throws IOException
+     *             If writing of file fails
+     * @throws IllegalArgumentException
+     *             If drawing is empty or too large, or if format is not
+     *             supported
+     */
+    public static void exportImage(DrawingModel drawingModel, Path file,
+            String format) throws IOException, IllegalArgumentException {
+        Rectangle bounds = drawingModel.getBounds();
+        if (bounds == null) {
+            throw new IllegalArgumentException("Drawing is empty.");
+        }
+
+        if (format.equalsIgnoreCase(SVG_FORMAT)) {
+            writeSvg(drawingModel, file, bounds);
+            return;
+        }
+        if (bounds.width > MAX_IMAGE_SIZE || bounds.height > MAX_IMAGE_SIZE) {
+            throw new IllegalArgumentException("Drawing is too large to be "
+                    + "exported: " + bounds.width + " x " + bounds.height
+                    + " pixels.");
+        }
+        if (!format.equalsIgnoreCase(PNG_FORMAT)
+                && (long) bounds.width * bounds.height > MAX_BUFFERED_PIXELS) {
+            throw new IllegalArgumentException("Drawing is too large to be "
+                    + "exported as " + format + ": " + bounds.width + " x "
+                    + bounds.height + " pixels. Export it as " + PNG_FORMAT
+                    + " or " + SVG_FORMAT + ".");
+        }
+
+        RenderedImage image = new TiledDrawingImage(drawingModel, bounds,
+                BufferedImage.TYPE_3BYTE_BGR);
+        if (!ImageIO.write(image, format, file.toFile())) {
+            throw new IllegalArgumentException("Unsupported image format: "
+                    + format);
+        }
+    }
+
+    /**
+     * Writes all objects from specified {@code DrawingModel} to specified
+     * file as SVG document which shows specified area.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} which holds objects to be written
+     * @param file
+     *            File to be written
+     * @param area
+     *            Part of drawing shown by document
+     * @throws IOException
+     *             If writing of file fails
+     */
+    private static void writeSvg(DrawingModel drawingModel, Path file,
+            Rectangle area) throws IOException {
+        try (DrawingSvgWriter writer = new DrawingSvgWriter(
+                Files.newBufferedWriter(file, StandardCharsets.UTF_8), area)) {
+            int numberOfObjects = drawingModel.getSize();
+
+            for (int index = 0; index < numberOfObjects; index++) {
+                writer.writeObject(drawingModel.getObject(index));
+            }
+        }
+    }
+
+    /**
+     * Writes all {@code GeometricalObject}s from specified
+     * {@code DrawingModel} to specified file. Format is defined by extension
+     * of file.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} which holds objects to be written
+     * @param file
+     *            File to be written
+     * @throws IOException
+     *             If writing of file fails
+     */
+    public static void write(DrawingModel drawingModel, Path file)
+            throws IOException {
+        file = file.toAbsolutePath();
+        Path temporary = createTemporary(file);
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.WRITE)) {
+                if (DrawingBinaryFormat.isBinary(file)) {
+                    writeBinary(drawingModel, channel);
+                } else {
+                    writeText(drawingModel, channel);
+                }
+            }
+
+            move(temporary, file);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Creates empty temporary file in the directory of specified file. Unlike
+     * {@linkplain Files#createTempFile(Path, String, String,
+     * java.nio.file.attribute.FileAttribute...)}, which makes file readable by
+     * its owner only, file is created with default permissions, and if
+     * specified file exists, its permissions are copied.
+     * 
+     * @param file
+     *            File which will be replaced by temporary file
+     * @return Created temporary file
+     * @throws IOException
+     *             If creating of file fails
+     */
+    private static Path createTemporary(Path file) throws IOException {
+        Path temporary;
+        while (true) {
+            temporary = file.resolveSibling("." + file.getFileName() + "."
+                    + Long.toUnsignedString(ThreadLocalRandom.current()
+                            .nextLong()) + ".tmp");
+            try {
+                Files.createFile(temporary);
+                break;
+            } catch (FileAlreadyExistsException ex) {
+                continue;
+            }
+        }
+
+        try {
+            if (Files.exists(file) && Files.getFileStore(file)
+                    .supportsFileAttributeView(PosixFileAttributeView.class)) {
+                Files.setPosixFilePermissions(temporary,
+                        Files.getPosixFilePermissions(file));
+            }
+        } catch (IOException ex) {
+            Files.deleteIfExists(temporary);
+            throw ex;
+        }
+
+        return temporary;
+    }
+
+    /**
+     * Writes all objects from specified {@code DrawingModel} to specified
+     * channel in text format and forces them to the storage device.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} which holds objects to be written
+     * @param channel
+     *            Channel of file to be written
+     * @throws IOException
+     *             If writing of file fails
+     */
+    private static void writeText(DrawingModel drawingModel,
+            FileChannel channel) throws IOException {
+        try (DrawingTextWriter writer = new DrawingTextWriter(
+                new BufferedWriter(Channels.newWriter(channel,
+                        StandardCharsets.UTF_8.newEncoder(), -1)))) {
+            int numberOfObjects = drawingModel.getSize();
+
+            for (int index = 0; index < numberOfObjects; index++) {
+                writer.writeObject(drawingModel.getObject(index));
+            }
+
+            writer.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Writes all objects from specified {@code DrawingModel} to specified
+     * channel in binary format and forces them to the storage device.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} which holds objects to be written
+     * @param channel
+     *            Channel of file to be written
+     * @throws IOException
+     *             If writing of file fails
+     */
+    private static void writeBinary(DrawingModel drawingModel,
+            FileChannel channel) throws IOException {
+        try (DrawingBinaryWriter writer = new DrawingBinaryWriter(channel)) {
+            int numberOfObjects = drawingModel.getSize();
+
+            for (int index = 0; index < numberOfObjects; index++) {
+                writer.writeObject(drawingModel.getObject(index));
+            }
+
+            writer.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Replaces target file with source file. Atomic move is used if file
+     * system supports it. Directory of target is forced to the storage
+     * device afterwards where that is possible, so the replacement survives
+     * a crash too.
+     * 
+     * @param source
+     *            File which replaces target
+     * @param target
+     *            File to be replaced
+     * @throws IOException
+     *             If moving of file fails
+     */
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        try (FileChannel directory = FileChannel.open(target.getParent())) {
+            directory.force(true);
+        } catch (IOException ex) {
+            // Directories cannot be opened on some platforms, e.g. Windows
+        }
+    }
+
+}
@@ -0,0 +1,496 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModelListener;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code DrawingJournal} is an append-only log of changes of a drawing which
+ * is stored next to the document, in file with {@code .journal} suffix. It
+ * observes {@code DrawingModel} and appends one record for every added or
+ * changed object, so saving of drawing costs as much as changes which were
+ * made, not as much as whole drawing. Saving is done by
+ * {@linkplain #commit()}, which appends commit record and forces all records
+ * to disk. When drawing is opened, committed records are being replayed on
+ * loaded document by {@linkplain #recover(Path, DrawingModel, int)}, while
+ * records after the last commit are being discarded. Objects in records are
+ * encoded same as in {@code DrawingBinaryFormat}. Journal is valid only for
+ * the document it was started for. Its header holds size and last
+ * modification time of the document, and journal is ignored if document does
+ * not match them. When journal becomes too large, or when change which is not
+ * journaled occurs, drawing should be compacted by writing whole document and
+ * starting new journal. New journal holds changes in memory until
+ * {@linkplain #start()} is called, after the document is written, so at any
+ * moment either old document with old journal, or new document alone,
+ * describes last saved drawing.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingJournal implements DrawingModelListener, Closeable {
+
+    /**
+     * Suffix which is added to name of document to get name of its journal.
+     */
+    public static final String SUFFIX = ".journal";
+
+    /**
+     * Magic bytes at the beginning of every journal.
+     */
+    private static final byte[] MAGIC = { 'J', 'V', 'D', 'J' };
+
+    /**
+     * Size of journal header: magic bytes, version, size of document and its
+     * last modification time.
+     */
+    private static final int HEADER_SIZE = MAGIC.length + 1 + 2 * 8;
+
+    /** Tag of record for added object. */
+    private static final byte ADD = 1;
+    /** Tag of record for changed object. */
+    private static final byte SET = 2;
+    /** Tag of commit record. */
+    private static final byte COMMIT = 3;
+
+    /**
+     * Size of journal in bytes after which drawing should be compacted.
+     */
+    private static final long COMPACTION_SIZE = 4 << 20;
+
+    /**
+     * Document to which this journal belongs.
+     */
+    private Path document;
+
+    /**
+     * File in which records are being stored, or {@code null} if journal is
+     * not yet started.
+     */
+    private FileChannel file;
+
+    /**
+     * Records which were made before journal was started.
+     */
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    /**
+     * Writer which encodes records.
+     */
+    private DrawingBinaryWriter writer;
+
+    /**
+     * Number of bytes written in journal file.
+     */
+    private long size;
+
+    /**
+     * Indicates that some change could not be journaled, so drawing has to be
+     * compacted.
+     */
+    private boolean invalid;
+
+    /**
+     * Creates new {@code DrawingJournal} for specified document. Records are
+     * being held in memory until journal is started.
+     * 
+     * @param document
+     *            Document to which journal belongs
+     */
+    public DrawingJournal(Path document) {
+        this.document = document;
+        this.writer = new DrawingBinaryWriter(new JournalChannel(), false);
+    }
+
+    /**
+     * Returns document to which this journal belongs.
+     * 
+     * @return Document of this journal
+     */
+    public Path getDocument() {
+        return document;
+    }
+
+    /**
+     * Checks if this journal is started, i.e. if its records are being
+     * written to journal file. Journal which is not started can not be
+     * committed.
+     * 
+     * @return {@code true} if this journal is started
+     */
+    public boolean isStarted() {
+        return file != null;
+    }
+
+    /**
+     * Checks if drawing should be compacted, either because journal is too
+     * large or because some change could not be journaled.
+     * 
+     * @return {@code true} if drawing should be compacted
+     */
+    public boolean needsCompaction() {
+        return invalid || size > COMPACTION_SIZE;
+    }
+
+    /**
+     * Starts this journal by creating its file, with header which matches
+     * current state of the document, and writing all records made so far.
+     * Has to be called after document is written.
+     * 
+     * @throws IOException
+     *             If writing of journal fails
+     */
+    public void start() throws IOException {
+        ByteBuffer header = createHeader(document);
+        writer.flush();
+
+        FileChannel channel = FileChannel.open(getJournalPath(document),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        file = channel;
+        writeFully(header);
+        writeFully(ByteBuffer.wrap(pending.toByteArray()));
+
+        size = HEADER_SIZE + pending.size();
+        pending = null;
+    }
+
+    /**
+     * Appends commit record and forces all records to disk. After this call,
+     * all changes made so far are saved.
+     * 
+     * @throws IOException
+     *             If writing of journal fails
+     */
+    public void commit() throws IOException {
+        writer.writeTag(COMMIT);
+        writer.flush();
+
+        if (file != null) {
+            file.force(false);
+        }
+    }
+
+    @Override
+    public void objectsAdded(DrawingModel source, int index0, int index1) {
+        if (index1 < source.getSize() - 1) {
+            // Only appended objects are journaled, whole drawing has to be
+            // written
+            invalid = true;
+            return;
+        }
+
+        try {
+            for (int index = index0; index <= index1; index++) {
+                writer.writeTag(ADD);
+                writer.writeObject(source.getObject(index));
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            invalid = true;
+        }
+    }
+
+    @Override
+    public void objectsRemoved(DrawingModel source, int index0, int index1) {
+        // Removals are not journaled, whole drawing has to be written
+        invalid = true;
+    }
+
+    @Override
+    public void objectsChanged(DrawingModel source, int index0, int index1) {
+        try {
+            for (int index = index0; index <= index1; index++) {
+                writer.writeTag(SET);
+                writer.writeInt(index);
+                writer.writeObject(source.getObject(index));
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            invalid = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            try {
+                writer.flush();
+            } finally {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Replays committed records from journal of specified document on
+     * specified {@code DrawingModel}, which holds loaded document. If journal
+     * does not exist or does not match the document, nothing is done.
+     * Positions of objects in journal are being moved by specified offset,
+     * for case when document is loaded after some other objects. Uncommitted
+     * or incomplete records at the end of journal are being discarded. If
+     * committed records change objects which are not in the document, the
+     * journal does not belong to it, so it is deleted without replaying any
+     * of its records.
+     * 
+     * @param document
+     *            Loaded document
+     * @param drawingModel
+     *            {@code DrawingModel} which holds loaded document
+     * @param offset
+     *            Position of first object of document in model
+     * @return Journal which continues after replayed records, or {@code null}
+     *         if there was no valid journal
+     * @throws IOException
+     *             If reading of journal fails or if journal is not valid
+     */
+    public static DrawingJournal recover(Path document,
+            DrawingModel drawingModel, int offset) throws IOException {
+        Path journalPath = getJournalPath(document);
+        if (!Files.exists(journalPath)) {
+            return null;
+        }
+
+        FileChannel channel = FileChannel.open(journalPath,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+
+            if (!header.equals(createHeader(document))) {
+                channel.close();
+                return null;
+            }
+
+            long committed = replay(channel, drawingModel, offset);
+            if (committed < 0) {
+                channel.close();
+                delete(document);
+                throw new IOException("Journal of " + document
+                        + " does not match it and was discarded.");
+            }
+
+            long validSize = HEADER_SIZE + committed;
+
+            // Continue journal after last commit
+            channel.truncate(validSize);
+            channel.position(validSize);
+
+            DrawingJournal journal = new DrawingJournal(document);
+            journal.file = channel;
+            journal.pending = null;
+            journal.size = validSize;
+            return journal;
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Replays committed records from specified channel, which is positioned
+     * after journal header. Records are replayed only after all committed
+     * records are read and checked.
+     * 
+     * @param channel
+     *            Channel from which records are being read
+     * @param drawingModel
+     *            {@code DrawingModel} on which records are being replayed
+     * @param offset
+     *            Offset of positions of objects
+     * @return Number of bytes after header which hold committed records, or
+     *         -1 if some committed record is not valid for the model
+     * @throws IOException
+     *             If reading of channel fails
+     */
+    private static long replay(FileChannel channel, DrawingModel drawingModel,
+            int offset) throws IOException {
+        DrawingBinaryReader reader = new DrawingBinaryReader(channel, false);
+        List<Integer> positions = new ArrayList<>();
+        List<GeometricalObject> objects = new ArrayList<>();
+        int committedCount = 0;
+        long committed = 0;
+
+        try {
+            while (true) {
+                int tag = reader.readTag();
+
+                if (tag == ADD || tag == SET) {
+                    Integer position = tag == ADD ? null : reader.readInt();
+                    GeometricalObject object = reader.readObject();
+                    if (object == null) {
+                        break;
+                    }
+
+                    positions.add(position);
+                    objects.add(object);
+                } else if (tag == COMMIT) {
+                    committedCount = objects.size();
+                    committed = reader.getPosition();
+                } else {
+                    // End of journal or incomplete record
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            // Incomplete record after last commit is ignored
+        }
+
+        positions = positions.subList(0, committedCount);
+        if (!isValid(positions, drawingModel.getSize() - offset)) {
+            return -1;
+        }
+
+        drawingModel.beginBatch();
+        try {
+            for (int i = 0; i < committedCount; i++) {
+                Integer position = positions.get(i);
+
+                if (position == null) {
+                    drawingModel.add(objects.get(i));
+                } else {
+                    drawingModel.set(offset + position, objects.get(i));
+                }
+            }
+        } finally {
+            drawingModel.endBatch();
+        }
+
+        return committed;
+    }
+
+    /**
+     * Checks if specified records change only objects which exist in the
+     * document when they are replayed.
+     * 
+     * @param positions
+     *            Positions of changed objects in the document, or
+     *            {@code null} for added objects
+     * @param size
+     *            Number of objects in the document before records are
+     *            replayed
+     * @return {@code true} if all records are valid
+     */
+    private static boolean isValid(List<Integer> positions, int size) {
+        for (Integer position : positions) {
+            if (position == null) {
+                size++;
+            } else if (position < 0 || position >= size) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Deletes journal of specified document, if it exists.
+     * 
+     * @param document
+     *            Document whose journal is being deleted
+     * @throws IOException
+     *             If deleting fails
+     */
+    public static void delete(Path document) throws IOException {
+        Files.deleteIfExists(getJournalPath(document));
+    }
+
+    /**
+     * Creates journal header which matches current state of specified
+     * document.
+     * 
+     * @param document
+     *            Document to which journal belongs
+     * @return Buffer which holds journal header
+     * @throws IOException
+     *             If reading of document attributes fails
+     */
+    private static ByteBuffer createHeader(Path document) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC);
+        header.put(DrawingBinaryFormat.VERSION);
+        header.putLong(Files.size(document));
+        header.putLong(Files.getLastModifiedTime(document).toMillis());
+        header.flip();
+
+        return header;
+    }
+
+    /**
+     * Returns path of journal of specified document.
+     * 
+     * @param document
+     *            Document to which journal belongs
+     * @return Path of journal
+     */
+    private static Path getJournalPath(Path document) {
+        return document.resolveSibling(document.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Writes all remaining bytes of specified buffer to journal file.
+     * 
+     * @param buffer
+     *            Buffer to be written
+     * @throws IOException
+     *             If writing fails
+     */
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            file.write(buffer);
+        }
+    }
+
+    /**
+     * Channel to which encoded records are being written. Records are being
+     * held in memory until journal is started, after that they are written
+     * to journal file.
+     */
+    private class JournalChannel implements WritableByteChannel {
+
+        /**
+         * Channel over memory in which records are being held.
+         */
+        private WritableByteChannel memory = Channels.newChannel(pending);
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (file == null) {
+                return memory.write(src);
+            }
+
+            int written = src.remaining();
+            writeFully(src);
+            size += written;
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
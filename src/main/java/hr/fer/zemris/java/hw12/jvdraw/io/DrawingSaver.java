@@ -0,0 +1,117 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * {@code DrawingSaver} writes drawings to files on background thread, so user
+ * interface is not blocked while large drawings are being saved. Drawings
+ * should be given as snapshots, see {@linkplain DrawingModel#snapshot()}, so
+ * they can be changed while they are being written. Snapshots are cheap, they
+ * share unchanged content with the drawing. All drawings are written on
+ * single thread, in order in which they were requested, so older content can
+ * never overwrite newer one. Writing is done by
+ * {@linkplain DrawingFiles#write(DrawingModel, Path)} and exporting by
+ * {@linkplain DrawingFiles#exportImage(DrawingModel, Path, String)}.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingSaver {
+
+    /**
+     * Executor on which drawings are being written.
+     */
+    private ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "JVDraw saver"));
+
+    /**
+     * Requests writing of specified drawing to specified file. When writing
+     * is finished, specified callback is being called on Event Dispatch
+     * Thread, with {@code null} if writing succeeded or with exception which
+     * caused failure.
+     * 
+     * @param drawingModel
+     *            Snapshot of drawing to be written
+     * @param file
+     *            File to be written
+     * @param callback
+     *            Callback which is called when writing is finished
+     */
+    public void save(DrawingModel drawingModel, Path file,
+            Consumer<IOException> callback) {
+        executor.execute(() -> {
+            IOException failure = null;
+
+            try {
+                DrawingFiles.write(drawingModel, file);
+            } catch (IOException ex) {
+                failure = ex;
+            }
+
+            IOException result = failure;
+            SwingUtilities.invokeLater(() -> callback.accept(result));
+        });
+    }
+
+    /**
+     * Requests export of specified drawing as image in specified format, see
+     * {@linkplain DrawingFiles#exportImage(DrawingModel, Path, String)}. When
+     * export is finished, specified callback is being called on Event
+     * Dispatch Thread, with {@code null} if export succeeded or with
+     * exception which caused failure.
+     * 
+     * @param drawingModel
+     *            Snapshot of drawing to be exported
+     * @param file
+     *            File to be written
+     * @param format
+     *            Informal name of image format
+     * @param callback
+     *            Callback which is called when export is finished
+     */
+    public void export(DrawingModel drawingModel, Path file, String format,
+            Consumer<Exception> callback) {
+        executor.execute(() -> {
+            Exception failure = null;
+
+            try {
+                DrawingFiles.exportImage(drawingModel, file, format);
+            } catch (IOException | IllegalArgumentException ex) {
+                failure = ex;
+            }
+
+            Exception result = failure;
+            SwingUtilities.invokeLater(() -> callback.accept(result));
+        });
+    }
+
+    /**
+     * Requests calling of specified callback on Event Dispatch Thread after
+     * all drawings requested so far are written and callbacks of their
+     * requests are called.
+     * 
+     * @param callback
+     *            Callback which is called when pending requests are finished
+     */
+    public void whenFinished(Runnable callback) {
+        executor.execute(() -> SwingUtilities.invokeLater(callback));
+    }
+
+    /**
+     * Stops accepting new requests. Drawings which are already requested are
+     * still being written, after which background thread terminates.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,132 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+
+import java.awt.Rectangle;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * {@code DrawingSvgWriter} writes {@code GeometricalObject}s as SVG document,
+ * one element per object, in format defined by
+ * {@linkplain GeometricalObject#appendSvg(StringBuilder)}. Elements are being
+ * written directly to specified {@code Writer} as objects are given, so
+ * memory needed for export does not depend on number of objects nor on size
+ * of the drawing. Document is finished when writer is closed.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingSvgWriter implements Closeable, Flushable {
+
+    /**
+     * Line separator which is written after every element.
+     */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * Writer to which document is being written.
+     */
+    private Writer writer;
+
+    /**
+     * Element which represents object which is being written.
+     */
+    private StringBuilder element = new StringBuilder(128);
+
+    /**
+     * Characters of element which is being written.
+     */
+    private char[] chars = new char[128];
+
+    /**
+     * Creates new {@code DrawingSvgWriter} which writes document to specified
+     * {@code Writer} and immediately writes its beginning. Document shows
+     * specified part of the drawing on white background. Specified writer
+     * should be buffered.
+     * 
+     * @param writer
+     *            Writer to which document is being written
+     * @param area
+     *            Part of drawing shown by document
+     * @throws IOException
+     *             If writing fails
+     */
+    public DrawingSvgWriter(Writer writer, Rectangle area) throws IOException {
+        this.writer = writer;
+
+        element.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append(LINE_SEPARATOR);
+        element.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"")
+                .append(area.width).append("\" height=\"")
+                .append(area.height).append("\" viewBox=\"").append(area.x)
+                .append(' ').append(area.y).append(' ').append(area.width)
+                .append(' ').append(area.height).append("\">")
+                .append(LINE_SEPARATOR);
+        element.append("<rect x=\"").append(area.x).append("\" y=\"")
+                .append(area.y).append("\" width=\"").append(area.width)
+                .append("\" height=\"").append(area.height)
+                .append("\" fill=\"#ffffff\"/>").append(LINE_SEPARATOR);
+
+        // Strokes are centered on pixels, as when they are rasterized
+        element.append("<g transform=\"translate(0.5 0.5)\">").append(
+                LINE_SEPARATOR);
+        writeElement();
+    }
+
+    /**
+     * Writes SVG element which represents specified
+     * {@code GeometricalObject}.
+     * 
+     * @param object
+     *            {@code GeometricalObject} to be written
+     * @throws IOException
+     *             If writing fails
+     */
+    public void writeObject(GeometricalObject object) throws IOException {
+        object.appendSvg(element);
+        element.append(LINE_SEPARATOR);
+        writeElement();
+    }
+
+    /**
+     * Writes content of element buffer and clears it.
+     * 
+     * @throws IOException
+     *             If writing fails
+     */
+    private void writeElement() throws IOException {
+        int length = element.length();
+        if (length > chars.length) {
+            chars = new char[Math.max(length, 2 * chars.length)];
+        }
+
+        element.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+        element.setLength(0);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Writes end of document and closes underlying writer.
+     * 
+     * @throws IOException
+     *             If writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.write("</g>" + LINE_SEPARATOR + "</svg>" + LINE_SEPARATOR);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,445 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@code DrawingTextReader} reads {@code GeometricalObject}s from text
+ * representation of drawing, one object per line, in format defined by
+ * {@linkplain GeometricalObject#asText()}. Reader does not load whole document
+ * into memory, it reads bytes from specified channel into fixed size buffer
+ * and parses numbers directly from read bytes, without creating intermediate
+ * {@code String}s or using regular expressions. Objects are being returned one
+ * by one by {@linkplain #readObject()} method, so they can be added to the
+ * {@code DrawingModel} as they are being read.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingTextReader implements Closeable {
+
+    /**
+     * Size of buffer used when reading from channel.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximal number of parameters of any object.
+     */
+    private static final int MAX_PARAMETERS = 9;
+
+    /**
+     * Channel from which bytes are being read, or {@code null} if all bytes
+     * are already in buffer.
+     */
+    private ReadableByteChannel channel;
+
+    /**
+     * Buffer which holds bytes which are not yet parsed.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Number of bytes read from channel or from buffer before it was given to
+     * this reader.
+     */
+    private long bytesRead;
+
+    /**
+     * Number of current line, first line has number 1.
+     */
+    private int lineNumber;
+
+    /**
+     * Bytes of last read token, used for recognizing object names and for
+     * error messages.
+     */
+    private byte[] token = new byte[32];
+
+    /**
+     * Length of last read token.
+     */
+    private int tokenLength;
+
+    /**
+     * Parsed parameters of current object.
+     */
+    private int[] parameters = new int[MAX_PARAMETERS + 1];
+
+    /**
+     * Creates new {@code DrawingTextReader} which reads text from specified
+     * channel.
+     * 
+     * @param channel
+     *            Channel from which text is being read
+     */
+    public DrawingTextReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+    }
+
+    /**
+     * Creates new {@code DrawingTextReader} which reads text from remaining
+     * bytes of specified buffer, for example from part of memory mapped file.
+     * Text has to start at the beginning of some line.
+     * 
+     * @param buffer
+     *            Buffer from which text is being read
+     */
+    public DrawingTextReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.bytesRead = buffer.remaining();
+    }
+
+    /**
+     * Returns number of last line which was read by this reader. After
+     * {@linkplain #readObject()} throws an exception, this is the number of
+     * invalid line.
+     * 
+     * @return Number of last read line
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns number of bytes which were parsed by this reader.
+     * 
+     * @return Number of parsed bytes
+     */
+    public long getPosition() {
+        return bytesRead - buffer.remaining();
+    }
+
+    /**
+     * Reads next {@code GeometricalObject}. Empty lines are being skipped. If
+     * there are no more objects, {@code null} is returned. If current line can
+     * not be interpreted as valid object, it is skipped and an exception is
+     * thrown, so reading can be continued from next line.
+     * 
+     * @return Next {@code GeometricalObject} or {@code null} if end of text is
+     *         reached
+     * @throws IOException
+     *             If reading from channel fails
+     * @throws IllegalArgumentException
+     *             If current line is not valid representation of some object
+     */
+    public GeometricalObject readObject() throws IOException,
+            IllegalArgumentException {
+        while (true) {
+            skipSpaces();
+
+            int c = peek();
+            if (c == -1) {
+                return null;
+            }
+
+            lineNumber++;
+
+            if (c == '\n') {
+                // Empty line
+                buffer.get();
+                continue;
+            }
+
+            try {
+                GeometricalObject object = parseObject();
+                skipLine();
+                return object;
+            } catch (IllegalArgumentException ex) {
+                skipLine();
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Parses object name and its parameters from current line and creates
+     * appropriate {@code GeometricalObject}. Line separator is not consumed.
+     * 
+     * @return Created {@code GeometricalObject}
+     * @throws IOException
+     *             If reading from channel fails
+     * @throws IllegalArgumentException
+     *             If object with parsed name does not exist or if its
+     *             parameters are not valid
+     */
+    private GeometricalObject parseObject() throws IOException,
+            IllegalArgumentException {
+        readToken();
+
+        if (tokenEquals("line")) {
+            int[] p = readParameters(7);
+            return new Line(p[0], p[1], p[2], p[3],
+                    new Color(p[4], p[5], p[6]));
+        } else if (tokenEquals("circle")) {
+            int[] p = readParameters(6);
+            return new Circle(p[0], p[1], p[2], new Color(p[3], p[4], p[5]));
+        } else if (tokenEquals("fcircle")) {
+            int[] p = readParameters(9);
+            return new FilledCircle(p[0], p[1], p[2], new Color(p[3], p[4],
+                    p[5]), new Color(p[6], p[7], p[8]));
+        }
+
+        throw new IllegalArgumentException("\"" + tokenAsString()
+                + "\" object does not exist");
+    }
+
+    /**
+     * Reads all integer parameters to the end of current line. Line separator
+     * is not consumed.
+     * 
+     * @param expected
+     *            Expected number of parameters
+     * @return Array which holds parsed parameters
+     * @throws IOException
+     *             If reading from channel fails
+     * @throws NumberFormatException
+     *             If some parameter is not valid integer or if number of
+     *             parameters is not as expected
+     */
+    private int[] readParameters(int expected) throws IOException,
+            NumberFormatException {
+        int count = 0;
+
+        while (true) {
+            skipSpaces();
+
+            int c = peek();
+            if (c == -1 || c == '\n') {
+                break;
+            }
+
+            readToken();
+            if (count < parameters.length) {
+                parameters[count] = parseToken();
+            }
+            count++;
+        }
+
+        if (count != expected) {
+            throw new NumberFormatException(
+                    "Invalid number of parameters, expected " + expected
+                            + ": " + count);
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Interprets last read token as decimal integer with optional sign.
+     * 
+     * @return Parsed integer
+     * @throws NumberFormatException
+     *             If token is not valid integer
+     */
+    private int parseToken() throws NumberFormatException {
+        int i = 0;
+        boolean negative = false;
+
+        if (token[0] == '-' || token[0] == '+') {
+            negative = token[0] == '-';
+            i++;
+        }
+
+        if (i == tokenLength || tokenLength > token.length) {
+            throw new NumberFormatException("For input string: \""
+                    + tokenAsString() + "\"");
+        }
+
+        long value = 0;
+        for (; i < tokenLength; i++) {
+            int digit = token[i] - '0';
+
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \""
+                        + tokenAsString() + "\"");
+            }
+
+            value = 10 * value + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \""
+                        + tokenAsString() + "\"");
+            }
+        }
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \""
+                    + tokenAsString() + "\"");
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Reads bytes to the first whitespace and stores them as current token.
+     * If token is too long, only its beginning is being stored, but its
+     * length is remembered.
+     * 
+     * @throws IOException
+     *             If reading from channel fails
+     */
+    private void readToken() throws IOException {
+        tokenLength = 0;
+
+        while (true) {
+            int c = peek();
+            if (c == -1 || isWhitespace(c)) {
+                return;
+            }
+
+            buffer.get();
+            if (tokenLength < token.length) {
+                token[tokenLength] = (byte) c;
+            }
+            tokenLength++;
+        }
+    }
+
+    /**
+     * Checks if current token is equal to specified lower case name, ignoring
+     * case.
+     * 
+     * @param name
+     *            Lower case name
+     * @return {@code true} if current token is equal to specified name
+     */
+    private boolean tokenEquals(String name) {
+        if (tokenLength != name.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < tokenLength; i++) {
+            int c = token[i];
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+
+            if (c != name.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns current token as {@code String}. Used only for error messages.
+     * 
+     * @return Current token
+     */
+    private String tokenAsString() {
+        return new String(token, 0, Math.min(tokenLength, token.length),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips spaces, tabs and carriage returns on current line.
+     * 
+     * @throws IOException
+     *             If reading from channel fails
+     */
+    private void skipSpaces() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == -1 || c == '\n' || !isWhitespace(c)) {
+                return;
+            }
+
+            buffer.get();
+        }
+    }
+
+    /**
+     * Skips all bytes to the end of current line, including line separator.
+     * 
+     * @throws IOException
+     *             If reading from channel fails
+     */
+    private void skipLine() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == -1) {
+                return;
+            }
+
+            buffer.get();
+            if (c == '\n') {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns next byte without consuming it, or -1 if end of text is reached.
+     * 
+     * @return Next byte or -1
+     * @throws IOException
+     *             If reading from channel fails
+     */
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    /**
+     * Reads next bytes from channel into buffer.
+     * 
+     * @return {@code true} if some bytes are read, {@code false} if end of
+     *         channel is reached
+     * @throws IOException
+     *             If reading from channel fails
+     */
+    private boolean fill() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+
+        buffer.compact();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+
+        if (read > 0) {
+            bytesRead += read;
+        }
+
+        return buffer.hasRemaining();
+    }
+
+    /**
+     * Checks if specified byte is whitespace.
+     * 
+     * @param c
+     *            Byte to be checked
+     * @return {@code true} if byte is whitespace
+     */
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f';
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+}
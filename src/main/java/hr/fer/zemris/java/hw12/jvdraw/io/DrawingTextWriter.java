@@ -0,0 +1,88 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * {@code DrawingTextWriter} writes {@code GeometricalObject}s in text
+ * representation of drawing, one object per line, in format defined by
+ * {@linkplain GeometricalObject#asText()}. Every object is being appended to
+ * single reusable {@code StringBuilder} and written directly to specified
+ * {@code Writer}, so no intermediate {@code String} is created and whole
+ * document is never held in memory.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingTextWriter implements Closeable, Flushable {
+
+    /**
+     * Line separator which is written after every object.
+     */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * Writer to which text is being written.
+     */
+    private Writer writer;
+
+    /**
+     * Text representation of object which is being written.
+     */
+    private StringBuilder line = new StringBuilder(64);
+
+    /**
+     * Characters of text representation of object which is being written.
+     */
+    private char[] chars = new char[64];
+
+    /**
+     * Creates new {@code DrawingTextWriter} which writes text to specified
+     * {@code Writer}. Specified writer should be buffered.
+     * 
+     * @param writer
+     *            Writer to which text is being written
+     */
+    public DrawingTextWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes text representation of specified {@code GeometricalObject},
+     * followed by line separator.
+     * 
+     * @param object
+     *            {@code GeometricalObject} to be written
+     * @throws IOException
+     *             If writing fails
+     */
+    public void writeObject(GeometricalObject object) throws IOException {
+        line.setLength(0);
+        object.appendText(line);
+        line.append(LINE_SEPARATOR);
+
+        int length = line.length();
+        if (length > chars.length) {
+            chars = new char[Math.max(length, 2 * chars.length)];
+        }
+
+        line.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+}
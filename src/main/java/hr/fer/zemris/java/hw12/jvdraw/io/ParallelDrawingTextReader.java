@@ -0,0 +1,312 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+/**
+ * {@code ParallelDrawingTextReader} reads {@code GeometricalObject}s from large
+ * text files in parallel. File is being split in chunks which end on line
+ * boundaries, every chunk is memory mapped and parsed by its own
+ * {@code DrawingTextReader} on a {@code ForkJoinPool}. Results are being
+ * merged in original order, so returned objects are in the same order as if
+ * file was read sequentially.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class ParallelDrawingTextReader {
+
+    /**
+     * Minimal size of single chunk in bytes. Smaller files are being read as
+     * one chunk.
+     */
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Maximal size of single chunk in bytes, limited by size of single memory
+     * mapping.
+     */
+    private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Pool on which chunks are being parsed.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Creates new {@code ParallelDrawingTextReader} which parses chunks on
+     * common {@code ForkJoinPool}.
+     */
+    public ParallelDrawingTextReader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates new {@code ParallelDrawingTextReader} which parses chunks on
+     * specified {@code ForkJoinPool}.
+     * 
+     * @param pool
+     *            Pool on which chunks are being parsed
+     */
+    public ParallelDrawingTextReader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Reads all {@code GeometricalObject}s from specified file. Lines which can
+     * not be interpreted as valid objects are being skipped and their line
+     * numbers and descriptions are being added to specified report. If report
+     * is strict, reading is being stopped on first error.
+     * 
+     * @param file
+     *            File to be read
+     * @param report
+     *            Report to which errors are being added
+     * @return All valid objects from specified file, in original order
+     * @throws IOException
+     *             If reading of file fails
+     */
+    public List<GeometricalObject> read(Path file, ParseErrorReport report)
+            throws IOException {
+        return read(file, report, position -> {
+        });
+    }
+
+    /**
+     * Reads all {@code GeometricalObject}s from specified file. Lines which can
+     * not be interpreted as valid objects are being skipped and their line
+     * numbers and descriptions are being added to specified report. If report
+     * is strict, reading is being stopped on first error. Every time some
+     * chunk is merged, specified progress listener is being notified with
+     * number of bytes parsed so far. If calling thread is interrupted,
+     * reading is being stopped.
+     * 
+     * @param file
+     *            File to be read
+     * @param report
+     *            Report to which errors are being added
+     * @param progress
+     *            Listener which receives number of parsed bytes
+     * @return All valid objects from specified file, in original order
+     * @throws IOException
+     *             If reading of file fails or if it is interrupted
+     */
+    public List<GeometricalObject> read(Path file, ParseErrorReport report,
+            LongConsumer progress) throws IOException {
+        List<Future<ChunkResult>> results = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            long[] boundaries = findChunkBoundaries(channel);
+
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                        boundaries[i], boundaries[i + 1] - boundaries[i]);
+                long endPosition = boundaries[i + 1];
+                results.add(pool.submit(() -> parseChunk(chunk, endPosition,
+                        report)));
+            }
+
+            // Merge results in original order
+            List<GeometricalObject> objects = new ArrayList<>();
+            int lineOffset = 0;
+
+            for (Future<ChunkResult> future : results) {
+                ChunkResult result = getResult(future);
+
+                if (!report.addAll(result.errors, lineOffset)) {
+                    return objects;
+                }
+
+                objects.addAll(result.objects);
+
+                lineOffset += result.lineCount;
+                progress.accept(result.endPosition);
+            }
+
+            return objects;
+        } finally {
+            // Stop parsing of remaining chunks if reading failed
+            for (Future<ChunkResult> future : results) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Splits file from specified channel in chunks. Every chunk, except the
+     * last one, ends with line separator.
+     * 
+     * @param channel
+     *            Channel of file to be split
+     * @return Positions of chunk boundaries, starting with 0 and ending with
+     *         file size
+     * @throws IOException
+     *             If reading of file fails
+     */
+    private long[] findChunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = size / (4 * pool.getParallelism());
+        chunkSize = Math.min(Math.max(chunkSize, MIN_CHUNK_SIZE),
+                MAX_CHUNK_SIZE / 2);
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = chunkSize;
+
+        while (position < size) {
+            long lineEnd = findLineEnd(channel, position, buffer);
+            if (lineEnd >= size) {
+                break;
+            }
+
+            boundaries.add(lineEnd);
+            position = lineEnd + chunkSize;
+        }
+
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds position right after first line separator which is located on or
+     * after specified position.
+     * 
+     * @param channel
+     *            Channel of file
+     * @param position
+     *            Position from which separator is being searched
+     * @param buffer
+     *            Buffer used for reading
+     * @return Position after line separator, or file size if there is none
+     * @throws IOException
+     *             If reading of file fails
+     */
+    private static long findLineEnd(FileChannel channel, long position,
+            ByteBuffer buffer) throws IOException {
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+
+            position += read;
+        }
+    }
+
+    /**
+     * Parses all objects from specified chunk. Errors are being collected in
+     * report of the chunk with the same mode and limit as specified report,
+     * so invalid lines over the limit are only counted. In strict mode
+     * parsing of the chunk is being stopped on first error.
+     * 
+     * @param chunk
+     *            Chunk of file which starts at the beginning of some line
+     * @param endPosition
+     *            Position in file where chunk ends
+     * @param report
+     *            Report to which errors of all chunks are being merged
+     * @return Result of parsing
+     * @throws IOException
+     *             If reading of chunk fails
+     */
+    private static ChunkResult parseChunk(ByteBuffer chunk, long endPosition,
+            ParseErrorReport report) throws IOException {
+        ChunkResult result = new ChunkResult();
+        result.endPosition = endPosition;
+        result.errors = new ParseErrorReport(report.isStrict(),
+                report.getLimit());
+
+        try (DrawingTextReader reader = new DrawingTextReader(chunk)) {
+            while (true) {
+                try {
+                    GeometricalObject object = reader.readObject();
+                    if (object == null) {
+                        break;
+                    }
+
+                    result.objects.add(object);
+                } catch (IllegalArgumentException ex) {
+                    if (!result.errors.add(reader.getLineNumber(),
+                            ex.getMessage())) {
+                        break;
+                    }
+                }
+            }
+
+            result.lineCount = reader.getLineNumber();
+        }
+
+        return result;
+    }
+
+    /**
+     * Waits for result of parsing of single chunk.
+     * 
+     * @param future
+     *            Pending result
+     * @return Result of parsing
+     * @throws IOException
+     *             If reading of chunk failed or if waiting was interrupted
+     */
+    private static ChunkResult getResult(Future<ChunkResult> future)
+            throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Reading interrupted.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Result of parsing of single chunk.
+     */
+    private static class ChunkResult {
+
+        /** Parsed objects, in original order. */
+        private List<GeometricalObject> objects = new ArrayList<>();
+
+        /** Invalid lines, with line numbers relative to chunk start. */
+        private ParseErrorReport errors;
+
+        /** Number of lines in chunk. */
+        private int lineCount;
+
+        /** Position in file where chunk ends. */
+        private long endPosition;
+
+    }
+
+}
@@ -0,0 +1,245 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import java.util.Arrays;
+
+/**
+ * {@code ParseErrorReport} collects errors which occurred while document was
+ * being parsed, so they can be shown to user at once, after whole document is
+ * read. For every error, number of invalid line and reason why it is invalid
+ * are being stored. Only limited number of errors is being stored, for other
+ * errors only their count is remembered, so memory needed for report of
+ * heavily corrupted document stays constant. Report can be strict or lenient.
+ * In lenient mode invalid lines are being skipped and parsing continues, in
+ * strict mode parsing should be stopped on first error, which is indicated by
+ * return value of {@linkplain #add(int, String)}.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class ParseErrorReport {
+
+    /**
+     * Default number of errors which are being stored.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * Indicates if parsing should be stopped on first error.
+     */
+    private boolean strict;
+
+    /**
+     * Maximal number of errors which are being stored.
+     */
+    private int limit;
+
+    /**
+     * Line numbers of stored errors.
+     */
+    private int[] lines;
+
+    /**
+     * Reasons of stored errors.
+     */
+    private String[] reasons;
+
+    /**
+     * Total number of errors, including those which are not stored.
+     */
+    private int errorCount;
+
+    /**
+     * Creates new lenient {@code ParseErrorReport} which stores at most
+     * {@linkplain #DEFAULT_LIMIT} errors.
+     */
+    public ParseErrorReport() {
+        this(false, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Creates new {@code ParseErrorReport} with specified mode which stores at
+     * most specified number of errors.
+     * 
+     * @param strict
+     *            {@code true} if parsing should be stopped on first error
+     * @param limit
+     *            Maximal number of errors which are being stored
+     * @throws IllegalArgumentException
+     *             If specified limit is negative
+     */
+    public ParseErrorReport(boolean strict, int limit)
+            throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+
+        this.strict = strict;
+        this.limit = limit;
+        this.lines = new int[Math.min(limit, 16)];
+        this.reasons = new String[lines.length];
+    }
+
+    /**
+     * Adds new error to this report. If limit of stored errors is reached,
+     * error is only being counted.
+     * 
+     * @param line
+     *            Number of invalid line, first line has number 1
+     * @param reason
+     *            Reason why line is invalid
+     * @return {@code true} if parsing can be continued, {@code false} if this
+     *         report is strict and parsing should be stopped
+     */
+    public boolean add(int line, String reason) {
+        if (errorCount < limit) {
+            if (errorCount == lines.length) {
+                int capacity = Math.min(limit, 2 * lines.length);
+                lines = Arrays.copyOf(lines, capacity);
+                reasons = Arrays.copyOf(reasons, capacity);
+            }
+
+            lines[errorCount] = line;
+            reasons[errorCount] = reason;
+        }
+
+        errorCount++;
+        return !strict;
+    }
+
+    /**
+     * Adds all errors from specified report, whose line numbers are relative
+     * to specified offset. Errors which are only counted in specified report
+     * are only being counted in this report as well.
+     * 
+     * @param other
+     *            Report whose errors are being added
+     * @param lineOffset
+     *            Number which is added to line numbers of added errors
+     * @return {@code true} if parsing can be continued, {@code false} if this
+     *         report is strict and some error was added
+     */
+    public boolean addAll(ParseErrorReport other, int lineOffset) {
+        int stored = other.getStoredCount();
+        for (int i = 0; i < stored; i++) {
+            add(lineOffset + other.lines[i], other.reasons[i]);
+        }
+
+        errorCount += other.errorCount - stored;
+        return !strict || other.isEmpty();
+    }
+
+    /**
+     * Checks if parsing should be stopped on first error.
+     * 
+     * @return {@code true} if this report is strict
+     */
+    public boolean isStrict() {
+        return strict;
+    }
+
+    /**
+     * Returns maximal number of errors which are being stored.
+     * 
+     * @return Maximal number of stored errors
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Checks if there are any errors in this report.
+     * 
+     * @return {@code true} if no error occurred
+     */
+    public boolean isEmpty() {
+        return errorCount == 0;
+    }
+
+    /**
+     * Returns total number of errors, including those which are not stored.
+     * 
+     * @return Number of errors
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Returns number of errors which are stored in this report.
+     * 
+     * @return Number of stored errors
+     */
+    public int getStoredCount() {
+        return Math.min(errorCount, limit);
+    }
+
+    /**
+     * Returns line number of stored error on specified position.
+     * 
+     * @param index
+     *            Position of stored error
+     * @return Number of invalid line
+     * @throws IndexOutOfBoundsException
+     *             If there is no stored error on specified position
+     */
+    public int getLine(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return lines[index];
+    }
+
+    /**
+     * Returns reason of stored error on specified position.
+     * 
+     * @param index
+     *            Position of stored error
+     * @return Reason why line is invalid
+     * @throws IndexOutOfBoundsException
+     *             If there is no stored error on specified position
+     */
+    public String getReason(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return reasons[index];
+    }
+
+    /**
+     * Returns textual summary of this report which contains total number of
+     * errors and one line for every stored error.
+     * 
+     * @return Summary of this report
+     */
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(errorCount).append(errorCount == 1 ? " invalid line" :
+                " invalid lines");
+        sb.append(strict ? ", loading stopped." : " skipped.");
+
+        int stored = getStoredCount();
+        for (int i = 0; i < stored; i++) {
+            sb.append('\n').append("Line ").append(lines[i]).append(": ")
+                    .append(reasons[i]);
+        }
+
+        if (errorCount > stored) {
+            sb.append('\n').append("... and ").append(errorCount - stored)
+                    .append(" more.");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Checks if there is stored error on specified position.
+     * 
+     * @param index
+     *            Position to be checked
+     * @throws IndexOutOfBoundsException
+     *             If there is no stored error on specified position
+     */
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= getStoredCount()) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+    }
+
+}
@@ -0,0 +1,379 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * {@code TiledDrawingImage} is a {@code RenderedImage} which shows part of a
+ * drawing and which is rendered lazily, tile by tile. Image is divided in
+ * tiles of fixed size and tiles are being rendered one row at a time, all
+ * tiles of the row in parallel on a {@code ForkJoinPool}. Only objects whose
+ * bounding box intersects a tile, found by
+ * {@linkplain DrawingModel#getObjectsIn(Rectangle)}, are being painted on
+ * that tile. While one row is being read, next row is already being rendered,
+ * and only these two rows are held in memory. PNG encoder reads images row
+ * by row, so such image can be given directly to {@code ImageIO} and memory
+ * needed for export does not depend on height of the image. Other encoders,
+ * e.g. JPEG and GIF, call {@linkplain #getData()}, which copies whole image
+ * into single raster. Model must not be changed while image is being read.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class TiledDrawingImage implements RenderedImage {
+
+    /**
+     * Width and height of single tile in pixels.
+     */
+    public static final int TILE_SIZE = 512;
+
+    /**
+     * {@code DrawingModel} which is being rendered.
+     */
+    private DrawingModel drawingModel;
+
+    /**
+     * Part of drawing which is shown by this image.
+     */
+    private Rectangle area;
+
+    /**
+     * Type of {@code BufferedImage} in which tiles are being rendered.
+     */
+    private int imageType;
+
+    /**
+     * Pool on which tiles are being rendered.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Color model of this image.
+     */
+    private ColorModel colorModel;
+
+    /**
+     * Sample model of tiles of this image.
+     */
+    private SampleModel sampleModel;
+
+    /**
+     * Index of tile row which is currently held, or -1 if there is none.
+     */
+    private int currentRow = -1;
+
+    /**
+     * Tiles of tile row which is currently held.
+     */
+    private BufferedImage[] currentTiles;
+
+    /**
+     * Index of tile row which is being rendered in advance, or -1 if there is
+     * none.
+     */
+    private int nextRow = -1;
+
+    /**
+     * Rendering of tile row which is being rendered in advance.
+     */
+    private ForkJoinTask<BufferedImage[]> nextTiles;
+
+    /**
+     * Creates new {@code TiledDrawingImage} which shows specified part of
+     * specified drawing and renders tiles on common {@code ForkJoinPool}.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} which is being rendered
+     * @param area
+     *            Part of drawing shown by this image
+     * @param imageType
+     *            Type of {@code BufferedImage} in which tiles are being
+     *            rendered
+     */
+    public TiledDrawingImage(DrawingModel drawingModel, Rectangle area,
+            int imageType) {
+        this(drawingModel, area, imageType, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates new {@code TiledDrawingImage} which shows specified part of
+     * specified drawing and renders tiles on specified {@code ForkJoinPool}.
+     * 
+     * @param drawingModel
+     *            {@code DrawingModel} which is being rendered
+     * @param area
+     *            Part of drawing shown by this image
+     * @param imageType
+     *            Type of {@code BufferedImage} in which tiles are being
+     *            rendered
+     * @param pool
+     *            Pool on which tiles are being rendered
+     */
+    public TiledDrawingImage(DrawingModel drawingModel, Rectangle area,
+            int imageType, ForkJoinPool pool) {
+        this.drawingModel = drawingModel;
+        this.area = new Rectangle(area);
+        this.imageType = imageType;
+        this.pool = pool;
+
+        BufferedImage prototype = new BufferedImage(1, 1, imageType);
+        colorModel = prototype.getColorModel();
+        sampleModel = prototype.getSampleModel().createCompatibleSampleModel(
+                TILE_SIZE, TILE_SIZE);
+    }
+
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return Image.UndefinedProperty;
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    @Override
+    public ColorModel getColorModel() {
+        return colorModel;
+    }
+
+    @Override
+    public SampleModel getSampleModel() {
+        return sampleModel;
+    }
+
+    @Override
+    public int getWidth() {
+        return area.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return area.height;
+    }
+
+    @Override
+    public int getMinX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public int getNumXTiles() {
+        return (area.width + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    @Override
+    public int getNumYTiles() {
+        return (area.height + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    @Override
+    public int getMinTileX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinTileY() {
+        return 0;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return TILE_SIZE;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return TILE_SIZE;
+    }
+
+    @Override
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    @Override
+    public int getTileGridYOffset() {
+        return 0;
+    }
+
+    @Override
+    public synchronized Raster getTile(int tileX, int tileY) {
+        BufferedImage tile = getRow(tileY)[tileX];
+        return tile.getRaster().createChild(0, 0, TILE_SIZE, TILE_SIZE,
+                tileX * TILE_SIZE, tileY * TILE_SIZE, null);
+    }
+
+    @Override
+    public Raster getData() {
+        return getData(new Rectangle(0, 0, area.width, area.height));
+    }
+
+    @Override
+    public Raster getData(Rectangle rect) {
+        return copyData(createRaster(rect));
+    }
+
+    @Override
+    public synchronized WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            raster = createRaster(new Rectangle(0, 0, area.width, area.height));
+        }
+
+        Rectangle bounds = raster.getBounds().intersection(
+                new Rectangle(0, 0, area.width, area.height));
+        if (bounds.isEmpty()) {
+            return raster;
+        }
+
+        int firstRow = bounds.y / TILE_SIZE;
+        int lastRow = (bounds.y + bounds.height - 1) / TILE_SIZE;
+        int firstColumn = bounds.x / TILE_SIZE;
+        int lastColumn = (bounds.x + bounds.width - 1) / TILE_SIZE;
+
+        for (int tileY = firstRow; tileY <= lastRow; tileY++) {
+            BufferedImage[] tiles = getRow(tileY);
+
+            for (int tileX = firstColumn; tileX <= lastColumn; tileX++) {
+                int x = tileX * TILE_SIZE;
+                int y = tileY * TILE_SIZE;
+                Rectangle part = bounds.intersection(new Rectangle(x, y,
+                        TILE_SIZE, TILE_SIZE));
+
+                Object data = tiles[tileX].getRaster().getDataElements(
+                        part.x - x, part.y - y, part.width, part.height, null);
+                raster.setDataElements(part.x, part.y, part.width,
+                        part.height, data);
+            }
+        }
+
+        return raster;
+    }
+
+    /**
+     * Creates raster which covers specified part of this image and has the
+     * same layout as tiles of this image.
+     * 
+     * @param rect
+     *            Part of image covered by raster
+     * @return New raster
+     */
+    private WritableRaster createRaster(Rectangle rect) {
+        return Raster.createWritableRaster(
+                sampleModel.createCompatibleSampleModel(rect.width,
+                        rect.height), new Point(rect.x, rect.y));
+    }
+
+    /**
+     * Returns rendered tiles of specified tile row. If row is not already
+     * rendered, it is rendered now, and rendering of the following row is
+     * started in advance.
+     * 
+     * @param tileY
+     *            Index of tile row
+     * @return Rendered tiles of requested row
+     */
+    private BufferedImage[] getRow(int tileY) {
+        if (tileY == currentRow) {
+            return currentTiles;
+        }
+
+        if (tileY == nextRow) {
+            currentTiles = nextTiles.join();
+        } else {
+            if (nextTiles != null) {
+                nextTiles.cancel(false);
+            }
+            currentTiles = renderRow(tileY);
+        }
+        currentRow = tileY;
+
+        // Render following row while this one is being read
+        if (tileY + 1 < getNumYTiles()) {
+            int row = tileY + 1;
+            nextRow = row;
+            nextTiles = pool.submit(() -> renderRow(row));
+        } else {
+            nextRow = -1;
+            nextTiles = null;
+        }
+
+        return currentTiles;
+    }
+
+    /**
+     * Renders all tiles of specified tile row in parallel.
+     * 
+     * @param tileY
+     *            Index of tile row
+     * @return Rendered tiles
+     */
+    private BufferedImage[] renderRow(int tileY) {
+        BufferedImage[] tiles = new BufferedImage[getNumXTiles()];
+
+        pool.submit(() -> IntStream.range(0, tiles.length).parallel()
+                .forEach(tileX -> tiles[tileX] = renderTile(tileX, tileY)))
+                .join();
+
+        return tiles;
+    }
+
+    /**
+     * Renders single tile by painting all objects which intersect it.
+     * 
+     * @param tileX
+     *            Index of tile column
+     * @param tileY
+     *            Index of tile row
+     * @return Rendered tile
+     */
+    private BufferedImage renderTile(int tileX, int tileY) {
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, imageType);
+        Graphics2D g2d = tile.createGraphics();
+
+        g2d.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON);
+
+        int x = area.x + tileX * TILE_SIZE;
+        int y = area.y + tileY * TILE_SIZE;
+        g2d.translate(-x, -y);
+
+        // Antialiased edges can reach one pixel outside of bounding box
+        int[] indices = drawingModel.getObjectsIn(new Rectangle(x - 1, y - 1,
+                TILE_SIZE + 2, TILE_SIZE + 2));
+        for (int index : indices) {
+            drawingModel.paintObject(index, g2d);
+        }
+
+        g2d.dispose();
+        return tile;
+    }
+
+}
@@ -2,13 +2,14 @@ package hr.fer.zemris.java.hw12.jvdraw.object;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 
 /**
  * {@code Circle} class extends {@code GeometricalObject} class and represents
  * single two-dimensional circle which can be painted and drawn by its
- * {@linkplain #paintComponent(Graphics)} method. {@code Circle} is defined by
+ * {@linkplain #paint(Graphics)} method. {@code Circle} is defined by
  * its center point, radius and {@code Color} which is being used when this
- * {@code JComponent} is being painted.
+ * object is being painted.
  * 
  * @author Domagoj Penic
  * @version 3.6.2015.
@@ -16,9 +17,6 @@ import java.awt.Graphics;
  */
 public class Circle extends GeometricalObject {
 
-    /** Default serial version ID. */
-    private static final long serialVersionUID = 1L;
-
     /** Center point x-coordinate. */
     private int centerX;
     /** Center point y-coordinate. */
@@ -26,8 +24,8 @@ public class Circle extends GeometricalObject {
     /** Circle radius. */
     private int radius;
 
-    /** Color used for painting this circle. */
-    private Color color;
+    /** Color used for painting this circle, packed as ARGB. */
+    private int color;
 
     /**
      * Creates new {@code Circle} with specified parameters, its center point,
@@ -47,7 +45,7 @@ public class Circle extends GeometricalObject {
         this.centerY = centerY;
         this.radius = radius;
 
-        this.color = color;
+        this.color = color.getRGB();
     }
 
     /**
@@ -83,7 +81,7 @@ public class Circle extends GeometricalObject {
      * @return {@code Color} of this {@code Circle}
      */
     public Color getColor() {
-        return color;
+        return new Color(color, true);
     }
 
     /**
@@ -127,7 +125,7 @@ public class Circle extends GeometricalObject {
      *            {@code Color} of this {@code Circle} to be set
      */
     public void setColor(Color color) {
-        this.color = color;
+        this.color = color.getRGB();
     }
 
     /**
@@ -165,15 +163,114 @@ public class Circle extends GeometricalObject {
     }
 
     @Override
-    public void paintComponent(Graphics g) {
-        g.setColor(color);
+    public void paint(Graphics g) {
+        g.setColor(new Color(color, true));
         g.drawOval(centerX - radius, centerY - radius, 2 * radius, 2 * radius);
     }
 
     @Override
-    public String asText() {
-        return String.format("CIRCLE %d %d %d %d %d %d", centerX, centerY,
-                radius, color.getRed(), color.getGreen(), color.getBlue());
+    public Rectangle getBoundingBox() {
+        return new Rectangle(centerX - radius, centerY - radius,
+                2 * radius + 1, 2 * radius + 1);
+    }
+
+    @Override
+    public boolean intersects(Rectangle area, int tolerance) {
+        return intersects(centerX, centerY, radius, area, tolerance);
+    }
+
+    /**
+     * Checks if outline of circle with specified center and radius is hit by
+     * specified area, as defined by
+     * {@linkplain GeometricalObject#intersects(Rectangle, int)}. Area is hit
+     * if its nearest point is inside of outer edge of outline and its
+     * farthest point is outside of inner edge.
+     * 
+     * @param centerX
+     *            Circle's center x-coordinate
+     * @param centerY
+     *            Circle's center y-coordinate
+     * @param radius
+     *            Circle's radius
+     * @param area
+     *            Tested area
+     * @param tolerance
+     *            Number of pixels by which area is being extended
+     * @return {@code true} if outline of circle is hit by specified area
+     */
+    public static boolean intersects(int centerX, int centerY, int radius,
+            Rectangle area, int tolerance) {
+        double outer = radius + tolerance + 0.5;
+        double inner = Math.max(0, radius - tolerance - 0.5);
+
+        return nearestDistanceSq(centerX, centerY, area) <= outer * outer
+                && farthestDistanceSq(centerX, centerY, area) >= inner * inner;
+    }
+
+    /**
+     * Returns squared distance from specified point to the nearest pixel of
+     * specified area.
+     * 
+     * @param x
+     *            Point's x-coordinate
+     * @param y
+     *            Point's y-coordinate
+     * @param area
+     *            Area, coordinates of its pixels are inclusive
+     * @return Squared distance to the nearest pixel
+     */
+    static double nearestDistanceSq(int x, int y, Rectangle area) {
+        double dx = Math.max(0, Math.max(area.x - x, x
+                - (area.x + area.width - 1)));
+        double dy = Math.max(0, Math.max(area.y - y, y
+                - (area.y + area.height - 1)));
+
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Returns squared distance from specified point to the farthest pixel of
+     * specified area.
+     * 
+     * @param x
+     *            Point's x-coordinate
+     * @param y
+     *            Point's y-coordinate
+     * @param area
+     *            Area, coordinates of its pixels are inclusive
+     * @return Squared distance to the farthest pixel
+     */
+    static double farthestDistanceSq(int x, int y, Rectangle area) {
+        double dx = Math.max(Math.abs(area.x - x), Math.abs(area.x
+                + area.width - 1 - x));
+        double dy = Math.max(Math.abs(area.y - y), Math.abs(area.y
+                + area.height - 1 - y));
+
+        return dx * dx + dy * dy;
+    }
+
+    @Override
+    public Circle copy() {
+        Circle copy = new Circle(centerX, centerY, radius,
+                new Color(color, true));
+        copy.index = index;
+        return copy;
+    }
+
+    @Override
+    public void appendText(StringBuilder sb) {
+        sb.append("CIRCLE ").append(centerX).append(' ').append(centerY)
+                .append(' ').append(radius);
+        appendColor(sb, color);
+    }
+
+    @Override
+    public void appendSvg(StringBuilder sb) {
+        sb.append("<circle cx=\"").append(centerX).append("\" cy=\"")
+                .append(centerY).append("\" r=\"").append(radius)
+                .append("\" fill=\"none\"");
+        appendSvgPaint(sb, "stroke", color);
+        sb.append("/>");
     }
 
     @Override
@@ -2,14 +2,15 @@ package hr.fer.zemris.java.hw12.jvdraw.object;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 
 /**
  * {@code FilledCircle} class extends {@code GeometricalObject} class and
  * represents single two-dimensional filled circle which can be painted and
- * drawn by its {@linkplain #paintComponent(Graphics)} method.
+ * drawn by its {@linkplain #paint(Graphics)} method.
  * {@code FilledCircle} is defined by its center point, radius, outline
  * {@code Color} and its area {@code Color} which are being used when this
- * {@code JComponent} is being painted.
+ * object is being painted.
  * 
  * @author Domagoj Penic
  * @version 3.6.2015.
@@ -17,9 +18,6 @@ import java.awt.Graphics;
  */
 public class FilledCircle extends GeometricalObject {
 
-    /** Default serial version ID. */
-    private static final long serialVersionUID = 1L;
-
     /** Center point x-coordinate. */
     private int centerX;
     /** Center point y-coordinate. */
@@ -27,10 +25,10 @@ public class FilledCircle extends GeometricalObject {
     /** Circle radius. */
     private int radius;
 
-    /** Outline color for painting circle border. */
-    private Color outlineColor;
-    /** Outline color for filling circle area. */
-    private Color areaColor;
+    /** Outline color for painting circle border, packed as ARGB. */
+    private int outlineColor;
+    /** Outline color for filling circle area, packed as ARGB. */
+    private int areaColor;
 
     /**
      * Creates new {@code FilledCircle} with specified parameters, its center
@@ -54,8 +52,8 @@ public class FilledCircle extends GeometricalObject {
         this.centerY = centerY;
         this.radius = radius;
 
-        this.outlineColor = outlineColor;
-        this.areaColor = areaColor;
+        this.outlineColor = outlineColor.getRGB();
+        this.areaColor = areaColor.getRGB();
     }
 
     /**
@@ -91,7 +89,7 @@ public class FilledCircle extends GeometricalObject {
      * @return This {@code FilledCircle} outline {@code FilledColor}
      */
     public Color getOutlineColor() {
-        return outlineColor;
+        return new Color(outlineColor, true);
     }
 
     /**
@@ -100,7 +98,7 @@ public class FilledCircle extends GeometricalObject {
      * @return This {@code FilledCircle} area {@code FilledColor}
      */
     public Color getAreaColor() {
-        return areaColor;
+        return new Color(areaColor, true);
     }
 
     /**
@@ -142,7 +140,7 @@ public class FilledCircle extends GeometricalObject {
      *            Outline {@code Color} to be set
      */
     public void setOutlineColor(Color outlineColor) {
-        this.outlineColor = outlineColor;
+        this.outlineColor = outlineColor.getRGB();
     }
 
     /**
@@ -152,7 +150,7 @@ public class FilledCircle extends GeometricalObject {
      *            Area {@code Color} to be set
      */
     public void setAreaColor(Color areaColor) {
-        this.areaColor = areaColor;
+        this.areaColor = areaColor.getRGB();
     }
 
     /**
@@ -193,20 +191,74 @@ public class FilledCircle extends GeometricalObject {
     }
 
     @Override
-    public void paintComponent(Graphics g) {
-        g.setColor(areaColor);
+    public void paint(Graphics g) {
+        g.setColor(new Color(areaColor, true));
         g.fillOval(centerX - radius, centerY - radius, 2 * radius, 2 * radius);
 
-        g.setColor(outlineColor);
+        g.setColor(new Color(outlineColor, true));
         g.drawOval(centerX - radius, centerY - radius, 2 * radius, 2 * radius);
     }
 
     @Override
-    public String asText() {
-        return String.format("FCIRCLE %d %d %d %d %d %d %d %d %d", centerX,
-                centerY, radius, outlineColor.getRed(),
-                outlineColor.getGreen(), outlineColor.getBlue(),
-                areaColor.getRed(), areaColor.getGreen(), areaColor.getBlue());
+    public Rectangle getBoundingBox() {
+        return new Rectangle(centerX - radius, centerY - radius,
+                2 * radius + 1, 2 * radius + 1);
+    }
+
+    @Override
+    public boolean intersects(Rectangle area, int tolerance) {
+        return intersects(centerX, centerY, radius, area, tolerance);
+    }
+
+    /**
+     * Checks if filled circle with specified center and radius is hit by
+     * specified area, as defined by
+     * {@linkplain GeometricalObject#intersects(Rectangle, int)}.
+     * 
+     * @param centerX
+     *            Circle's center x-coordinate
+     * @param centerY
+     *            Circle's center y-coordinate
+     * @param radius
+     *            Circle's radius
+     * @param area
+     *            Tested area
+     * @param tolerance
+     *            Number of pixels by which area is being extended
+     * @return {@code true} if filled circle is hit by specified area
+     */
+    public static boolean intersects(int centerX, int centerY, int radius,
+            Rectangle area, int tolerance) {
+        double outer = radius + tolerance + 0.5;
+
+        return Circle.nearestDistanceSq(centerX, centerY, area) <= outer
+                * outer;
+    }
+
+    @Override
+    public FilledCircle copy() {
+        FilledCircle copy = new FilledCircle(centerX, centerY, radius,
+                new Color(outlineColor, true), new Color(areaColor, true));
+        copy.index = index;
+        return copy;
+    }
+
+    @Override
+    public void appendText(StringBuilder sb) {
+        sb.append("FCIRCLE ").append(centerX).append(' ').append(centerY)
+                .append(' ').append(radius);
+        appendColor(sb, outlineColor);
+        appendColor(sb, areaColor);
+    }
+
+    @Override
+    public void appendSvg(StringBuilder sb) {
+        sb.append("<circle cx=\"").append(centerX).append("\" cy=\"")
+                .append(centerY).append("\" r=\"").append(radius)
+                .append('"');
+        appendSvgPaint(sb, "fill", areaColor);
+        appendSvgPaint(sb, "stroke", outlineColor);
+        sb.append("/>");
     }
 
     @Override
@@ -1,34 +1,39 @@
 package hr.fer.zemris.java.hw12.jvdraw.object;
 
 import java.awt.Graphics;
-
-import javax.swing.JComponent;
+import java.awt.Rectangle;
 
 /**
- * {@code GeometricalObject} class extends {@code JComponent} class in order to
- * represent geometric objects which can be treated as component which can be
- * painted and drawn by its {@linkplain #paintComponent(Graphics)} method. This
- * class defines another property, which represents serial number of each
- * component. In that way, for example, every {@code Line} implementation can be
- * distinguished from another implementations. Main purpose is to define
- * meaningful name for each component.
+ * {@code GeometricalObject} class represents geometric objects which can be
+ * painted and drawn by its {@linkplain #paint(Graphics)} method. Objects are
+ * plain data holders, not Swing components, so large drawings can hold great
+ * number of them without overhead of component state. This class defines
+ * another property, which represents serial number of each object. In that
+ * way, for example, every {@code Line} implementation can be distinguished from
+ * another implementations. Main purpose is to define meaningful name for each
+ * object.
  * 
  * @author Domagoj Penic
  * @version 3.6.2015.
  *
  */
-public abstract class GeometricalObject extends JComponent {
+public abstract class GeometricalObject {
 
     /**
-     * Default serial version ID.
+     * Serial number index by which each object derived from this class is
+     * distinguished.
      */
-    private static final long serialVersionUID = 1L;
+    protected int index;
 
     /**
-     * Serial number index by which each component derived from this class is
-     * distinguished.
+     * Returns serial number index of this {@code GeometricalObject}. For more
+     * informations about this property, look at the class documentation.
+     * 
+     * @return Serial number index of this object
      */
-    protected int index;
+    public int getIndex() {
+        return index;
+    }
 
     /**
      * Sets specified index as current one. For more informations about this
@@ -56,9 +61,117 @@ public abstract class GeometricalObject extends JComponent {
      * @return {@code String} representation of this {@code GeometricalObject}
      *         with its name and parameter values
      */
-    public abstract String asText();
+    public String asText() {
+        StringBuilder sb = new StringBuilder(48);
+        appendText(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends text representation of this {@code GeometricalObject}, as
+     * defined by {@linkplain #asText()}, to specified {@code StringBuilder}.
+     * Used when many objects are being written, so no intermediate
+     * {@code String} has to be created for every object.
+     * 
+     * @param sb
+     *            {@code StringBuilder} to which representation is being
+     *            appended
+     */
+    public abstract void appendText(StringBuilder sb);
+
+    /**
+     * Appends red, green and blue component of specified packed color,
+     * each one preceded by space, to specified {@code StringBuilder}.
+     * 
+     * @param sb
+     *            {@code StringBuilder} to which components are being appended
+     * @param rgb
+     *            Packed ARGB color
+     */
+    protected static void appendColor(StringBuilder sb, int rgb) {
+        sb.append(' ').append((rgb >> 16) & 0xFF);
+        sb.append(' ').append((rgb >> 8) & 0xFF);
+        sb.append(' ').append(rgb & 0xFF);
+    }
+
+    /**
+     * Appends SVG element which represents this {@code GeometricalObject} to
+     * specified {@code StringBuilder}. Coordinates of element are the same as
+     * coordinates of this object.
+     * 
+     * @param sb
+     *            {@code StringBuilder} to which element is being appended
+     */
+    public abstract void appendSvg(StringBuilder sb);
+
+    /**
+     * Appends SVG paint attribute with specified name and packed color to
+     * specified {@code StringBuilder}, e.g. {@code stroke="#ff0000"}. If
+     * color is translucent, matching opacity attribute is appended as well.
+     * 
+     * @param sb
+     *            {@code StringBuilder} to which attribute is being appended
+     * @param name
+     *            Name of attribute, {@code stroke} or {@code fill}
+     * @param argb
+     *            Packed ARGB color
+     */
+    protected static void appendSvgPaint(StringBuilder sb, String name,
+            int argb) {
+        sb.append(' ').append(name).append("=\"#");
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            sb.append(Character.forDigit((argb >> shift) & 0xF, 16));
+        }
+        sb.append('"');
+
+        int alpha = (argb >>> 24) & 0xFF;
+        if (alpha != 0xFF) {
+            sb.append(' ').append(name).append("-opacity=\"")
+                    .append(alpha / 255.0f).append('"');
+        }
+    }
+
+    /**
+     * Checks if some pixel painted by this {@code GeometricalObject} lies
+     * inside of specified area or at most specified number of pixels away from
+     * it. Outlines are being tested as they are painted, so area inside of
+     * {@code Circle} does not hit it. Used for picking objects on canvas,
+     * where point is area of single pixel.
+     * 
+     * @param area
+     *            Tested area
+     * @param tolerance
+     *            Number of pixels by which area is being extended
+     * @return {@code true} if this object is hit by specified area
+     */
+    public abstract boolean intersects(Rectangle area, int tolerance);
 
-    @Override
-    public abstract void paintComponent(Graphics g);
+    /**
+     * Returns new {@code GeometricalObject} with the same properties and
+     * serial number index as this one, which can be changed without affecting
+     * this object.
+     * 
+     * @return Copy of this object
+     */
+    public abstract GeometricalObject copy();
+
+    /**
+     * Returns the smallest {@code Rectangle} which contains all pixels painted
+     * by this {@code GeometricalObject}. It is used for determining which
+     * objects have to be painted in some area, for example in visible part of
+     * canvas.
+     * 
+     * @return Bounding box of this {@code GeometricalObject}
+     */
+    public abstract Rectangle getBoundingBox();
+
+    /**
+     * Paints this {@code GeometricalObject} on specified {@code Graphics}
+     * object, using coordinates of the {@code Graphics} object.
+     * 
+     * @param g
+     *            {@code Graphics} object on which this object is being painted
+     */
+    public abstract void paint(Graphics g);
 
 }
@@ -2,13 +2,15 @@ package hr.fer.zemris.java.hw12.jvdraw.object;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.geom.Line2D;
 
 /**
  * {@code Line} class extends {@code GeometricalObject} class and represents
  * single two-dimensional line which can be painted and drawn by its
- * {@linkplain #paintComponent(Graphics)} method. {@code Line} is defined by its
+ * {@linkplain #paint(Graphics)} method. {@code Line} is defined by its
  * start point, end point and its {@code Color} which is being used when this
- * {@code JComponent} is being painted.
+ * object is being painted.
  * 
  * @author Domagoj Penic
  * @version 3.6.2015.
@@ -16,9 +18,6 @@ import java.awt.Graphics;
  */
 public class Line extends GeometricalObject {
 
-    /** Default serial version ID. */
-    private static final long serialVersionUID = 1L;
-
     /** Line's start point x-coordinate. */
     private int startX;
     /** Line's start point y-coordinate. */
@@ -29,8 +28,8 @@ public class Line extends GeometricalObject {
     /** Line's end point y-coordinate. */
     private int endY;
 
-    /** Color to be used when this line is being painted. */
-    private Color color;
+    /** Color to be used when this line is being painted, packed as ARGB. */
+    private int color;
 
     /**
      * Creates new {@code Line} with specified parameters, its start point, end
@@ -55,7 +54,7 @@ public class Line extends GeometricalObject {
         this.endX = endX;
         this.endY = endY;
 
-        this.color = color;
+        this.color = color.getRGB();
     }
 
     /**
@@ -140,7 +139,7 @@ public class Line extends GeometricalObject {
      * @return {@code Color} of this {@code Line}
      */
     public Color getColor() {
-        return color;
+        return new Color(color, true);
     }
 
     /**
@@ -150,7 +149,7 @@ public class Line extends GeometricalObject {
      *            {@code Color} to be set as current
      */
     public void setColor(Color color) {
-        this.color = color;
+        this.color = color.getRGB();
     }
 
     /**
@@ -180,24 +179,99 @@ public class Line extends GeometricalObject {
         int startY = Integer.parseInt(params[1]);
         int endX = Integer.parseInt(params[2]);
         int endY = Integer.parseInt(params[3]);
-        int colorGreen = Integer.parseInt(params[4]);
-        int colorBlue = Integer.parseInt(params[5]);
-        int colorRed = Integer.parseInt(params[6]);
+        int colorRed = Integer.parseInt(params[4]);
+        int colorGreen = Integer.parseInt(params[5]);
+        int colorBlue = Integer.parseInt(params[6]);
 
         return new Line(startX, startY, endX, endY, new Color(colorRed,
                 colorGreen, colorBlue));
     }
 
     @Override
-    public void paintComponent(Graphics g) {
-        g.setColor(color);
+    public void paint(Graphics g) {
+        g.setColor(new Color(color, true));
         g.drawLine(startX, startY, endX, endY);
     }
 
     @Override
-    public String asText() {
-        return String.format("LINE %d %d %d %d %d %d %d", startX, startY, endX,
-                endY, color.getRed(), color.getGreen(), color.getBlue());
+    public Rectangle getBoundingBox() {
+        int x = Math.min(startX, endX);
+        int y = Math.min(startY, endY);
+
+        return new Rectangle(x, y, Math.abs(endX - startX) + 1,
+                Math.abs(endY - startY) + 1);
+    }
+
+    @Override
+    public boolean intersects(Rectangle area, int tolerance) {
+        return intersects(startX, startY, endX, endY, area, tolerance);
+    }
+
+    /**
+     * Checks if line with specified end points is hit by specified area, as
+     * defined by {@linkplain GeometricalObject#intersects(Rectangle, int)}.
+     * Line is one pixel wide.
+     * 
+     * @param startX
+     *            Line's start point x-coordinate
+     * @param startY
+     *            Line's start point y-coordinate
+     * @param endX
+     *            Line's end point x-coordinate
+     * @param endY
+     *            Line's end point y-coordinate
+     * @param area
+     *            Tested area
+     * @param tolerance
+     *            Number of pixels by which area is being extended
+     * @return {@code true} if line is hit by specified area
+     */
+    public static boolean intersects(int startX, int startY, int endX,
+            int endY, Rectangle area, int tolerance) {
+        // Edges of pixels in extended area
+        double minX = area.x - tolerance - 0.5;
+        double minY = area.y - tolerance - 0.5;
+        double maxX = area.x + area.width - 1 + tolerance + 0.5;
+        double maxY = area.y + area.height - 1 + tolerance + 0.5;
+
+        if (startX >= minX && startX <= maxX && startY >= minY
+                && startY <= maxY) {
+            return true;
+        }
+
+        // Line which starts outside of area has to cross one of its edges
+        return Line2D.linesIntersect(startX, startY, endX, endY, minX, minY,
+                maxX, minY)
+                || Line2D.linesIntersect(startX, startY, endX, endY, maxX,
+                        minY, maxX, maxY)
+                || Line2D.linesIntersect(startX, startY, endX, endY, minX,
+                        maxY, maxX, maxY)
+                || Line2D.linesIntersect(startX, startY, endX, endY, minX,
+                        minY, minX, maxY);
+    }
+
+    @Override
+    public Line copy() {
+        Line copy = new Line(startX, startY, endX, endY,
+                new Color(color, true));
+        copy.index = index;
+        return copy;
+    }
+
+    @Override
+    public void appendText(StringBuilder sb) {
+        sb.append("LINE ").append(startX).append(' ').append(startY)
+                .append(' ').append(endX).append(' ').append(endY);
+        appendColor(sb, color);
+    }
+
+    @Override
+    public void appendSvg(StringBuilder sb) {
+        sb.append("<line x1=\"").append(startX).append("\" y1=\"")
+                .append(startY).append("\" x2=\"").append(endX)
+                .append("\" y2=\"").append(endY).append('"');
+        appendSvgPaint(sb, "stroke", color);
+        sb.append("/>");
     }
 
     @Override
@@ -0,0 +1,112 @@
+package hr.fer.zemris.java.hw12.jvdraw;
+
+import hr.fer.zemris.java.hw12.jvdraw.component.ColumnarDrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModelImpl;
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * {@code TestDrawings} creates reproducible random drawings which are used
+ * by tests and benchmarks, and models which hold them. Objects have opaque
+ * colors, since text format stores only RGB components.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class TestDrawings {
+
+    /**
+     * Width and height of area in which objects are being generated.
+     */
+    public static final int AREA_SIZE = 5_000;
+
+    /**
+     * Creates new random {@code GeometricalObject}, a line, a circle or a
+     * filled circle, inside area of size {@value #AREA_SIZE}.
+     * 
+     * @param random
+     *            Source of random numbers
+     * @return Created object
+     */
+    public static GeometricalObject randomObject(Random random) {
+        int x = random.nextInt(AREA_SIZE);
+        int y = random.nextInt(AREA_SIZE);
+        Color color = new Color(random.nextInt(0x1000000));
+
+        switch (random.nextInt(3)) {
+            case 0:
+                return new Line(x, y, x + random.nextInt(200) - 100, y
+                        + random.nextInt(200) - 100, color);
+            case 1:
+                return new Circle(x, y, random.nextInt(100), color);
+            default:
+                return new FilledCircle(x, y, random.nextInt(100), color,
+                        new Color(random.nextInt(0x1000000)));
+        }
+    }
+
+    /**
+     * Creates specified number of random {@code GeometricalObject}s. Same
+     * seed always gives same objects.
+     * 
+     * @param count
+     *            Number of objects
+     * @param seed
+     *            Seed of random numbers
+     * @return Created objects
+     */
+    public static List<GeometricalObject> randomObjects(int count, long seed) {
+        Random random = new Random(seed);
+        List<GeometricalObject> objects = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            objects.add(randomObject(random));
+        }
+        return objects;
+    }
+
+    /**
+     * Creates both implementations of {@code DrawingModel} with the same
+     * specified number of random objects, created with seed 42.
+     * 
+     * @param count
+     *            Number of objects
+     * @return Created models
+     */
+    public static List<DrawingModel> models(int count) {
+        List<DrawingModel> models = new ArrayList<>();
+        models.add(new DrawingModelImpl());
+        models.add(new ColumnarDrawingModel());
+
+        for (DrawingModel drawingModel : models) {
+            drawingModel.addAll(randomObjects(count, 42));
+        }
+        return models;
+    }
+
+    /**
+     * Returns text representations of all objects of specified model, in
+     * order.
+     * 
+     * @param drawingModel
+     *            Model whose objects are returned
+     * @return Text representations of objects
+     */
+    public static List<String> texts(DrawingModel drawingModel) {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < drawingModel.getSize(); i++) {
+            texts.add(drawingModel.getObject(i).asText());
+        }
+        return texts;
+    }
+
+}
@@ -0,0 +1,191 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH measurement of end-to-end throughput of {@code ConcurrentDrawingModel}
+ * in objects per second, i.e. of adding objects one by one from producer
+ * threads until all of them are published on Event Dispatch Thread. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec
+ * -Dbenchmark=ConcurrentDrawingModel}.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Djava.awt.headless=true" })
+public class ConcurrentDrawingModelBenchmark {
+
+    /**
+     * Number of objects added in every invocation.
+     */
+    private static final int OBJECTS = 1_000_000;
+
+    /**
+     * Width and height of area in which objects are being generated.
+     */
+    private static final int AREA_SIZE = 10_000;
+
+    /**
+     * Number of producer threads.
+     */
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    /**
+     * Indicates whether objects are stored in {@code ColumnarDrawingModel}
+     * instead of {@code DrawingModelImpl}.
+     */
+    @Param({ "false", "true" })
+    public boolean columnar;
+
+    /**
+     * Producer threads.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Model to which objects are being added.
+     */
+    private DrawingModel drawingModel;
+
+    /**
+     * Latch which is released once all objects are published.
+     */
+    private CountDownLatch published;
+
+    /**
+     * Starts producer threads.
+     */
+    @Setup
+    public void startProducers() {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Stops producer threads.
+     */
+    @TearDown
+    public void stopProducers() {
+        executor.shutdown();
+    }
+
+    /**
+     * Creates new empty model and registers listener which releases the
+     * latch once all objects are published.
+     * 
+     * @throws InterruptedException
+     *             If current thread is interrupted while waiting
+     * @throws InvocationTargetException
+     *             If registering of the listener fails
+     */
+    @Setup(Level.Invocation)
+    public void createModel() throws InterruptedException,
+            InvocationTargetException {
+        drawingModel = new ConcurrentDrawingModel(
+                columnar ? new ColumnarDrawingModel() : new DrawingModelImpl());
+        published = new CountDownLatch(1);
+
+        DrawingModelListener listener = new DrawingModelListener() {
+
+            @Override
+            public void objectsAdded(DrawingModel source, int index0,
+                    int index1) {
+                if (source.getSize() == OBJECTS) {
+                    published.countDown();
+                }
+            }
+
+            @Override
+            public void objectsRemoved(DrawingModel source, int index0,
+                    int index1) {
+            }
+
+            @Override
+            public void objectsChanged(DrawingModel source, int index0,
+                    int index1) {
+            }
+        };
+        SwingUtilities.invokeAndWait(() -> drawingModel
+                .addDrawingModelListener(listener));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OBJECTS)
+    public void addAndPublish() throws InterruptedException,
+            ExecutionException {
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int count = OBJECTS / threads + (i < OBJECTS % threads ? 1 : 0);
+            results.add(executor.submit(() -> produce(count)));
+        }
+
+        for (Future<?> result : results) {
+            result.get();
+        }
+        published.await();
+    }
+
+    /**
+     * Adds specified number of random lines and circles to the model, one by
+     * one.
+     * 
+     * @param count
+     *            Number of objects to be added
+     */
+    private void produce(int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(AREA_SIZE);
+            int y = random.nextInt(AREA_SIZE);
+            Color color = new Color(random.nextInt(0x1000000));
+
+            GeometricalObject object;
+            if (random.nextBoolean()) {
+                object = new Line(x, y, x + random.nextInt(100), y
+                        + random.nextInt(100), color);
+            } else {
+                object = new Circle(x, y, random.nextInt(50), color);
+            }
+            drawingModel.add(object);
+        }
+    }
+
+}
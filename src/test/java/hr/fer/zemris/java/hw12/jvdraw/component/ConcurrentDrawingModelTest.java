@@ -0,0 +1,77 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that producers of {@code ConcurrentDrawingModel} wait while Event
+ * Dispatch Thread does not publish their objects, and that all objects are
+ * published in order in which they were added once it does.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class ConcurrentDrawingModelTest {
+
+    /**
+     * Number of added objects, much larger than the bound of pending objects.
+     */
+    private static final int COUNT = 1_000_000;
+
+    @Test(timeout = 60_000)
+    public void producerWaitsForEventDispatchThread() throws Exception {
+        ConcurrentDrawingModel drawingModel = new ConcurrentDrawingModel(
+                new DrawingModelImpl());
+        AtomicInteger added = new AtomicInteger();
+
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        SwingUtilities.invokeLater(() -> {
+            blocked.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.await();
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < COUNT; i++) {
+                drawingModel.add(new Line(i, 0, i, 1, Color.BLACK));
+                added.incrementAndGet();
+            }
+        });
+        producer.start();
+
+        while (producer.getState() != Thread.State.WAITING) {
+            Assert.assertTrue(producer.isAlive());
+            Thread.sleep(10);
+        }
+        Assert.assertTrue("Added: " + added.get(), added.get() < COUNT / 2);
+
+        released.countDown();
+        producer.join();
+
+        SwingUtilities.invokeAndWait(() -> {
+            drawingModel.flush();
+
+            Assert.assertEquals(COUNT, drawingModel.getSize());
+            for (int i = 0; i < COUNT; i++) {
+                Line line = (Line) drawingModel.getObject(i);
+                Assert.assertEquals(i, line.getStartX());
+                Assert.assertEquals(i + 1, line.getIndex());
+            }
+        });
+    }
+
+}
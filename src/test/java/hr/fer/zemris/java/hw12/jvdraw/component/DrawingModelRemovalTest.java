@@ -0,0 +1,221 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import hr.fer.zemris.java.hw12.jvdraw.TestDrawings;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests removal of objects from both implementations of
+ * {@code DrawingModel}, especially coalescing of notifications about removed
+ * ranges.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingModelRemovalTest {
+
+    /**
+     * Number of objects in tested drawings.
+     */
+    private static final int COUNT = 1000;
+
+    @Test
+    public void removeIfReportsContiguousRanges() {
+        for (DrawingModel drawingModel : TestDrawings.models(COUNT)) {
+            List<GeometricalObject> objects = objects(drawingModel);
+            List<String> events = record(drawingModel);
+
+            // Three ranges: 10 - 19, 500 and 990 - 999
+            int removed = removeAt(drawingModel, index -> index >= 10
+                    && index < 20 || index == 500 || index >= 990);
+
+            Assert.assertEquals(21, removed);
+            Assert.assertEquals(Arrays.asList("removed 990 999",
+                    "removed 500 500", "removed 10 19"), events);
+
+            List<GeometricalObject> expected = new ArrayList<>(objects);
+            expected.subList(990, 1000).clear();
+            expected.remove(500);
+            expected.subList(10, 20).clear();
+            assertContent(expected, drawingModel);
+        }
+    }
+
+    @Test
+    public void removeIfCoalescesManyRanges() {
+        for (DrawingModel drawingModel : TestDrawings.models(COUNT)) {
+            List<GeometricalObject> objects = objects(drawingModel);
+            List<String> events = record(drawingModel);
+
+            // Every third object from position 100, too many ranges
+            int removed = removeAt(drawingModel, index -> index >= 100
+                    && index % 3 == 1);
+
+            Assert.assertEquals(300, removed);
+            Assert.assertEquals(Arrays.asList("removed 100 999",
+                    "added 100 699"), events);
+
+            List<GeometricalObject> expected = new ArrayList<>();
+            for (int i = 0; i < COUNT; i++) {
+                if (i < 100 || i % 3 != 1) {
+                    expected.add(objects.get(i));
+                }
+            }
+            assertContent(expected, drawingModel);
+        }
+    }
+
+    @Test
+    public void removeIfWithoutMatchesDoesNotNotify() {
+        for (DrawingModel drawingModel : TestDrawings.models(COUNT)) {
+            List<String> events = record(drawingModel);
+
+            Assert.assertEquals(0, drawingModel.removeIf(object -> false));
+            Assert.assertTrue(events.isEmpty());
+            Assert.assertEquals(COUNT, drawingModel.getSize());
+        }
+    }
+
+    @Test
+    public void removeRangeReportsSingleRange() {
+        for (DrawingModel drawingModel : TestDrawings.models(COUNT)) {
+            List<GeometricalObject> objects = objects(drawingModel);
+            List<String> events = record(drawingModel);
+
+            drawingModel.removeRange(200, 799);
+            drawingModel.remove(0);
+
+            Assert.assertEquals(Arrays.asList("removed 200 799",
+                    "removed 0 0"), events);
+
+            List<GeometricalObject> expected = new ArrayList<>(objects);
+            expected.subList(200, 800).clear();
+            expected.remove(0);
+            assertContent(expected, drawingModel);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void removeRangeChecksBounds() {
+        TestDrawings.models(COUNT).get(0).removeRange(COUNT - 1, COUNT);
+    }
+
+    /**
+     * Removes objects on positions accepted by specified filter by
+     * {@linkplain DrawingModel#removeIf(java.util.function.Predicate)}.
+     * Objects are recognized by their text representation, since columnar
+     * model creates new object on every access.
+     * 
+     * @param drawingModel
+     *            Model from which objects are removed
+     * @param positions
+     *            Filter of positions of removed objects
+     * @return Number of removed objects
+     */
+    private static int removeAt(DrawingModel drawingModel,
+            IntPredicate positions) {
+        Set<String> removed = new HashSet<>();
+        for (int i = 0; i < drawingModel.getSize(); i++) {
+            if (positions.test(i)) {
+                removed.add(drawingModel.getObject(i).asText());
+            }
+        }
+
+        return drawingModel.removeIf(object -> removed.contains(object
+                .asText()));
+    }
+
+    /**
+     * Returns all objects of specified model, in order.
+     * 
+     * @param drawingModel
+     *            Model whose objects are returned
+     * @return Objects of the model
+     */
+    private static List<GeometricalObject> objects(DrawingModel drawingModel) {
+        List<GeometricalObject> objects = new ArrayList<>();
+        for (int i = 0; i < drawingModel.getSize(); i++) {
+            objects.add(drawingModel.getObject(i));
+        }
+        return objects;
+    }
+
+    /**
+     * Checks that specified model holds specified objects, in order, and
+     * that its spatial index finds them on their new positions.
+     * 
+     * @param expected
+     *            Expected objects
+     * @param drawingModel
+     *            Checked model
+     */
+    private static void assertContent(List<GeometricalObject> expected,
+            DrawingModel drawingModel) {
+        Assert.assertEquals(expected.size(), drawingModel.getSize());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).asText(), drawingModel
+                    .getObject(i).asText());
+        }
+
+        Rectangle area = new Rectangle(1000, 1000, 2000, 2000);
+        List<Integer> found = new ArrayList<>();
+        for (int index : drawingModel.getObjectsIn(area)) {
+            found.add(index);
+        }
+
+        List<Integer> intersecting = new ArrayList<>();
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i).getBoundingBox().intersects(area)) {
+                intersecting.add(i);
+            }
+        }
+        Assert.assertEquals(intersecting, found);
+    }
+
+    /**
+     * Attaches listener to specified model which records all notifications
+     * as text.
+     * 
+     * @param drawingModel
+     *            Observed model
+     * @return List to which notifications are being recorded
+     */
+    private static List<String> record(DrawingModel drawingModel) {
+        List<String> events = new ArrayList<>();
+
+        drawingModel.addDrawingModelListener(new DrawingModelListener() {
+
+            @Override
+            public void objectsAdded(DrawingModel source, int index0,
+                    int index1) {
+                events.add("added " + index0 + " " + index1);
+            }
+
+            @Override
+            public void objectsRemoved(DrawingModel source, int index0,
+                    int index1) {
+                events.add("removed " + index0 + " " + index1);
+            }
+
+            @Override
+            public void objectsChanged(DrawingModel source, int index0,
+                    int index1) {
+                events.add("changed " + index0 + " " + index1);
+            }
+        });
+
+        return events;
+    }
+
+}
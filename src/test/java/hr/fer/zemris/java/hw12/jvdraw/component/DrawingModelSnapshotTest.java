@@ -0,0 +1,140 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import hr.fer.zemris.java.hw12.jvdraw.TestDrawings;
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that snapshots of both implementations of {@code DrawingModel} are
+ * isolated from later changes of the model, and the model from changes of
+ * its snapshots, although they share their storage.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingModelSnapshotTest {
+
+    /**
+     * Number of objects in tested drawings, so they span several chunks.
+     */
+    private static final int COUNT = 5000;
+
+    /**
+     * Area in which spatial index of models is being checked.
+     */
+    private static final Rectangle AREA = new Rectangle(1000, 1000, 2000,
+            2000);
+
+    @Test
+    public void snapshotIsNotChangedByModel() {
+        for (DrawingModel drawingModel : TestDrawings.models(COUNT)) {
+            DrawingModel snapshot = drawingModel.snapshot();
+            List<String> content = TestDrawings.texts(snapshot);
+            int[] indexed = snapshot.getObjectsIn(AREA);
+
+            changeEverything(drawingModel);
+
+            Assert.assertEquals(content, TestDrawings.texts(snapshot));
+            Assert.assertTrue(Arrays.equals(indexed, snapshot
+                    .getObjectsIn(AREA)));
+            Assert.assertFalse(content.equals(TestDrawings
+                    .texts(drawingModel)));
+        }
+    }
+
+    @Test
+    public void modelIsNotChangedBySnapshot() {
+        for (DrawingModel drawingModel : TestDrawings.models(COUNT)) {
+            List<String> content = TestDrawings.texts(drawingModel);
+            int[] indexed = drawingModel.getObjectsIn(AREA);
+
+            changeEverything(drawingModel.snapshot());
+
+            Assert.assertEquals(content, TestDrawings.texts(drawingModel));
+            Assert.assertTrue(Arrays.equals(indexed, drawingModel
+                    .getObjectsIn(AREA)));
+        }
+    }
+
+    @Test
+    public void everySnapshotKeepsItsOwnContent() {
+        for (DrawingModel drawingModel : TestDrawings.models(COUNT)) {
+            List<DrawingModel> snapshots = new ArrayList<>();
+            List<List<String>> contents = new ArrayList<>();
+
+            for (int i = 0; i < 20; i++) {
+                snapshots.add(drawingModel.snapshot());
+                contents.add(TestDrawings.texts(drawingModel));
+
+                drawingModel.set(i * 211, new Circle(i, i, i, Color.RED));
+                drawingModel.add(new Line(i, i, 2 * i, 2 * i, Color.BLUE));
+                drawingModel.removeRange(i * 97, i * 97 + 10);
+            }
+
+            for (int i = 0; i < snapshots.size(); i++) {
+                Assert.assertEquals(contents.get(i), TestDrawings
+                        .texts(snapshots.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void snapshotDoesNotNotifyObserversOfModel() {
+        for (DrawingModel drawingModel : TestDrawings.models(COUNT)) {
+            int[] notifications = new int[1];
+            drawingModel.addDrawingModelListener(new DrawingModelListener() {
+
+                @Override
+                public void objectsAdded(DrawingModel source, int index0,
+                        int index1) {
+                    notifications[0]++;
+                }
+
+                @Override
+                public void objectsRemoved(DrawingModel source, int index0,
+                        int index1) {
+                    notifications[0]++;
+                }
+
+                @Override
+                public void objectsChanged(DrawingModel source, int index0,
+                        int index1) {
+                    notifications[0]++;
+                }
+            });
+
+            changeEverything(drawingModel.snapshot());
+            Assert.assertEquals(0, notifications[0]);
+        }
+    }
+
+    /**
+     * Adds, replaces, inserts and removes objects all over specified model.
+     * 
+     * @param drawingModel
+     *            Model to be changed
+     */
+    private static void changeEverything(DrawingModel drawingModel) {
+        for (int i = 0; i < drawingModel.getSize(); i += 97) {
+            drawingModel.set(i, new Circle(i % 5000, 2000, 50, Color.GREEN));
+        }
+        drawingModel.add(new Line(1500, 1500, 2500, 2500, Color.RED));
+        drawingModel.insert(10, Arrays.asList(new Circle(2000, 2000, 10,
+                Color.BLUE)));
+        drawingModel.removeRange(1000, 1999);
+
+        int[] position = new int[1];
+        drawingModel.removeIf(object -> position[0]++ % 13 == 0);
+    }
+
+}
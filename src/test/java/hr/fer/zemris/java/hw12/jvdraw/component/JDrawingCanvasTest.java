@@ -0,0 +1,176 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests painting of {@code JDrawingCanvas} at low level of detail: crowded
+ * tiles must look as if all objects were painted without antialiasing, and
+ * repainting part of the canvas must give the same image as painting all of
+ * it.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class JDrawingCanvasTest {
+
+    /**
+     * Width and height of tested canvas.
+     */
+    private static final int SIZE = 300;
+
+    @Test
+    public void crowdedCanvasKeepsAllVisiblePixels() {
+        DrawingModel drawingModel = new DrawingModelImpl();
+        drawingModel.addAll(smallObjects(new Random(42), 3 * SIZE * SIZE / 4));
+
+        BufferedImage expected = new BufferedImage(SIZE, SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = expected.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, SIZE, SIZE);
+        for (int i = 0; i < drawingModel.getSize(); i++) {
+            drawingModel.getObject(i).paint(g2d);
+        }
+        g2d.dispose();
+
+        assertSameImage(expected, paint(new JDrawingCanvas(drawingModel)));
+    }
+
+    @Test
+    public void repaintedAreaMatchesWholeCanvas() {
+        Random random = new Random(7);
+        DrawingModel drawingModel = new DrawingModelImpl();
+
+        // Left half is crowded, right half holds few larger circles
+        for (GeometricalObject object : smallObjects(random, SIZE * SIZE / 2)) {
+            if (object.getBoundingBox().x < SIZE / 2) {
+                drawingModel.add(object);
+            }
+        }
+        for (int i = 0; i < SIZE * SIZE / 40; i++) {
+            drawingModel.add(randomCircle(random));
+        }
+
+        JDrawingCanvas canvas = new JDrawingCanvas(drawingModel);
+        paint(canvas);
+
+        // Small changes repaint only small parts of the canvas
+        for (int i = 0; i < 20; i++) {
+            drawingModel.add(randomCircle(random));
+            drawingModel.remove(random.nextInt(drawingModel.getSize()));
+        }
+
+        assertSameImage(paint(new JDrawingCanvas(drawingModel)),
+                paint(canvas));
+    }
+
+    /**
+     * Creates random circle of radius between 3 and 10 in the right half of
+     * the canvas.
+     * 
+     * @param random
+     *            Source of random numbers
+     * @return Created circle
+     */
+    private static Circle randomCircle(Random random) {
+        return new Circle(SIZE / 2 + 10 + random.nextInt(SIZE / 2 - 20),
+                10 + random.nextInt(SIZE - 20), 3 + random.nextInt(8),
+                new Color(random.nextInt()));
+    }
+
+    /**
+     * Paints specified canvas of size {@value #SIZE} into new image.
+     * 
+     * @param canvas
+     *            Canvas to be painted
+     * @return Painted image
+     */
+    private static BufferedImage paint(JDrawingCanvas canvas) {
+        canvas.setSize(SIZE, SIZE);
+
+        BufferedImage image = new BufferedImage(SIZE, SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_OFF);
+        canvas.paintComponent(g2d);
+        g2d.dispose();
+        return image;
+    }
+
+    /**
+     * Creates specified number of random objects inside the canvas, mostly
+     * single pixels and other objects of at most three pixels, some of them
+     * translucent.
+     * 
+     * @param random
+     *            Source of random numbers
+     * @param count
+     *            Number of objects
+     * @return Created objects
+     */
+    private static List<GeometricalObject> smallObjects(
+            Random random, int count) {
+        List<GeometricalObject> objects = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(SIZE);
+            int y = random.nextInt(SIZE);
+            Color color = new Color(random.nextInt(), random.nextInt(10) == 0);
+
+            switch (random.nextInt(5)) {
+                case 0:
+                case 1:
+                    objects.add(new Line(x, y, x, y, color));
+                    break;
+                case 2:
+                    objects.add(new Line(x, y, x + random.nextInt(5) - 2, y
+                            + random.nextInt(5) - 2, color));
+                    break;
+                case 3:
+                    objects.add(new Circle(x, y, random.nextInt(2), color));
+                    break;
+                default:
+                    objects.add(new FilledCircle(x, y, random.nextInt(2),
+                            color, Color.GREEN));
+                    break;
+            }
+        }
+        return objects;
+    }
+
+    /**
+     * Checks that specified images have the same pixels.
+     * 
+     * @param expected
+     *            Expected image
+     * @param actual
+     *            Actual image
+     */
+    private static void assertSameImage(BufferedImage expected,
+            BufferedImage actual) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    Assert.fail("Pixel " + x + ", " + y + " differs");
+                }
+            }
+        }
+    }
+
+}
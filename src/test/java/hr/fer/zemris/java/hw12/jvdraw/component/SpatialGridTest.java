@@ -0,0 +1,117 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that {@code SpatialGrid} finds the same objects as checking bounding
+ * boxes of all objects, after insertions and removals on various positions,
+ * including those which skip cells holding only earlier objects.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class SpatialGridTest {
+
+    /**
+     * Width and height of area in which bounding boxes are being generated.
+     */
+    private static final int AREA_SIZE = 4000;
+
+    @Test
+    public void insertionsAndRemovalsKeepIndexConsistent() {
+        Random random = new Random(42);
+        SpatialGrid grid = new SpatialGrid();
+        List<int[]> boxes = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            int[] box = randomBox(random);
+            boxes.add(box);
+            grid.add(box[0], box[1], box[2], box[3]);
+        }
+
+        for (int round = 0; round < 200; round++) {
+            // Edits are mostly near the end, like undo of recent changes
+            int index = round % 2 == 0 ? boxes.size() - random.nextInt(20)
+                    : random.nextInt(boxes.size() + 1);
+            index = Math.max(0, index);
+
+            if (random.nextBoolean()) {
+                int count = 1 + random.nextInt(5);
+                grid.insert(index, count);
+                for (int i = 0; i < count; i++) {
+                    int[] box = randomBox(random);
+                    boxes.add(index + i, box);
+                    grid.update(index + i, box[0], box[1], box[2], box[3]);
+                }
+            } else if (index < boxes.size()) {
+                BitSet removed = new BitSet();
+                removed.set(index, Math.min(boxes.size(), index + 3));
+                for (int i = removed.length() - 1; i >= 0; i--) {
+                    if (removed.get(i)) {
+                        boxes.remove(i);
+                    }
+                }
+                grid.remove(removed);
+            }
+
+            Assert.assertEquals(boxes.size(), grid.size());
+            assertQuery(grid, boxes, 1000, 1000, 1999, 2999);
+            assertQuery(grid, boxes, 0, 0, AREA_SIZE, AREA_SIZE);
+        }
+    }
+
+    /**
+     * Checks that specified grid finds exactly objects whose bounding boxes
+     * intersect specified area.
+     * 
+     * @param grid
+     *            Checked grid
+     * @param boxes
+     *            Expected bounding boxes of objects, in order
+     * @param minX
+     *            Minimal x-coordinate of requested area
+     * @param minY
+     *            Minimal y-coordinate of requested area
+     * @param maxX
+     *            Maximal x-coordinate of requested area
+     * @param maxY
+     *            Maximal y-coordinate of requested area
+     */
+    private static void assertQuery(SpatialGrid grid, List<int[]> boxes,
+            int minX, int minY, int maxX, int maxY) {
+        IntList expected = new IntList();
+        for (int i = 0; i < boxes.size(); i++) {
+            int[] box = boxes.get(i);
+            if (box[0] <= maxX && box[2] >= minX && box[1] <= maxY
+                    && box[3] >= minY) {
+                expected.add(i);
+            }
+        }
+
+        Assert.assertArrayEquals(expected.toArray(), grid.query(minX, minY,
+                maxX, maxY));
+    }
+
+    /**
+     * Creates random bounding box, mostly small, sometimes covering many
+     * cells.
+     * 
+     * @param random
+     *            Source of random numbers
+     * @return Coordinates {@code minX, minY, maxX, maxY}
+     */
+    private static int[] randomBox(Random random) {
+        int x = random.nextInt(AREA_SIZE);
+        int y = random.nextInt(AREA_SIZE);
+        int size = random.nextInt(10) == 0 ? 3000 : random.nextInt(300);
+        return new int[] { x, y, x + size, y + size };
+    }
+
+}
@@ -0,0 +1,168 @@
+package hr.fer.zemris.java.hw12.jvdraw.component;
+
+import hr.fer.zemris.java.hw12.jvdraw.TestDrawings;
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests undo and redo of changes recorded by {@code UndoableDrawingModel}
+ * over both implementations of {@code DrawingModel}.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class UndoableDrawingModelTest {
+
+    /**
+     * Number of objects in tested drawings.
+     */
+    private static final int COUNT = 1000;
+
+    @Test
+    public void undoRestoresFewScatteredRemovals() {
+        // Three ranges, restored by separate insertions
+        assertScatteredRemoval(index -> index < 5 || index == 300
+                || index >= 900 && index < 950);
+    }
+
+    @Test
+    public void undoRestoresManyScatteredRemovals() {
+        // Hundreds of ranges, restored by single merged insertion
+        assertScatteredRemoval(index -> index % 7 == 3 || index % 11 == 0);
+    }
+
+    @Test
+    public void undoAndRedoOfAddAndSet() {
+        for (UndoableDrawingModel undoable : models()) {
+            List<String> original = TestDrawings.texts(undoable);
+
+            undoable.add(new Line(1, 2, 3, 4, Color.RED));
+            undoable.set(10, new Circle(5, 6, 7, Color.BLUE));
+            List<String> changed = TestDrawings.texts(undoable);
+
+            undoable.undo();
+            undoable.undo();
+            Assert.assertEquals(original, TestDrawings.texts(undoable));
+            Assert.assertFalse(undoable.canUndo());
+
+            undoable.redo();
+            undoable.redo();
+            Assert.assertEquals(changed, TestDrawings.texts(undoable));
+            Assert.assertFalse(undoable.canRedo());
+        }
+    }
+
+    @Test
+    public void objectsAppendedDirectlyAreNotUndone() {
+        for (DrawingModel adapted : TestDrawings.models(COUNT)) {
+            UndoableDrawingModel undoable = new UndoableDrawingModel(adapted);
+            List<String> original = TestDrawings.texts(undoable);
+
+            undoable.removeRange(100, 199);
+            undoable.add(new Line(1, 2, 3, 4, Color.RED));
+            List<String> beforeLoading = TestDrawings.texts(undoable);
+
+            // Loaded document is appended to adapted model
+            List<GeometricalObject> loaded = TestDrawings.randomObjects(
+                    5000, 7);
+            adapted.addAll(loaded);
+            List<String> loadedTexts = TestDrawings.texts(adapted).subList(
+                    beforeLoading.size(), adapted.getSize());
+
+            undoable.undo();
+            undoable.undo();
+            List<String> expected = new ArrayList<>(original);
+            expected.addAll(loadedTexts);
+            Assert.assertEquals(expected, TestDrawings.texts(undoable));
+            Assert.assertFalse(undoable.canUndo());
+
+            undoable.redo();
+            undoable.redo();
+            expected = new ArrayList<>(beforeLoading);
+            expected.addAll(loadedTexts);
+            Assert.assertEquals(expected, TestDrawings.texts(undoable));
+        }
+    }
+
+    @Test
+    public void oldestChangesAreForgottenOverBudget() {
+        UndoableDrawingModel undoable = new UndoableDrawingModel(
+                new DrawingModelImpl(), 4096);
+
+        for (int i = 0; i < 100; i++) {
+            undoable.add(new Line(i, i, i + 1, i + 1, Color.RED));
+        }
+        Assert.assertTrue(undoable.getMemoryUsage() <= 4096);
+
+        int undone = 0;
+        while (undoable.canUndo()) {
+            undoable.undo();
+            undone++;
+        }
+        Assert.assertTrue(undone < 100);
+        Assert.assertEquals(100 - undone, undoable.getSize());
+    }
+
+    /**
+     * Removes objects on positions accepted by specified filter in one call
+     * of {@linkplain DrawingModel#removeIf(java.util.function.Predicate)},
+     * and checks that undo restores all of them on their positions and that
+     * redo removes them again, for both implementations of model.
+     * 
+     * @param positions
+     *            Filter of positions of removed objects
+     */
+    private static void assertScatteredRemoval(IntPredicate positions) {
+        for (UndoableDrawingModel undoable : models()) {
+            List<String> original = TestDrawings.texts(undoable);
+            Set<String> removed = new HashSet<>();
+            List<String> remaining = new ArrayList<>();
+            for (int i = 0; i < original.size(); i++) {
+                if (positions.test(i)) {
+                    removed.add(original.get(i));
+                } else {
+                    remaining.add(original.get(i));
+                }
+            }
+
+            int count = undoable.removeIf(object -> removed.contains(object
+                    .asText()));
+            Assert.assertEquals(original.size() - remaining.size(), count);
+            Assert.assertEquals(remaining, TestDrawings.texts(undoable));
+
+            undoable.undo();
+            Assert.assertEquals(original, TestDrawings.texts(undoable));
+
+            undoable.redo();
+            Assert.assertEquals(remaining, TestDrawings.texts(undoable));
+        }
+    }
+
+    /**
+     * Creates {@code UndoableDrawingModel}s over both implementations of
+     * {@code DrawingModel}, see {@code TestDrawings}. Adding of
+     * objects which they hold is not recorded.
+     * 
+     * @return Created models
+     */
+    private static List<UndoableDrawingModel> models() {
+        List<UndoableDrawingModel> models = new ArrayList<>();
+        for (DrawingModel adapted : TestDrawings.models(COUNT)) {
+            models.add(new UndoableDrawingModel(adapted));
+        }
+        return models;
+    }
+
+}
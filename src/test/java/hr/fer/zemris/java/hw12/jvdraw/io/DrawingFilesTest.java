@@ -0,0 +1,192 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.TestDrawings;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModelImpl;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests writing and reading of drawings in text and binary format.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingFilesTest {
+
+    /**
+     * Number of objects in tested drawing, so it spans several batches.
+     */
+    private static final int COUNT = 10_000;
+
+    /**
+     * Directory in which files are being written.
+     */
+    private Path directory;
+
+    /**
+     * Creates temporary directory.
+     * 
+     * @throws IOException
+     *             If creating fails
+     */
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("drawings");
+    }
+
+    /**
+     * Deletes temporary directory with all files in it.
+     * 
+     * @throws IOException
+     *             If deleting fails
+     */
+    @After
+    public void deleteDirectory() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.forEach(files::add);
+        }
+
+        for (Path file : files) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void textRoundTrip() throws IOException {
+        assertRoundTrip(directory.resolve("drawing.jvd"));
+    }
+
+    @Test
+    public void binaryRoundTrip() throws IOException {
+        assertRoundTrip(directory.resolve("drawing."
+                + DrawingBinaryFormat.EXTENSION));
+    }
+
+    @Test
+    public void parallelTextReaderReadsWrittenObjects() throws IOException {
+        Path file = directory.resolve("drawing.jvd");
+        DrawingModel drawingModel = randomDrawing();
+        DrawingFiles.write(drawingModel, file);
+
+        ParseErrorReport report = new ParseErrorReport();
+        List<GeometricalObject> objects = new ParallelDrawingTextReader()
+                .read(file, report);
+
+        Assert.assertTrue(report.isEmpty());
+        Assert.assertEquals(COUNT, objects.size());
+        for (int i = 0; i < COUNT; i++) {
+            Assert.assertEquals(drawingModel.getObject(i).asText(), objects
+                    .get(i).asText());
+        }
+    }
+
+    @Test
+    public void invalidLinesAreCountedOverLimit() throws IOException {
+        Path file = directory.resolve("drawing.jvd");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < COUNT; i++) {
+            sb.append(i % 2 == 0 ? "LINE 1 2 3 4 255 0 0" : "SQUARE 1 2 3")
+                    .append('\n');
+        }
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        ParseErrorReport report = new ParseErrorReport(false, 10);
+        List<GeometricalObject> objects = new ParallelDrawingTextReader()
+                .read(file, report);
+
+        Assert.assertEquals(COUNT / 2, objects.size());
+        Assert.assertEquals(COUNT / 2, report.getErrorCount());
+        Assert.assertEquals(10, report.getStoredCount());
+        Assert.assertEquals(2, report.getLine(0));
+        Assert.assertEquals(20, report.getLine(9));
+
+        report = new ParseErrorReport(true, 10);
+        DrawingFiles.read(file, new DrawingModelImpl(), report);
+        Assert.assertEquals(1, report.getErrorCount());
+    }
+
+    @Test
+    public void savingKeepsPermissionsOfFile() throws IOException {
+        Path file = directory.resolve("drawing.jvd");
+        if (!Files.getFileStore(directory).supportsFileAttributeView(
+                PosixFileAttributeView.class)) {
+            return;
+        }
+
+        DrawingModel drawingModel = randomDrawing();
+        DrawingFiles.write(drawingModel, file);
+        Assert.assertTrue(Files.getPosixFilePermissions(file).contains(
+                PosixFilePermission.OWNER_WRITE));
+
+        Set<PosixFilePermission> permissions = PosixFilePermissions
+                .fromString("rw-r-----");
+        Files.setPosixFilePermissions(file, permissions);
+        DrawingFiles.write(drawingModel, file);
+
+        Assert.assertEquals(permissions, Files.getPosixFilePermissions(file));
+        try (Stream<Path> list = Files.list(directory)) {
+            Assert.assertEquals(1, list.count());
+        }
+    }
+
+    /**
+     * Writes random drawing to specified file, reads it back and checks that
+     * read objects are the same as written ones.
+     * 
+     * @param file
+     *            File to be written and read
+     * @throws IOException
+     *             If writing or reading fails
+     */
+    private static void assertRoundTrip(Path file) throws IOException {
+        DrawingModel drawingModel = randomDrawing();
+        DrawingFiles.write(drawingModel, file);
+
+        DrawingModel readModel = new DrawingModelImpl();
+        ParseErrorReport report = new ParseErrorReport();
+        DrawingFiles.read(file, readModel, report);
+
+        Assert.assertTrue(report.isEmpty());
+        Assert.assertEquals(drawingModel.getSize(), readModel.getSize());
+        for (int i = 0; i < drawingModel.getSize(); i++) {
+            GeometricalObject expected = drawingModel.getObject(i);
+            GeometricalObject actual = readModel.getObject(i);
+
+            Assert.assertEquals(expected.getClass(), actual.getClass());
+            Assert.assertEquals(expected.asText(), actual.asText());
+            Assert.assertEquals(expected.getIndex(), actual.getIndex());
+        }
+    }
+
+    /**
+     * Creates drawing of {@value #COUNT} random objects.
+     * 
+     * @return Created drawing
+     */
+    private static DrawingModel randomDrawing() {
+        DrawingModel drawingModel = new DrawingModelImpl();
+        drawingModel.addAll(TestDrawings.randomObjects(COUNT, 42));
+        return drawingModel;
+    }
+
+}
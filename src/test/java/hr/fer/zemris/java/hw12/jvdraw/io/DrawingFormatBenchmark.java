@@ -0,0 +1,116 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.TestDrawings;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModelImpl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH comparison of saving and loading drawings in text format and in binary
+ * format. Both benchmarks go through {@code DrawingFiles}, as saving and
+ * opening in the application does. Size of written file is printed after
+ * measuring, in bytes and in bytes per object. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=DrawingFormat}.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DrawingFormatBenchmark {
+
+    /**
+     * Extension of file, which defines its format.
+     */
+    @Param({ "jvd", DrawingBinaryFormat.EXTENSION })
+    public String format;
+
+    /**
+     * Number of objects in the drawing.
+     */
+    @Param({ "1000000" })
+    public int objects;
+
+    /**
+     * Drawing which is being saved.
+     */
+    private DrawingModel drawingModel;
+
+    /**
+     * Directory in which drawing is being saved.
+     */
+    private Path directory;
+
+    /**
+     * File which is being saved and loaded.
+     */
+    private Path file;
+
+    /**
+     * Creates random drawing and saves it, so it can be loaded.
+     * 
+     * @throws IOException
+     *             If writing fails
+     */
+    @Setup
+    public void writeDrawing() throws IOException {
+        drawingModel = new DrawingModelImpl();
+        drawingModel.addAll(TestDrawings.randomObjects(objects, 42));
+
+        directory = Files.createTempDirectory("benchmark");
+        file = directory.resolve("drawing." + format);
+        DrawingFiles.write(drawingModel, file);
+    }
+
+    /**
+     * Prints size of the saved drawing and deletes it.
+     * 
+     * @throws IOException
+     *             If deleting fails
+     */
+    @TearDown
+    public void deleteDrawing() throws IOException {
+        long size = Files.size(file);
+        System.out.printf("%nFile size (%s, %d objects): %d bytes, %.1f "
+                + "bytes per object%n", format, objects, size, (double) size
+                / objects);
+
+        Files.delete(file);
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        DrawingFiles.write(drawingModel, file);
+    }
+
+    @Benchmark
+    public DrawingModel load() throws IOException {
+        DrawingModel loaded = new DrawingModelImpl();
+        DrawingFiles.read(file, loaded, new ParseErrorReport());
+        return loaded;
+    }
+
+}
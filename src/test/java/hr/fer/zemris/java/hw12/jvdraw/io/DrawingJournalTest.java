@@ -0,0 +1,196 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.TestDrawings;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModelImpl;
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests recovery of changes saved in {@code DrawingJournal}.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class DrawingJournalTest {
+
+    /**
+     * Number of objects in saved document.
+     */
+    private static final int COUNT = 100;
+
+    /**
+     * Directory in which files are being written.
+     */
+    private Path directory;
+
+    /**
+     * Saved document.
+     */
+    private Path document;
+
+    /**
+     * Drawing which is saved in the document and then changed.
+     */
+    private DrawingModel drawingModel;
+
+    /**
+     * Creates temporary directory and saves random drawing in it.
+     * 
+     * @throws IOException
+     *             If writing fails
+     */
+    @Before
+    public void saveDocument() throws IOException {
+        directory = Files.createTempDirectory("journal");
+        document = directory.resolve("drawing."
+                + DrawingBinaryFormat.EXTENSION);
+
+        drawingModel = new DrawingModelImpl();
+        drawingModel.addAll(TestDrawings.randomObjects(COUNT, 42));
+        DrawingFiles.write(drawingModel, document);
+    }
+
+    /**
+     * Deletes temporary directory with all files in it.
+     * 
+     * @throws IOException
+     *             If deleting fails
+     */
+    @After
+    public void deleteDirectory() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.forEach(files::add);
+        }
+
+        for (Path file : files) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void committedChangesAreRecovered() throws IOException {
+        try (DrawingJournal journal = startJournal()) {
+            drawingModel.add(new Line(1, 2, 3, 4, Color.RED));
+            drawingModel.set(5, new Circle(10, 20, 30, Color.BLUE));
+            journal.commit();
+
+            // Not committed, so it is not recovered
+            drawingModel.add(new Circle(1, 1, 1, Color.GREEN));
+        }
+
+        DrawingModel loaded = load();
+        try (DrawingJournal journal = DrawingJournal.recover(document, loaded,
+                0)) {
+            Assert.assertNotNull(journal);
+            Assert.assertTrue(journal.isStarted());
+        }
+
+        Assert.assertEquals(COUNT + 1, loaded.getSize());
+        Assert.assertEquals(drawingModel.getObject(5).asText(), loaded
+                .getObject(5).asText());
+        Assert.assertEquals(drawingModel.getObject(COUNT).asText(), loaded
+                .getObject(COUNT).asText());
+    }
+
+    @Test
+    public void changesAreRecoveredAfterOffset() throws IOException {
+        try (DrawingJournal journal = startJournal()) {
+            drawingModel.set(0, new Circle(10, 20, 30, Color.BLUE));
+            journal.commit();
+        }
+
+        DrawingModel loaded = new DrawingModelImpl();
+        loaded.add(new Line(0, 0, 1, 1, Color.BLACK));
+        DrawingFiles.read(document, loaded, new ParseErrorReport());
+        DrawingJournal.recover(document, loaded, 1).close();
+
+        Assert.assertEquals(COUNT + 1, loaded.getSize());
+        Assert.assertEquals("LINE 0 0 1 1 0 0 0", loaded.getObject(0)
+                .asText());
+        Assert.assertEquals(drawingModel.getObject(0).asText(), loaded
+                .getObject(1).asText());
+    }
+
+    @Test
+    public void journalOfOtherDrawingIsDiscarded() throws IOException {
+        try (DrawingJournal journal = startJournal()) {
+            drawingModel.set(COUNT - 1, new Circle(10, 20, 30, Color.BLUE));
+            journal.commit();
+        }
+
+        DrawingModel shorter = new DrawingModelImpl();
+        shorter.addAll(TestDrawings.randomObjects(COUNT / 2, 42));
+        try {
+            DrawingJournal.recover(document, shorter, 0);
+            Assert.fail("Journal was recovered.");
+        } catch (IOException expected) {
+        }
+
+        Assert.assertEquals(COUNT / 2, shorter.getSize());
+        Assert.assertNull(DrawingJournal.recover(document, load(), 0));
+    }
+
+    @Test
+    public void journalIsNotStartedBeforeDocumentIsWritten()
+            throws IOException {
+        try (DrawingJournal journal = new DrawingJournal(document)) {
+            drawingModel.addDrawingModelListener(journal);
+            drawingModel.add(new Line(1, 2, 3, 4, Color.RED));
+            Assert.assertFalse(journal.isStarted());
+
+            journal.start();
+            Assert.assertTrue(journal.isStarted());
+            journal.commit();
+        }
+
+        Assert.assertEquals(COUNT, load().getSize());
+        DrawingModel loaded = load();
+        DrawingJournal.recover(document, loaded, 0).close();
+        Assert.assertEquals(COUNT + 1, loaded.getSize());
+    }
+
+    /**
+     * Starts new journal of the document which observes the drawing.
+     * 
+     * @return Started journal
+     * @throws IOException
+     *             If starting fails
+     */
+    private DrawingJournal startJournal() throws IOException {
+        DrawingJournal journal = new DrawingJournal(document);
+        journal.start();
+        drawingModel.addDrawingModelListener(journal);
+        return journal;
+    }
+
+    /**
+     * Loads the document without its journal.
+     * 
+     * @return Loaded drawing
+     * @throws IOException
+     *             If reading fails
+     */
+    private DrawingModel load() throws IOException {
+        DrawingModel loaded = new DrawingModelImpl();
+        DrawingFiles.read(document, loaded, new ParseErrorReport());
+        return loaded;
+    }
+
+}
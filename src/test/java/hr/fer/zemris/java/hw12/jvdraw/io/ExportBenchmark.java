@@ -0,0 +1,190 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.TestDrawings;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModelImpl;
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH comparison of rendering a drawing for export by {@code TiledDrawingImage}
+ * with the original way, which computed bounding box with two {@code Point}s
+ * per object and painted translated copy of every object on single image.
+ * Whole export through {@code DrawingFiles} is measured too. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=Export}, the
+ * benchmark profile adds GC profiler, which reports allocation rate.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = { "-Djava.awt.headless=true" })
+public class ExportBenchmark {
+
+    /**
+     * Number of objects in the drawing which is being exported.
+     */
+    @Param({ "1000000" })
+    public int objects;
+
+    /**
+     * Drawing which is being exported.
+     */
+    private DrawingModel drawingModel;
+
+    /**
+     * File to which drawing is being exported.
+     */
+    private Path file;
+
+    /**
+     * Creates random drawing.
+     * 
+     * @throws IOException
+     *             If creating of file fails
+     */
+    @Setup
+    public void createDrawing() throws IOException {
+        drawingModel = new DrawingModelImpl();
+        drawingModel.addAll(TestDrawings.randomObjects(objects, 42));
+
+        file = Files.createTempFile("benchmark", ".png");
+    }
+
+    /**
+     * Deletes exported file.
+     * 
+     * @throws IOException
+     *             If deleting fails
+     */
+    @TearDown
+    public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public BufferedImage copyingObjects() {
+        int xmin = Integer.MAX_VALUE;
+        int ymin = Integer.MAX_VALUE;
+        int xmax = Integer.MIN_VALUE;
+        int ymax = Integer.MIN_VALUE;
+
+        for (int index = 0; index < drawingModel.getSize(); index++) {
+            GeometricalObject object = drawingModel.getObject(index);
+            Point point1;
+            Point point2;
+
+            if (object instanceof Line) {
+                Line line = (Line) object;
+                point1 = new Point(line.getStartX(), line.getStartY());
+                point2 = new Point(line.getEndX(), line.getEndY());
+            } else {
+                int radius;
+                int centerX;
+                int centerY;
+                if (object instanceof Circle) {
+                    Circle circle = (Circle) object;
+                    radius = circle.getRadius();
+                    centerX = circle.getCenterX();
+                    centerY = circle.getCenterY();
+                } else {
+                    FilledCircle circle = (FilledCircle) object;
+                    radius = circle.getRadius();
+                    centerX = circle.getCenterX();
+                    centerY = circle.getCenterY();
+                }
+                point1 = new Point(centerX - radius, centerY - radius);
+                point2 = new Point(centerX + radius, centerY + radius);
+            }
+
+            xmin = Math.min(xmin, Math.min(point1.x, point2.x));
+            ymin = Math.min(ymin, Math.min(point1.y, point2.y));
+            xmax = Math.max(xmax, Math.max(point1.x, point2.x));
+            ymax = Math.max(ymax, Math.max(point1.y, point2.y));
+        }
+
+        BufferedImage image = new BufferedImage(xmax - xmin, ymax - ymin,
+                BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+        for (int index = 0; index < drawingModel.getSize(); index++) {
+            GeometricalObject object = drawingModel.getObject(index);
+            GeometricalObject translated;
+
+            if (object instanceof Line) {
+                Line line = (Line) object;
+                translated = new Line(line.getStartX() - xmin,
+                        line.getStartY() - ymin, line.getEndX() - xmin,
+                        line.getEndY() - ymin, line.getColor());
+            } else if (object instanceof Circle) {
+                Circle circle = (Circle) object;
+                translated = new Circle(circle.getCenterX() - xmin,
+                        circle.getCenterY() - ymin, circle.getRadius(),
+                        circle.getColor());
+            } else {
+                FilledCircle circle = (FilledCircle) object;
+                translated = new FilledCircle(circle.getCenterX() - xmin,
+                        circle.getCenterY() - ymin, circle.getRadius(),
+                        circle.getOutlineColor(), circle.getAreaColor());
+            }
+            translated.paint(g2d);
+        }
+
+        g2d.dispose();
+        return image;
+    }
+
+    @Benchmark
+    public void tiledImage(Blackhole blackhole) {
+        Rectangle bounds = drawingModel.getBounds();
+        TiledDrawingImage image = new TiledDrawingImage(drawingModel, bounds,
+                BufferedImage.TYPE_3BYTE_BGR);
+
+        // Rows of tiles are read in order, as image encoders read them
+        for (int tileY = 0; tileY < image.getNumYTiles(); tileY++) {
+            for (int tileX = 0; tileX < image.getNumXTiles(); tileX++) {
+                blackhole.consume(image.getTile(tileX, tileY));
+            }
+        }
+    }
+
+    @Benchmark
+    public void exportPng() throws IOException {
+        DrawingFiles.exportImage(drawingModel, file, "png");
+    }
+
+}
@@ -0,0 +1,134 @@
+package hr.fer.zemris.java.hw12.jvdraw.io;
+
+import hr.fer.zemris.java.hw12.jvdraw.TestDrawings;
+import hr.fer.zemris.java.hw12.jvdraw.object.Circle;
+import hr.fer.zemris.java.hw12.jvdraw.object.FilledCircle;
+import hr.fer.zemris.java.hw12.jvdraw.object.GeometricalObject;
+import hr.fer.zemris.java.hw12.jvdraw.object.Line;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH comparison of reading {@code .jvd} text drawings by
+ * {@code DrawingTextReader} and by {@code ParallelDrawingTextReader} with the
+ * original way, which read all lines into memory and split every line by
+ * regular expressions before parsing it. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=TextReading},
+ * allocation rates are reported by GC profiler of the benchmark profile.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TextReadingBenchmark {
+
+    /**
+     * Number of objects in the drawing which is being read.
+     */
+    @Param({ "100000", "1000000" })
+    public int objects;
+
+    /**
+     * Text drawing which is being read.
+     */
+    private Path file;
+
+    /**
+     * Writes random drawing with specified number of objects.
+     * 
+     * @throws IOException
+     *             If writing fails
+     */
+    @Setup
+    public void writeDrawing() throws IOException {
+        file = Files.createTempFile("benchmark", ".jvd");
+
+        List<GeometricalObject> drawing = TestDrawings.randomObjects(objects,
+                42);
+        try (DrawingTextWriter writer = new DrawingTextWriter(
+                Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            for (GeometricalObject object : drawing) {
+                writer.writeObject(object);
+            }
+        }
+    }
+
+    /**
+     * Deletes the drawing.
+     * 
+     * @throws IOException
+     *             If deleting fails
+     */
+    @TearDown
+    public void deleteDrawing() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public void readAllLinesAndSplit(Blackhole blackhole) throws IOException {
+        for (String line : Files.readAllLines(file)) {
+            String[] elements = line.split("\\s+", 2);
+            String parameters = elements.length == 1 ? "" : elements[1]
+                    .trim();
+
+            switch (elements[0].trim().toLowerCase()) {
+                case "line":
+                    blackhole.consume(Line.parseLine(parameters));
+                    break;
+                case "circle":
+                    blackhole.consume(Circle.parseCircle(parameters));
+                    break;
+                case "fcircle":
+                    blackhole.consume(FilledCircle
+                            .parseFilledCircle(parameters));
+                    break;
+                default:
+                    throw new IllegalStateException(line);
+            }
+        }
+    }
+
+    @Benchmark
+    public void streamingReader(Blackhole blackhole) throws IOException {
+        try (DrawingTextReader reader = new DrawingTextReader(
+                FileChannel.open(file))) {
+            GeometricalObject object;
+            while ((object = reader.readObject()) != null) {
+                blackhole.consume(object);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<GeometricalObject> parallelReader() throws IOException {
+        return new ParallelDrawingTextReader().read(file,
+                new ParseErrorReport());
+    }
+
+}
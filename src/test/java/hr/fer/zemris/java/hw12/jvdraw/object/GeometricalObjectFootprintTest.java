@@ -0,0 +1,136 @@
+package hr.fer.zemris.java.hw12.jvdraw.object;
+
+import hr.fer.zemris.java.hw12.jvdraw.component.ColumnarDrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModel;
+import hr.fer.zemris.java.hw12.jvdraw.component.DrawingModelImpl;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JComponent;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Measures retained size of {@code GeometricalObject}s by JOL and prints it
+ * next to retained size of an empty {@code JComponent}, which every object
+ * carried while {@code GeometricalObject} extended it. Retained size of
+ * stored objects is measured for both drawing models as well.
+ * 
+ * @author Domagoj Penic
+ * @version 4.6.2015.
+ *
+ */
+public class GeometricalObjectFootprintTest {
+
+    /**
+     * Number of objects which are measured together.
+     */
+    private static final int COUNT = 10_000;
+
+    /**
+     * Upper bound of retained size of single object in bytes, i.e. object
+     * header and at most six {@code int} fields, with alignment.
+     */
+    private static final long MAX_OBJECT_SIZE = 48;
+
+    @Test
+    public void objectsAreMuchSmallerThanComponents() {
+        long component = GraphLayout.parseInstance(new JComponent() {
+            private static final long serialVersionUID = 1L;
+        }).totalSize();
+
+        long line = perObject(lines());
+        long circle = perObject(circles());
+        long filledCircle = perObject(filledCircles());
+
+        System.out.printf("Retained size per object: JComponent %d, Line %d, "
+                + "Circle %d, FilledCircle %d bytes%n", component, line,
+                circle, filledCircle);
+
+        Assert.assertTrue("Line: " + line, line <= MAX_OBJECT_SIZE);
+        Assert.assertTrue("Circle: " + circle, circle <= MAX_OBJECT_SIZE);
+        Assert.assertTrue("FilledCircle: " + filledCircle,
+                filledCircle <= MAX_OBJECT_SIZE);
+        Assert.assertTrue(4 * Math.max(line, filledCircle) < component);
+    }
+
+    @Test
+    public void columnarModelIsSmallerThanObjects() {
+        List<GeometricalObject> objects = new ArrayList<>();
+        objects.addAll(lines());
+        objects.addAll(filledCircles());
+
+        DrawingModel objectModel = new DrawingModelImpl();
+        objectModel.addAll(objects);
+        DrawingModel columnarModel = new ColumnarDrawingModel();
+        columnarModel.addAll(objects);
+
+        long objectSize = GraphLayout.parseInstance(objectModel).totalSize()
+                / objects.size();
+        long columnarSize = GraphLayout.parseInstance(columnarModel)
+                .totalSize() / objects.size();
+
+        System.out.printf("Retained size per stored object, with spatial "
+                + "index: DrawingModelImpl %d, ColumnarDrawingModel %d "
+                + "bytes%n", objectSize, columnarSize);
+
+        Assert.assertTrue(columnarSize < objectSize);
+    }
+
+    /**
+     * Returns retained size of specified objects divided by their number.
+     * 
+     * @param objects
+     *            Objects to be measured
+     * @return Average retained size of single object in bytes
+     */
+    private static long perObject(List<? extends GeometricalObject> objects) {
+        return GraphLayout.parseInstance(objects.toArray()).totalSize()
+                / objects.size();
+    }
+
+    /**
+     * Creates {@value #COUNT} different lines.
+     * 
+     * @return Created lines
+     */
+    private static List<Line> lines() {
+        List<Line> lines = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            lines.add(new Line(i, i, i + 10, i + 20, new Color(i)));
+        }
+        return lines;
+    }
+
+    /**
+     * Creates {@value #COUNT} different circles.
+     * 
+     * @return Created circles
+     */
+    private static List<Circle> circles() {
+        List<Circle> circles = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            circles.add(new Circle(i, i, i % 50, new Color(i)));
+        }
+        return circles;
+    }
+
+    /**
+     * Creates {@value #COUNT} different filled circles.
+     * 
+     * @return Created filled circles
+     */
+    private static List<FilledCircle> filledCircles() {
+        List<FilledCircle> circles = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            circles.add(new FilledCircle(i, i, i % 50, new Color(i),
+                    new Color(-i)));
+        }
+        return circles;
+    }
+
+}